@@ -3,11 +3,15 @@ package uk.gov.defra.datareturns.config;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import java.net.URL;
+import java.time.Duration;
 
 /**
  * Configuration options for Microsoft Azure active directory authenticating authority
@@ -20,10 +24,58 @@ import java.net.URL;
 @Setter
 @Validated
 public class AADConfiguration {
+    /**
+     * Name of the executor used to acquire identity tokens
+     */
+    public static final String TOKEN_EXECUTOR = "aadTokenExecutor";
+
     @NotNull
     private URL authority;
 
     @NotNull
     private String identityClientId;
+
+    /**
+     * The number of identity tokens which may be acquired concurrently
+     */
+    @Min(1)
+    private int tokenThreads = 4;
+
+    /**
+     * The number of token acquisitions which may be queued awaiting a thread, further acquisitions are rejected
+     */
+    @Min(0)
+    private int tokenQueueCapacity = 100;
+
+    /**
+     * The period before expiry at which a cached identity token is refreshed in the background
+     */
+    @NotNull
+    private Duration tokenRefreshAhead = Duration.ofMinutes(5);
+
+    /**
+     * The maximum number of identities whose tokens are held
+     */
+    @Min(1)
+    private long tokenCacheMaximumSize = 1000;
+
+    /**
+     * The period after which the token held for an identity which has not been used is discarded
+     */
+    @NotNull
+    private Duration tokenCacheExpiry = Duration.ofHours(1);
+
+    /**
+     * @return the bounded executor shared by all identity token acquisitions
+     */
+    @Bean(name = TOKEN_EXECUTOR)
+    public ThreadPoolTaskExecutor aadTokenExecutor() {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(tokenThreads);
+        executor.setMaxPoolSize(tokenThreads);
+        executor.setQueueCapacity(tokenQueueCapacity);
+        executor.setThreadNamePrefix("aad-token-");
+        return executor;
+    }
 }
 
@@ -1,17 +1,56 @@
 package uk.gov.defra.datareturns.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachingConfigurerSupport;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.support.NullValue;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.validation.annotation.Validated;
+import uk.gov.defra.datareturns.data.model.catchments.Catchment;
+import uk.gov.defra.datareturns.data.model.grilse.GrilseWeightGate;
+import uk.gov.defra.datareturns.data.model.method.Method;
+import uk.gov.defra.datareturns.data.model.regions.Region;
+import uk.gov.defra.datareturns.data.model.rivers.River;
+import uk.gov.defra.datareturns.data.model.species.Species;
+import uk.gov.defra.datareturns.services.crm.CrmLookupService;
 
+import javax.cache.Caching;
+import javax.cache.configuration.Factory;
+import javax.cache.expiry.CreatedExpiryPolicy;
+import javax.cache.expiry.EternalExpiryPolicy;
+import javax.cache.expiry.ExpiryPolicy;
+import javax.persistence.SharedCacheMode;
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Cache manager configuration for rod catch returns
@@ -29,17 +68,78 @@ public class CacheManagerConfiguration extends CachingConfigurerSupport {
      * Bean name for the aad authentication cache
      */
     public static final String AUTHENTICATION_CACHE_MANAGER = "authenticationCacheManager";
+    /**
+     * Cache of active directory authentications by username
+     */
+    public static final String AUTHENTICATION_CACHE = "crm-aad-auth";
     /**
      * Bean name for the crm licence cache
      */
     public static final String LICENCE_CACHE_MANAGER = "licenceCacheManager";
+    /**
+     * Bean name for the key generator used by the crm licence caches
+     */
+    public static final String LICENCE_KEY_GENERATOR = "licenceKeyGenerator";
+    /**
+     * Cache of licences looked up by licence number (last 6 characters) and postcode
+     */
+    public static final String LICENCE_CACHE = "crm-licences";
+    /**
+     * Cache of licences looked up by full licence number
+     */
+    public static final String FULL_LICENCE_CACHE = "crm-licences-full";
+    /**
+     * Bean name for the JCache cache manager providing the hibernate second-level cache regions
+     */
+    public static final String HIBERNATE_CACHE_MANAGER = "hibernateCacheManager";
+    /**
+     * Hibernate second-level cache region holding the results of cacheable queries
+     */
+    public static final String QUERY_RESULTS_REGION = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+    /**
+     * Hibernate second-level cache region holding the last update time of each table (used to invalidate cached query results)
+     */
+    public static final String UPDATE_TIMESTAMPS_REGION = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
 
     @NotNull
     private Short activeDirectoryCacheManagerTtlHours;
 
+    /**
+     * The maximum number of users whose active directory authentication is cached
+     */
+    @NotNull
+    private Long activeDirectoryCacheManagerMaximumSize = 10000L;
+
+    /**
+     * The period for which licences which were found are cached
+     */
     @NotNull
     private Short licenceCacheManagerTtlHours;
 
+    /**
+     * The period for which failed licence lookups (unknown licence or postcode mismatch) are cached
+     */
+    @NotNull
+    private Short licenceCacheManagerMissTtlMinutes = 5;
+
+    /**
+     * The maximum number of lookups held in each licence cache
+     */
+    @NotNull
+    private Long licenceCacheManagerMaximumSize = 50000L;
+
+    /**
+     * The hibernate second-level cache regions for the reference data entities and cached query results, by region name
+     */
+    @NotNull
+    @Valid
+    private Map<String, CacheRegion> hibernateRegions = defaultHibernateRegions();
+
+    /**
+     * Whether hibernate records the statistics (reported for each second-level cache region) of the session factory
+     */
+    private boolean hibernateStatistics = true;
+
     @Bean
     @Override
     public CacheManager cacheManager() {
@@ -48,15 +148,158 @@ public class CacheManagerConfiguration extends CachingConfigurerSupport {
 
     @Bean(name = AUTHENTICATION_CACHE_MANAGER)
     public CacheManager authenticationCacheManager() {
-        final CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        cacheManager.setCacheSpecification("expireAfterWrite=" + getActiveDirectoryCacheManagerTtlHours() + "h");
+        final CaffeineCacheManager cacheManager = new CaffeineCacheManager(AUTHENTICATION_CACHE);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(getActiveDirectoryCacheManagerMaximumSize())
+                .expireAfterWrite(getActiveDirectoryCacheManagerTtlHours(), TimeUnit.HOURS)
+                .recordStats());
         return cacheManager;
     }
 
+    /**
+     * Licence lookups are cached with separate expiry periods for licences found and lookups which failed, so that anglers retrying the
+     * login form do not cause repeated CRM calls while a corrected licence is still seen promptly.  Values are loaded synchronously (see
+     * {@link org.springframework.cache.annotation.Cacheable#sync()}) so concurrent lookups for the same key share a single CRM call.
+     *
+     * @return the licence cache manager
+     */
     @Bean(name = LICENCE_CACHE_MANAGER)
     public CacheManager licenceCacheManager() {
-        final CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        cacheManager.setCacheSpecification("expireAfterWrite=" + getLicenceCacheManagerTtlHours() + "h");
+        final CaffeineCacheManager cacheManager = new CaffeineCacheManager(LICENCE_CACHE, FULL_LICENCE_CACHE);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(getLicenceCacheManagerMaximumSize())
+                .expireAfter(new HitMissExpiry(TimeUnit.HOURS.toNanos(getLicenceCacheManagerTtlHours()),
+                        TimeUnit.MINUTES.toNanos(getLicenceCacheManagerMissTtlMinutes())))
+                .recordStats());
         return cacheManager;
     }
+
+    /**
+     * Generates licence cache keys from the lookup parameters, normalised in the same way as the CRM query so that equivalent lookups share
+     * an entry
+     *
+     * @return the licence cache key generator
+     */
+    @Bean(name = LICENCE_KEY_GENERATOR)
+    public KeyGenerator licenceKeyGenerator() {
+        return (target, method, params) -> Arrays.stream(params)
+                .map(p -> CrmLookupService.normaliseLicenceParameter(Objects.toString(p, "")))
+                .collect(Collectors.joining("|"));
+    }
+
+    /**
+     * The JCache (Caffeine) cache manager providing the hibernate second-level cache regions.  Each configured region is created up front
+     * so that it is bounded by its configured size and time to live; the update timestamps region never expires as cached query results
+     * are only valid while the timestamps of the tables they depend on are held.
+     * <p>
+     * The regions are local to each instance and are not invalidated by changes made through other instances; the reference data snapshot
+     * is therefore read from the database (refreshing these regions) each time it is reloaded.
+     *
+     * @return the hibernate cache manager
+     */
+    @Bean(name = HIBERNATE_CACHE_MANAGER, destroyMethod = "close")
+    public javax.cache.CacheManager hibernateCacheManager() {
+        // each application context has its own cache manager (the provider would otherwise share a manager for the same uri)
+        final javax.cache.CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create(HIBERNATE_CACHE_MANAGER + ":" + UUID.randomUUID()), getClass().getClassLoader());
+        getHibernateRegions().forEach((name, region) -> cacheManager.createCache(name,
+                regionConfiguration(region.getMaximumSize(), CreatedExpiryPolicy.factoryOf(new javax.cache.expiry.Duration(
+                        TimeUnit.MILLISECONDS, region.getTtl().toMillis())))));
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, regionConfiguration(null, EternalExpiryPolicy.factoryOf()));
+        return cacheManager;
+    }
+
+    /**
+     * Enable the hibernate second-level and query caches for entities annotated with {@link javax.persistence.Cacheable}, using the
+     * regions provided by the {@link #hibernateCacheManager()}
+     *
+     * @param hibernateCacheManager the hibernate cache manager
+     * @return the customizer for the hibernate properties
+     */
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(
+            @Qualifier(HIBERNATE_CACHE_MANAGER) final javax.cache.CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.JPA_SHARED_CACHE_MODE, SharedCacheMode.ENABLE_SELECTIVE);
+            // short name of the hibernate-jcache region factory
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(AvailableSettings.GENERATE_STATISTICS, isHibernateStatistics());
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> regionConfiguration(final Long maximumSize,
+                                                                             final Factory<ExpiryPolicy> expiry) {
+        final CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        // hibernate stores its own (immutable) cache entries, there is no need for the provider to copy them
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        configuration.setExpiryPolicyFactory(expiry);
+        if (maximumSize != null) {
+            configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        }
+        return configuration;
+    }
+
+    private static Map<String, CacheRegion> defaultHibernateRegions() {
+        final Map<String, CacheRegion> regions = new LinkedHashMap<>();
+        for (final String name : Arrays.asList(Region.CACHE_REGION, Catchment.CACHE_REGION, River.CACHE_REGION, Species.CACHE_REGION,
+                Method.CACHE_REGION, GrilseWeightGate.CACHE_REGION)) {
+            regions.put(name, new CacheRegion(10000L, Duration.ofHours(24)));
+        }
+        regions.put(QUERY_RESULTS_REGION, new CacheRegion(1000L, Duration.ofHours(1)));
+        return regions;
+    }
+
+    /**
+     * Size and expiry of a hibernate second-level cache region
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor(access = AccessLevel.PACKAGE)
+    public static class CacheRegion {
+        /**
+         * The maximum number of entries held in the region
+         */
+        @NotNull
+        @Min(1)
+        private Long maximumSize = 10000L;
+
+        /**
+         * The period (from when they were written) after which entries are expired from the region
+         */
+        @NotNull
+        private Duration ttl = Duration.ofHours(24);
+    }
+
+    /**
+     * Expires cached values after a fixed period from when they were written, using a shorter period for cached misses (null values)
+     */
+    private static final class HitMissExpiry implements Expiry<Object, Object> {
+        private final long hitNanos;
+        private final long missNanos;
+
+        private HitMissExpiry(final long hitNanos, final long missNanos) {
+            this.hitNanos = hitNanos;
+            this.missNanos = missNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(final Object key, final Object value, final long currentTime) {
+            return NullValue.INSTANCE.equals(value) ? missNanos : hitNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(final Object key, final Object value, final long currentTime, final long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(final Object key, final Object value, final long currentTime, final long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
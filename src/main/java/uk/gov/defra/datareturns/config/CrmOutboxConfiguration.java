@@ -0,0 +1,103 @@
+package uk.gov.defra.datareturns.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Configuration options for the dispatch of CRM activity calls from the outbox
+ */
+@Configuration
+@ConfigurationProperties(prefix = "crm.outbox")
+@Getter
+@Setter
+@Validated
+public class CrmOutboxConfiguration {
+    /**
+     * Name of the executor used to dispatch CRM activity calls
+     */
+    public static final String OUTBOX_EXECUTOR = "crmOutboxExecutor";
+
+    /**
+     * The delay between checks of the outbox for calls which are due
+     */
+    @NotNull
+    private Duration pollInterval = Duration.ofSeconds(5);
+
+    /**
+     * The maximum number of outbox entries claimed by each check
+     */
+    @Min(1)
+    private int batchSize = 200;
+
+    /**
+     * The maximum number of CRM activity calls sent in each OData batch request (Dynamics accepts up to 1000)
+     */
+    @Min(1)
+    @Max(1000)
+    private int batchOperations = 100;
+
+    /**
+     * The number of batch requests to the CRM which may be made concurrently
+     */
+    @Min(1)
+    private int threads = 4;
+
+    /**
+     * The number of batch requests which may be queued awaiting a thread, further requests are made by the dispatching thread
+     */
+    @Min(0)
+    private int queueCapacity = 10;
+
+    /**
+     * The period for which claimed entries are held by a dispatcher before being released for another attempt
+     */
+    @NotNull
+    private Duration lease = Duration.ofMinutes(5);
+
+    /**
+     * The delay before the first retry of a failed call, doubled for each subsequent failure
+     */
+    @NotNull
+    private Duration initialBackoff = Duration.ofSeconds(30);
+
+    /**
+     * The maximum delay between retries of a failed call
+     */
+    @NotNull
+    private Duration maxBackoff = Duration.ofHours(1);
+
+    /**
+     * @param attempts the number of failed attempts made
+     * @return the delay before the next attempt
+     */
+    public Duration getBackoff(final int attempts) {
+        final int doublings = Math.min(Math.max(attempts - 1, 0), 30);
+        final Duration backoff = initialBackoff.multipliedBy(1L << doublings);
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    /**
+     * @return the bounded executor used to dispatch CRM activity calls
+     */
+    @Bean(name = OUTBOX_EXECUTOR)
+    public ThreadPoolTaskExecutor crmOutboxExecutor() {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("crm-outbox-");
+        return executor;
+    }
+}
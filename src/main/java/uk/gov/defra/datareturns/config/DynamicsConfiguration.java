@@ -2,10 +2,16 @@ package uk.gov.defra.datareturns.config;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.security.oauth2.client.OAuth2RestTemplate;
 import org.springframework.security.oauth2.client.resource.OAuth2ProtectedResourceDetails;
 import org.springframework.security.oauth2.client.token.grant.client.ClientCredentialsAccessTokenProvider;
@@ -18,9 +24,13 @@ import uk.gov.defra.datareturns.services.crm.DynamicsMockServer;
 import uk.gov.defra.datareturns.services.crm.rest.ClientRestTemplateErrorHandler;
 import uk.gov.defra.datareturns.services.crm.rest.ClientRestTemplateOAuth2ErrorHandler;
 import uk.gov.defra.datareturns.services.crm.rest.IdentityRestTemplateErrorHandler;
+import uk.gov.defra.datareturns.services.crm.rest.ODataBatch;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Configuration options for Microsoft Dynamics integration
@@ -42,12 +52,14 @@ public class DynamicsConfiguration {
     /**
      * Retrieve an {@link OAuth2RestTemplate} preconfigured for OAuth 2.0 client credentials grant flow
      *
-     * @param details the oauth2 configuration to use for client credentials flow
+     * @param details        the oauth2 configuration to use for client credentials flow
+     * @param requestFactory the pooled request factory used for dynamics calls
      * @return an {@link OAuth2RestTemplate} preconfigured for OAuth 2.0 client credentials grant flow
      */
     @Bean
-    protected RestTemplate dynamicsClientRestTemplate(final OAuth2ProtectedResourceDetails details) {
-        RestTemplate template = buildClientCredentialsTemplate(details);
+    protected RestTemplate dynamicsClientRestTemplate(final OAuth2ProtectedResourceDetails details,
+                                                      @Qualifier(Http.REQUEST_FACTORY) final ClientHttpRequestFactory requestFactory) {
+        RestTemplate template = buildClientCredentialsTemplate(details, requestFactory);
         if (DynamicsImpl.MOCK.equals(this.getImpl())) {
             template = new RestTemplate();
             DynamicsMockServer.bindTo(template);
@@ -60,24 +72,31 @@ public class DynamicsConfiguration {
      * Builds an {@link OAuth2RestTemplate} configured for client credentials flow.
      * Maps any OAuth2 request failure to an internal server error ensuring that these are properly logged.
      */
-    private OAuth2RestTemplate buildClientCredentialsTemplate(final OAuth2ProtectedResourceDetails details) {
+    private OAuth2RestTemplate buildClientCredentialsTemplate(final OAuth2ProtectedResourceDetails details,
+                                                              final ClientHttpRequestFactory requestFactory) {
         final ClientCredentialsAccessTokenProvider provider = new ClientCredentialsAccessTokenProvider() {
             @Override
             protected ResponseErrorHandler getResponseErrorHandler() {
                 return new ClientRestTemplateOAuth2ErrorHandler();
             }
         };
+        provider.setRequestFactory(requestFactory);
         final OAuth2RestTemplate template = new OAuth2RestTemplate(details);
+        template.setRequestFactory(requestFactory);
         template.setAccessTokenProvider(provider);
         return template;
     }
 
     /**
+     * @param builder        the rest template builder
+     * @param requestFactory the pooled request factory used for dynamics calls
      * @return RestTemplate for dynamics "identity" calls
      */
     @Bean
-    protected RestTemplate dynamicsIdentityRestTemplate(final RestTemplateBuilder builder) {
-        final RestTemplate template = builder.errorHandler(new IdentityRestTemplateErrorHandler()).build();
+    protected RestTemplate dynamicsIdentityRestTemplate(final RestTemplateBuilder builder,
+                                                        @Qualifier(Http.REQUEST_FACTORY) final ClientHttpRequestFactory requestFactory) {
+        final RestTemplate template = builder.requestFactory(() -> requestFactory)
+                .errorHandler(new IdentityRestTemplateErrorHandler()).build();
         if (DynamicsImpl.MOCK.equals(this.getImpl())) {
             DynamicsMockServer.bindTo(template);
         }
@@ -131,6 +150,15 @@ public class DynamicsConfiguration {
             return UriComponentsBuilder.fromUri(getUrl()).path(getApiPath()).path("/").path(storedProcedureName).build().toUri();
         }
 
+        /**
+         * Retrieve the URI of the dynamics OData batch endpoint
+         *
+         * @return the request URI for batch requests
+         */
+        public URI getApiBatchEndpoint() {
+            return UriComponentsBuilder.fromUri(getUrl()).path(getApiPath()).path("/").path(ODataBatch.BATCH_PATH).build().toUri();
+        }
+
         /**
          * Retrieve the URI for the given dynamics entity
          *
@@ -142,4 +170,99 @@ public class DynamicsConfiguration {
             return UriComponentsBuilder.fromUri(getUrl()).path(getApiPath()).path("/").path(entity).queryParams(queryMap).build().toUri();
         }
     }
+
+    /**
+     * Configuration of the pooled HTTP client used for all calls to dynamics
+     */
+    @Configuration
+    @ConfigurationProperties(prefix = "dynamics.http")
+    @Getter
+    @Setter
+    @Validated
+    public static class Http {
+        /**
+         * Bean name of the pooled request factory used for dynamics calls
+         */
+        public static final String REQUEST_FACTORY = "dynamicsRequestFactory";
+
+        /**
+         * The maximum number of connections held in the pool
+         */
+        @Min(1)
+        private int maxConnections = 100;
+
+        /**
+         * The maximum number of connections held in the pool for each route (all dynamics calls share a single route per host)
+         */
+        @Min(1)
+        private int maxConnectionsPerRoute = 100;
+
+        /**
+         * The period after which an idle connection is evicted from the pool
+         */
+        @NotNull
+        private Duration idleEviction = Duration.ofSeconds(60);
+
+        /**
+         * The period of inactivity after which a pooled connection is checked before being reused
+         */
+        @NotNull
+        private Duration validateAfterInactivity = Duration.ofSeconds(5);
+
+        /**
+         * The timeout for establishing a connection
+         */
+        @NotNull
+        private Duration connectTimeout = Duration.ofSeconds(5);
+
+        /**
+         * The timeout for waiting for a connection from the pool
+         */
+        @NotNull
+        private Duration connectionRequestTimeout = Duration.ofSeconds(5);
+
+        /**
+         * The timeout for waiting for data (the maximum inactivity between packets of a response)
+         */
+        @NotNull
+        private Duration readTimeout = Duration.ofSeconds(30);
+
+        /**
+         * @return the connection pool used for dynamics calls
+         */
+        @Bean
+        public PoolingHttpClientConnectionManager dynamicsConnectionManager() {
+            final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+            connectionManager.setMaxTotal(maxConnections);
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+            connectionManager.setValidateAfterInactivity((int) validateAfterInactivity.toMillis());
+            return connectionManager;
+        }
+
+        /**
+         * @param connectionManager the connection pool used for dynamics calls
+         * @return the pooled HTTP client used for dynamics calls
+         */
+        @Bean
+        public CloseableHttpClient dynamicsHttpClient(final PoolingHttpClientConnectionManager connectionManager) {
+            return HttpClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .evictExpiredConnections()
+                    .evictIdleConnections(idleEviction.toMillis(), TimeUnit.MILLISECONDS)
+                    .build();
+        }
+
+        /**
+         * @param httpClient the pooled HTTP client used for dynamics calls
+         * @return the request factory used by the dynamics rest templates
+         */
+        @Bean(name = REQUEST_FACTORY)
+        public ClientHttpRequestFactory dynamicsRequestFactory(final CloseableHttpClient httpClient) {
+            final HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+            requestFactory.setConnectTimeout((int) connectTimeout.toMillis());
+            requestFactory.setConnectionRequestTimeout((int) connectionRequestTimeout.toMillis());
+            requestFactory.setReadTimeout((int) readTimeout.toMillis());
+            return requestFactory;
+        }
+    }
 }
@@ -0,0 +1,59 @@
+package uk.gov.defra.datareturns.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * Configuration options for the (asynchronous) licence lookup endpoints
+ */
+@Configuration
+@ConfigurationProperties(prefix = "licence.lookup")
+@Getter
+@Setter
+@Validated
+public class LicenceLookupConfiguration {
+    /**
+     * Name of the executor used to make licence lookups
+     */
+    public static final String LOOKUP_EXECUTOR = "licenceLookupExecutor";
+
+    /**
+     * The number of licence lookups which may be made concurrently
+     */
+    @Min(1)
+    private int threads = 20;
+
+    /**
+     * The number of licence lookups which may be queued awaiting a thread, further requests are rejected
+     */
+    @Min(0)
+    private int queueCapacity = 200;
+
+    /**
+     * The period after which a licence lookup request is abandoned
+     */
+    @NotNull
+    private Duration timeout = Duration.ofSeconds(15);
+
+    /**
+     * @return the bounded executor used to make licence lookups, keeping CRM calls off the servlet container threads
+     */
+    @Bean(name = LOOKUP_EXECUTOR)
+    public ThreadPoolTaskExecutor licenceLookupExecutor() {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("licence-lookup-");
+        return executor;
+    }
+}
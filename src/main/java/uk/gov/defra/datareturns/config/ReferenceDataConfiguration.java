@@ -0,0 +1,27 @@
+package uk.gov.defra.datareturns.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * Configuration options for the in-memory reference data snapshot
+ */
+@Configuration
+@ConfigurationProperties(prefix = "reference-data")
+@Getter
+@Setter
+@Validated
+public class ReferenceDataConfiguration {
+    /**
+     * The period after which the snapshot is reloaded regardless of changes made through this instance, so that changes made through
+     * other instances (or directly in the database) are seen
+     */
+    @NotNull
+    private Duration refreshInterval = Duration.ofMinutes(1);
+}
@@ -0,0 +1,163 @@
+package uk.gov.defra.datareturns.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Configuration options for the reporting feeds
+ */
+@Configuration
+@ConfigurationProperties(prefix = "reporting")
+@EnableScheduling
+@Getter
+@Setter
+@Validated
+public class ReportingConfiguration {
+    /**
+     * The engine used to export reporting feeds - supported values are 'jpa' and 'copy'
+     */
+    @NotNull
+    private FeedEngine feedEngine = FeedEngine.JPA;
+
+    /**
+     * The period by which consecutive delta feed requests overlap, allowing for rows modified by transactions which had not yet
+     * committed when the previous request was served
+     */
+    @NotNull
+    private Duration deltaOverlap = Duration.ofMinutes(1);
+
+    /**
+     * The number of queries which may run concurrently when generating feed bundles (each uses a separate database connection)
+     */
+    @Min(1)
+    private int bundleParallelism = 5;
+
+    /**
+     * The id of the species whose large catches are estimated as grilse or multi-sea-winter fish (salmon)
+     */
+    @NotNull
+    private Long grilseSpeciesId = 1L;
+
+    /**
+     * @return the executor used to generate the entries of feed bundles concurrently
+     */
+    @Bean
+    public ThreadPoolTaskExecutor reportingBundleExecutor() {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(bundleParallelism);
+        executor.setMaxPoolSize(bundleParallelism);
+        executor.setThreadNamePrefix("reporting-bundle-");
+        return executor;
+    }
+
+    /**
+     * Reporting feed snapshot configuration
+     */
+    @Configuration
+    @ConfigurationProperties(prefix = "reporting.snapshot")
+    @Getter
+    @Setter
+    @Validated
+    public static class Snapshot {
+        /**
+         * Enable serving of pre-rendered feed snapshots
+         */
+        private boolean enabled = true;
+
+        /**
+         * The directory that feed snapshots are rendered to
+         */
+        @NotNull
+        private Path directory = Paths.get(System.getProperty("java.io.tmpdir"), "rcr-feed-snapshots");
+
+        /**
+         * The first season rendered by the scheduled snapshot job (all closed seasons from this season onwards are rendered)
+         */
+        @NotNull
+        private Short firstSeason = 2018;
+
+        /**
+         * Cron expression for the scheduled job which renders snapshots for closed seasons
+         */
+        @NotNull
+        private String cron = "0 0 2 * * *";
+    }
+
+    /**
+     * Asynchronous reporting export job configuration
+     */
+    @Configuration
+    @ConfigurationProperties(prefix = "reporting.exports")
+    @Getter
+    @Setter
+    @Validated
+    public static class Exports {
+        /**
+         * Name of the executor used to run export jobs
+         */
+        public static final String EXPORT_EXECUTOR = "reportingExportExecutor";
+
+        /**
+         * The number of export jobs which may run concurrently
+         */
+        @Min(1)
+        private int threads = 2;
+
+        /**
+         * The number of export jobs which may be queued awaiting a thread, further requests are rejected
+         */
+        @Min(0)
+        private int queueCapacity = 20;
+
+        /**
+         * The directory that export job results are written to
+         */
+        @NotNull
+        private Path directory = Paths.get(System.getProperty("java.io.tmpdir"), "rcr-feed-exports");
+
+        /**
+         * The period for which completed export jobs (and their results) are retained
+         */
+        @NotNull
+        private Duration retention = Duration.ofHours(1);
+
+        /**
+         * @return the bounded executor used to run export jobs
+         */
+        @Bean(name = EXPORT_EXECUTOR)
+        public ThreadPoolTaskExecutor reportingExportExecutor() {
+            final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(threads);
+            executor.setMaxPoolSize(threads);
+            executor.setQueueCapacity(queueCapacity);
+            executor.setThreadNamePrefix("reporting-export-");
+            return executor;
+        }
+    }
+
+    /**
+     * Available reporting feed export engines
+     */
+    public enum FeedEngine {
+        /**
+         * feed entities are streamed through JPA and serialised to CSV by the API
+         */
+        JPA,
+        /**
+         * feeds are produced by the database using PostgreSQL COPY ... TO STDOUT (falls back to JPA on other databases)
+         */
+        COPY
+    }
+}
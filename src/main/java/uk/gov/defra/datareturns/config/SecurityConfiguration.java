@@ -26,6 +26,8 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.validation.annotation.Validated;
 import uk.gov.defra.datareturns.security.DefaultExpressionRoot;
 import uk.gov.defra.datareturns.services.authentication.ActiveDirectoryAuthenticationProvider;
+import uk.gov.defra.datareturns.services.authentication.RcrAuthentication;
+import uk.gov.defra.datareturns.services.authentication.RcrAuthority;
 
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
@@ -90,7 +92,7 @@ public class SecurityConfiguration {
                 @Override
                 protected MethodSecurityExpressionOperations createSecurityExpressionRoot(final Authentication authentication,
                                                                                           final MethodInvocation invocation) {
-                    final DefaultExpressionRoot root = new DefaultExpressionRoot(authentication);
+                    final RcrExpressionRoot root = new RcrExpressionRoot(authentication);
                     root.setTarget(invocation.getThis());
                     root.setPermissionEvaluator(getPermissionEvaluator());
                     root.setTrustResolver(this.trustResolver);
@@ -103,17 +105,57 @@ public class SecurityConfiguration {
         }
     }
 
+    /**
+     * Method security expression root, adding {@code isGranted('<authority>')} which checks an {@link RcrAuthority} without building the
+     * set of granted authority names as {@code hasAuthority('<authority>')} does
+     */
+    public static class RcrExpressionRoot extends DefaultExpressionRoot {
+        public RcrExpressionRoot(final Authentication authentication) {
+            super(authentication);
+        }
+
+        /**
+         * @param authority the authority to check (SpEL converts the authority name)
+         * @return true if the current user has been granted the given authority
+         */
+        public boolean isGranted(final RcrAuthority authority) {
+            return RcrPermissionEvaluator.hasAuthority(getAuthentication(), authority);
+        }
+    }
+
     /**
      * Permission evaluator
      */
     public static class RcrPermissionEvaluator implements PermissionEvaluator {
+        public static boolean hasAuthority(final Authentication auth, final String authority) {
+            final RcrAuthority known = RcrAuthority.lookup(authority);
+            if (known != null) {
+                return hasAuthority(auth, known);
+            }
+            return authority != null && hasGrantedAuthority(auth, authority);
+        }
+
         /**
-         * Permits access to use reference data marked as internal in a submission
+         * Check an {@link RcrAuthority}, using the compiled authorities of an {@link RcrAuthentication} where available
+         *
+         * @param auth      the authentication to check
+         * @param authority the authority required
+         * @return true if the authentication has been granted the given authority
          */
-        public static final String USE_INTERNAL = "USE_INTERNAL";
+        public static boolean hasAuthority(final Authentication auth, final RcrAuthority authority) {
+            if (auth instanceof RcrAuthentication) {
+                return ((RcrAuthentication) auth).hasAuthority(authority);
+            }
+            return hasGrantedAuthority(auth, authority.name());
+        }
 
-        public static boolean hasAuthority(final Authentication auth, final String authority) {
-            return authority != null && auth.getAuthorities().stream().map(GrantedAuthority::getAuthority).anyMatch(authority::equals);
+        private static boolean hasGrantedAuthority(final Authentication auth, final String authority) {
+            for (final GrantedAuthority granted : auth.getAuthorities()) {
+                if (authority.equals(granted.getAuthority())) {
+                    return true;
+                }
+            }
+            return false;
         }
 
         private static boolean hasAuthority(final Authentication auth, final String targetType, final String authority) {
@@ -0,0 +1,75 @@
+package uk.gov.defra.datareturns.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Configuration options for the bulk import of catch returns
+ */
+@Configuration
+@ConfigurationProperties(prefix = "submissions.import")
+@Getter
+@Setter
+@Validated
+public class SubmissionImportConfiguration {
+    /**
+     * Name of the executor used to validate imported returns
+     */
+    public static final String IMPORT_EXECUTOR = "submissionImportExecutor";
+
+    /**
+     * The number of returns validated together and written in each transaction
+     */
+    @Min(1)
+    private int batchSize = 500;
+
+    /**
+     * The directory that import error reports are written to
+     */
+    @NotNull
+    private Path directory = Paths.get(System.getProperty("java.io.tmpdir"), "rcr-submission-imports");
+
+    /**
+     * The period for which import error reports are retained
+     */
+    @NotNull
+    private Duration retention = Duration.ofHours(24);
+
+    /**
+     * The number of threads used to validate imported returns
+     */
+    @Min(1)
+    private int validationThreads = 4;
+
+    /**
+     * The number of returns which may be queued awaiting validation, further returns are validated by the importing thread
+     */
+    @Min(0)
+    private int queueCapacity = 500;
+
+    /**
+     * @return the bounded executor used to validate imported returns
+     */
+    @Bean(name = IMPORT_EXECUTOR)
+    public ThreadPoolTaskExecutor submissionImportExecutor() {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(validationThreads);
+        executor.setMaxPoolSize(validationThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("submission-import-");
+        return executor;
+    }
+}
@@ -1,10 +1,15 @@
 package uk.gov.defra.datareturns.data.model;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.NoRepositoryBean;
 import org.springframework.lang.NonNull;
 import org.springframework.security.access.prepost.PreAuthorize;
 import uk.gov.defra.datareturns.data.BaseRepository;
 
+import javax.persistence.QueryHint;
 import java.io.Serializable;
 import java.lang.annotation.Documented;
 import java.lang.annotation.ElementType;
@@ -18,6 +23,9 @@ import java.util.List;
 /**
  * Reference data repository
  * Prevents reference data from being modified by unauthorized users
+ * <p>
+ * Reference data entities are held in the hibernate second-level cache and the queries listing them are cached (as the identifiers of
+ * the entities found).  Writes through this repository update the cached entities and invalidate the cached queries for the table.
  *
  * @param <E> the entity this repository will serve
  * @param <I> the generic type of the entity identifier
@@ -25,6 +33,21 @@ import java.util.List;
  */
 @NoRepositoryBean
 public interface ReferenceDataRepository<E extends AbstractBaseEntity, I extends Serializable> extends BaseRepository<E, I> {
+    @Override
+    @NonNull
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<E> findAll();
+
+    @Override
+    @NonNull
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<E> findAll(@NonNull Sort sort);
+
+    @Override
+    @NonNull
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    Page<E> findAll(@NonNull Pageable pageable);
+
     @Override
     @HasReferenceDataWrite
     void deleteAll(@NonNull Iterable<? extends E> entities);
@@ -71,7 +94,7 @@ public interface ReferenceDataRepository<E extends AbstractBaseEntity, I extends
     @Retention(RetentionPolicy.RUNTIME)
     @Inherited
     @Documented
-    @PreAuthorize("hasAuthority('REFERENCE_DATA_WRITE')")
+    @PreAuthorize("isGranted('REFERENCE_DATA_WRITE')")
     @interface HasReferenceDataWrite {
     }
 }
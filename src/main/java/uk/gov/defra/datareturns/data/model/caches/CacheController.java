@@ -0,0 +1,148 @@
+package uk.gov.defra.datareturns.data.model.caches;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.rest.webmvc.BasePathAwareController;
+import org.springframework.data.rest.webmvc.RepositoryLinksResource;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.ResourceProcessor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import uk.gov.defra.datareturns.config.CacheManagerConfiguration;
+import uk.gov.defra.datareturns.services.authentication.ActiveDirectoryAuthenticationProvider;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Controller to report the usage of the application caches and allow administrators to evict cached entries
+ */
+@BasePathAwareController
+@ConditionalOnWebApplication
+@Slf4j
+@RequiredArgsConstructor
+@RequestMapping("/caches")
+public class CacheController implements ResourceProcessor<RepositoryLinksResource> {
+    /**
+     * the cache managers, by bean name
+     */
+    private final Map<String, CacheManager> cacheManagers;
+
+    /**
+     * the active directory authentication provider (which caches authentications by username)
+     */
+    private final ActiveDirectoryAuthenticationProvider activeDirectoryAuthentication;
+
+    /**
+     * the cache configuration (defining the hibernate second-level cache regions)
+     */
+    private final CacheManagerConfiguration cacheManagerConfiguration;
+
+    /**
+     * the JCache cache manager providing the hibernate second-level cache regions
+     */
+    private final javax.cache.CacheManager hibernateCacheManager;
+
+    /**
+     * the entity manager factory (for the statistics of the hibernate second-level cache regions)
+     */
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Retrieve the statistics for each cache (only caches configured to record statistics report non-zero counts), followed by those of
+     * each hibernate second-level cache region
+     *
+     * @return a {@link ResponseEntity} containing the statistics for each cache
+     */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("isGranted('USE_INTERNAL')")
+    public ResponseEntity<List<CacheStatistics>> getStatistics() {
+        final List<CacheStatistics> statistics = new ArrayList<>();
+        new TreeMap<>(cacheManagers).forEach((managerName, manager) -> manager.getCacheNames().stream().sorted().forEach(name -> {
+            final Cache cache = manager.getCache(name);
+            if (cache instanceof CaffeineCache) {
+                final com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = ((CaffeineCache) cache).getNativeCache();
+                statistics.add(CacheStatistics.of(managerName, name, nativeCache.estimatedSize(), nativeCache.stats()));
+            }
+        }));
+        statistics.addAll(getHibernateRegionStatistics());
+        return new ResponseEntity<>(statistics, HttpStatus.OK);
+    }
+
+    private List<CacheStatistics> getHibernateRegionStatistics() {
+        final Statistics hibernateStatistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        final List<CacheStatistics> statistics = new ArrayList<>();
+        for (final String name : new TreeSet<>(cacheManagerConfiguration.getHibernateRegions().keySet())) {
+            final CacheRegionStatistics regionStatistics = CacheManagerConfiguration.QUERY_RESULTS_REGION.equals(name)
+                    ? hibernateStatistics.getQueryRegionStatistics(name)
+                    : hibernateStatistics.getDomainDataRegionStatistics(name);
+            if (regionStatistics != null) {
+                final long size = hibernateCacheManager.getCache(name).unwrap(com.github.benmanes.caffeine.cache.Cache.class)
+                        .estimatedSize();
+                statistics.add(CacheStatistics.of(CacheManagerConfiguration.HIBERNATE_CACHE_MANAGER, name, size, regionStatistics));
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Clear the given cache
+     *
+     * @param managerName the bean name of the cache manager
+     * @param cacheName   the name of the cache
+     * @return a {@link ResponseEntity} with status NO_CONTENT if the cache was cleared or NOT_FOUND if no such cache exists
+     */
+    @DeleteMapping("/{managerName}/{cacheName}")
+    @PreAuthorize("isGranted('REFERENCE_DATA_WRITE')")
+    public ResponseEntity<Void> clear(@PathVariable("managerName") final String managerName,
+                                      @PathVariable("cacheName") final String cacheName) {
+        final CacheManager manager = cacheManagers.get(managerName);
+        final Cache cache = manager != null && manager.getCacheNames().contains(cacheName) ? manager.getCache(cacheName) : null;
+        if (cache == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        cache.clear();
+        log.info("Cache {} ({}) cleared", cacheName, managerName);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    /**
+     * Evict the cached active directory authentication for a user (e.g. following a change to their roles)
+     *
+     * @param username the username of the user
+     * @return a {@link ResponseEntity} with status NO_CONTENT if an authentication was evicted or NOT_FOUND if none was cached
+     */
+    @DeleteMapping("/authentication")
+    @PreAuthorize("isGranted('REFERENCE_DATA_WRITE')")
+    public ResponseEntity<Void> evictAuthentication(@RequestParam("username") final String username) {
+        final boolean evicted = activeDirectoryAuthentication.evict(username);
+        log.info("Cached authentication for {} evicted: {}", username, evicted);
+        return new ResponseEntity<>(evicted ? HttpStatus.NO_CONTENT : HttpStatus.NOT_FOUND);
+    }
+
+    @Override
+    public RepositoryLinksResource process(final RepositoryLinksResource resource) {
+        final String base = ServletUriComponentsBuilder.fromCurrentRequest().toUriString();
+        resource.add(new Link(base + "caches", "caches"));
+        return resource;
+    }
+}
@@ -0,0 +1,93 @@
+package uk.gov.defra.datareturns.data.model.caches;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.hibernate.stat.CacheRegionStatistics;
+
+/**
+ * Usage statistics for a cache
+ */
+@Getter
+@AllArgsConstructor
+public class CacheStatistics {
+    /**
+     * The name of the cache manager holding the cache
+     */
+    private final String cacheManager;
+
+    /**
+     * The name of the cache
+     */
+    private final String name;
+
+    /**
+     * The (approximate) number of entries in the cache
+     */
+    private final long size;
+
+    /**
+     * The number of lookups which found a cached value
+     */
+    private final long hitCount;
+
+    /**
+     * The number of lookups which did not find a cached value
+     */
+    private final long missCount;
+
+    /**
+     * The proportion of lookups which found a cached value
+     */
+    private final double hitRate;
+
+    /**
+     * The number of values successfully loaded
+     */
+    private final long loadSuccessCount;
+
+    /**
+     * The number of value loads which failed
+     */
+    private final long loadFailureCount;
+
+    /**
+     * The average time taken to load a value, in milliseconds
+     */
+    private final double averageLoadMillis;
+
+    /**
+     * The number of entries evicted (due to size or expiry)
+     */
+    private final long evictionCount;
+
+    /**
+     * Create the statistics for a cache
+     *
+     * @param cacheManager the name of the cache manager holding the cache
+     * @param name         the name of the cache
+     * @param size         the estimated number of entries in the cache
+     * @param stats        the statistics recorded by the cache
+     * @return the cache statistics
+     */
+    public static CacheStatistics of(final String cacheManager, final String name, final long size, final CacheStats stats) {
+        return new CacheStatistics(cacheManager, name, size, stats.hitCount(), stats.missCount(), stats.hitRate(), stats.loadSuccessCount(),
+                stats.loadFailureCount(), stats.averageLoadPenalty() / 1_000_000d, stats.evictionCount());
+    }
+
+    /**
+     * Create the statistics for a hibernate second-level cache region (hibernate records hits, misses and puts only)
+     *
+     * @param cacheManager the name of the cache manager holding the region
+     * @param name         the name of the region
+     * @param size         the estimated number of entries in the region
+     * @param stats        the statistics recorded by hibernate for the region
+     * @return the cache statistics
+     */
+    public static CacheStatistics of(final String cacheManager, final String name, final long size, final CacheRegionStatistics stats) {
+        final long lookups = stats.getHitCount() + stats.getMissCount();
+        final double hitRate = lookups == 0 ? 1.0 : (double) stats.getHitCount() / lookups;
+        return new CacheStatistics(cacheManager, name, size, stats.getHitCount(), stats.getMissCount(), hitRate, stats.getPutCount(),
+                0, 0, 0);
+    }
+}
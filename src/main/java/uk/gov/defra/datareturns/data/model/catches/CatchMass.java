@@ -32,7 +32,7 @@ public class CatchMass {
     /**
      * Conversion factor to convert between kg/oz
      */
-    private static final BigDecimal CONVERSION = new BigDecimal("0.028349523125");
+    public static final BigDecimal CONVERSION = new BigDecimal("0.028349523125");
 
     /**
      * The type of measurement provided by the end user
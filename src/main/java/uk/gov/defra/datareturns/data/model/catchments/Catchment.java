@@ -4,12 +4,15 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.Audited;
 import uk.gov.defra.datareturns.data.model.AbstractBaseEntity;
 import uk.gov.defra.datareturns.data.model.grilse.GrilseWeightGate;
 import uk.gov.defra.datareturns.data.model.regions.Region;
 import uk.gov.defra.datareturns.data.model.rivers.River;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -27,6 +30,8 @@ import java.util.List;
  * @author Sam Gardner-Dell
  */
 @Entity(name = "rcr_catchment")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Catchment.CACHE_REGION)
 @Audited
 @Getter
 @Setter
@@ -36,6 +41,11 @@ public class Catchment extends AbstractBaseEntity<Long> {
      */
     public static final String SEQUENCE = "rcr_catchment_id_seq";
 
+    /**
+     * Hibernate second-level cache region for this entity
+     */
+    public static final String CACHE_REGION = "rcr-catchment";
+
     /**
      * Primary key
      */
@@ -0,0 +1,40 @@
+package uk.gov.defra.datareturns.data.model.dynamics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * Usage statistics for the pool of connections to dynamics
+ */
+@Getter
+@AllArgsConstructor
+public class ConnectionPoolStatistics {
+    /**
+     * The maximum number of connections which may be held in the pool
+     */
+    private final int max;
+
+    /**
+     * The number of connections currently in use
+     */
+    private final int leased;
+
+    /**
+     * The number of requests waiting for a connection
+     */
+    private final int pending;
+
+    /**
+     * The number of idle connections available for reuse
+     */
+    private final int available;
+
+    /**
+     * @param stats the statistics reported by the connection pool
+     * @return the connection pool statistics
+     */
+    public static ConnectionPoolStatistics of(final PoolStats stats) {
+        return new ConnectionPoolStatistics(stats.getMax(), stats.getLeased(), stats.getPending(), stats.getAvailable());
+    }
+}
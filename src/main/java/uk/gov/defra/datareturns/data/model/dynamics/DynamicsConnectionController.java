@@ -0,0 +1,50 @@
+package uk.gov.defra.datareturns.data.model.dynamics;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.rest.webmvc.BasePathAwareController;
+import org.springframework.data.rest.webmvc.RepositoryLinksResource;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.ResourceProcessor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Controller to report the usage of the pool of connections to dynamics, making saturation of the pool visible
+ */
+@BasePathAwareController
+@ConditionalOnWebApplication
+@Slf4j
+@RequiredArgsConstructor
+@RequestMapping("/dynamics")
+public class DynamicsConnectionController implements ResourceProcessor<RepositoryLinksResource> {
+    /**
+     * the pool of connections to dynamics
+     */
+    private final PoolingHttpClientConnectionManager dynamicsConnectionManager;
+
+    /**
+     * Retrieve the current connection pool statistics
+     *
+     * @return a {@link ResponseEntity} containing the connection pool statistics
+     */
+    @GetMapping(value = "/connections", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("isGranted('USE_INTERNAL')")
+    public ResponseEntity<ConnectionPoolStatistics> getConnectionStatistics() {
+        return new ResponseEntity<>(ConnectionPoolStatistics.of(dynamicsConnectionManager.getTotalStats()), HttpStatus.OK);
+    }
+
+    @Override
+    public RepositoryLinksResource process(final RepositoryLinksResource resource) {
+        final String base = ServletUriComponentsBuilder.fromCurrentRequest().toUriString();
+        resource.add(new Link(base + "dynamics/connections", "dynamicsConnections"));
+        return resource;
+    }
+}
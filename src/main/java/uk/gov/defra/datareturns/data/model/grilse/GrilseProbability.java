@@ -39,12 +39,17 @@ public class GrilseProbability extends AbstractBaseEntity<Long> {
      */
     public static final String SEQUENCE = "rcr_grilse_probability_id_seq";
 
+    /**
+     * Number of identifiers allocated from the sequence at a time (must match the sequence increment)
+     */
+    public static final int SEQUENCE_ALLOCATION_SIZE = 50;
+
     /**
      * Primary key
      */
     @Id
     @Column(name = "id")
-    @SequenceGenerator(name = SEQUENCE, sequenceName = SEQUENCE, allocationSize = 1)
+    @SequenceGenerator(name = SEQUENCE, sequenceName = SEQUENCE, allocationSize = SEQUENCE_ALLOCATION_SIZE)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SEQUENCE)
     @Setter(AccessLevel.NONE)
     private Long id;
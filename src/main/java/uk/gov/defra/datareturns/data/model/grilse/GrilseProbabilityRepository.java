@@ -1,6 +1,7 @@
 package uk.gov.defra.datareturns.data.model.grilse;
 
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 import uk.gov.defra.datareturns.data.BaseRepository;
 
 import java.util.List;
@@ -14,4 +15,7 @@ import java.util.List;
 @RepositoryRestResource
 public interface GrilseProbabilityRepository extends BaseRepository<GrilseProbability, Long> {
     List<GrilseProbability> findBySeasonAndGate(short season, GrilseWeightGate gate);
+
+    @RestResource(exported = false)
+    boolean existsBySeasonAndGate(short season, GrilseWeightGate gate);
 }
@@ -4,10 +4,13 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.Audited;
 import uk.gov.defra.datareturns.data.model.AbstractBaseEntity;
 import uk.gov.defra.datareturns.data.model.catchments.Catchment;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -19,11 +22,14 @@ import javax.persistence.SequenceGenerator;
 import java.util.List;
 
 @Entity(name = "rcr_grilse_weight_gate")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = GrilseWeightGate.CACHE_REGION)
 @Audited
 @Getter
 @Setter
 public class GrilseWeightGate extends AbstractBaseEntity<Long> {
     public static final String SEQUENCE = "rcr_grilse_weight_gate_id_seq";
+    public static final String CACHE_REGION = "rcr-grilse-weight-gate";
 
     /**
      * Primary key
@@ -1,32 +1,42 @@
 package uk.gov.defra.datareturns.data.model.licences;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.rest.webmvc.BasePathAwareController;
 import org.springframework.data.rest.webmvc.RepositoryLinksResource;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.ResourceProcessor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import uk.gov.defra.datareturns.config.LicenceLookupConfiguration;
 import uk.gov.defra.datareturns.services.crm.CrmLookupService;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 /**
  * Controller to enable the lookup of licence information from the CRM
+ * <p>
+ * Lookups are processed asynchronously on a bounded executor so that slow CRM responses do not hold servlet container threads (and
+ * starve the rest of the API).
  *
  * @author Sam Gardner-Dell
  */
 @BasePathAwareController
 @ConditionalOnWebApplication
 @Slf4j
-@RequiredArgsConstructor
 @RequestMapping("/licence")
 public class LicenceController implements ResourceProcessor<RepositoryLinksResource> {
     /**
@@ -34,38 +44,47 @@ public class LicenceController implements ResourceProcessor<RepositoryLinksResou
      */
     private final CrmLookupService lookupService;
 
+    /**
+     * the licence lookup configuration
+     */
+    private final LicenceLookupConfiguration configuration;
+
+    /**
+     * the bounded executor used to make licence lookups
+     */
+    private final ThreadPoolTaskExecutor executor;
+
+    public LicenceController(final CrmLookupService lookupService,
+                             final LicenceLookupConfiguration configuration,
+                             @Qualifier(LicenceLookupConfiguration.LOOKUP_EXECUTOR) final ThreadPoolTaskExecutor executor) {
+        this.lookupService = lookupService;
+        this.configuration = configuration;
+        this.executor = executor;
+    }
+
     /**
      * Retrieve a licence and its associated contact based on the given licence and postcode
      *
      * @param licenceNumber the licence number used to retrieve licence information
      * @param verification  used to verify the licence number
-     * @return a {@link ResponseEntity} containing the target {@link Licence} or a 404 status if not found
+     * @return a {@link DeferredResult} completed with the target {@link Licence} or a 403 status if not found
      */
     @GetMapping(value = "/{licence}")
-    public ResponseEntity<Licence> getLicence(@PathVariable("licence") final String licenceNumber,
-                                              @RequestParam(value = "verification", required = false) final String verification) {
-        ResponseEntity<Licence> responseEntity = new ResponseEntity<>(HttpStatus.FORBIDDEN);
-        final Optional<Licence> licence = lookupService.getLicence(licenceNumber, verification);
-        if (licence.isPresent()) {
-            responseEntity = new ResponseEntity<>(licence.get(), HttpStatus.OK);
-        }
-        return responseEntity;
+    public DeferredResult<ResponseEntity<Licence>> getLicence(@PathVariable("licence") final String licenceNumber,
+                                                              @RequestParam(value = "verification", required = false)
+                                                              final String verification) {
+        return lookup(() -> lookupService.getLicence(licenceNumber, verification));
     }
 
     /**
      * Retrieve a licence and its associated contact based on the full licence number
      *
      * @param fullLicenceNumber the full licence number used to retrieve licence information (will only accept numbers, letters and dashes)
-     * @return a {@link ResponseEntity} containing the target {@link Licence} or a 404 status if not found
+     * @return a {@link DeferredResult} completed with the target {@link Licence} or a 403 status if not found
      */
     @GetMapping(value = "/full/{licence:^[A-Za-z0-9_-]*$}")
-    public ResponseEntity<Licence> getLicence(@PathVariable("licence") final String fullLicenceNumber) {
-        ResponseEntity<Licence> responseEntity = new ResponseEntity<>(HttpStatus.FORBIDDEN);
-        final Optional<Licence> licence = lookupService.getLicence(fullLicenceNumber);
-        if (licence.isPresent()) {
-            responseEntity = new ResponseEntity<>(licence.get(), HttpStatus.OK);
-        }
-        return responseEntity;
+    public DeferredResult<ResponseEntity<Licence>> getLicence(@PathVariable("licence") final String fullLicenceNumber) {
+        return lookup(() -> lookupService.getLicence(fullLicenceNumber));
     }
 
     @Override
@@ -74,4 +93,30 @@ public class LicenceController implements ResourceProcessor<RepositoryLinksResou
         resource.add(new Link(base + "licence/{licence}", "licences"));
         return resource;
     }
+
+    /**
+     * Make a licence lookup on the lookup executor, completing the returned {@link DeferredResult} once the lookup completes
+     *
+     * @param lookup the licence lookup to make
+     * @return the {@link DeferredResult} for the response
+     * @throws ResponseStatusException (503) if the lookup queue is full
+     */
+    private DeferredResult<ResponseEntity<Licence>> lookup(final Supplier<Optional<Licence>> lookup) {
+        final DeferredResult<ResponseEntity<Licence>> result = new DeferredResult<>(configuration.getTimeout().toMillis(),
+                new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE));
+        try {
+            CompletableFuture.supplyAsync(lookup, executor).whenComplete((licence, error) -> {
+                if (error != null) {
+                    result.setErrorResult(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                } else {
+                    result.setResult(licence.map(l -> new ResponseEntity<>(l, HttpStatus.OK))
+                            .orElseGet(() -> new ResponseEntity<>(HttpStatus.FORBIDDEN)));
+                }
+            });
+        } catch (final TaskRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many licence lookups in progress, please try again later");
+        }
+        return result;
+    }
 }
@@ -4,9 +4,12 @@ import com.univocity.parsers.annotations.Parsed;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.Audited;
 import uk.gov.defra.datareturns.data.model.AbstractRestrictedEntity;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
@@ -20,6 +23,8 @@ import javax.persistence.SequenceGenerator;
  * @author Sam Gardner-Dell
  */
 @Entity(name = "rcr_method")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Method.CACHE_REGION)
 @Audited
 @Getter
 @Setter
@@ -29,6 +34,11 @@ public class Method extends AbstractRestrictedEntity<Long> {
      */
     public static final String SEQUENCE = "rcr_method_id_seq";
 
+    /**
+     * Hibernate second-level cache region for this entity
+     */
+    public static final String CACHE_REGION = "rcr-method";
+
     /**
      * Primary key
      */
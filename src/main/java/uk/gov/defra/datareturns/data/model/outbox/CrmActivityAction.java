@@ -0,0 +1,15 @@
+package uk.gov.defra.datareturns.data.model.outbox;
+
+/**
+ * The CRM activity calls which may be queued in the {@link CrmActivityOutboxEntry outbox}
+ */
+public enum CrmActivityAction {
+    /**
+     * Create the activity for the contact and season (status started)
+     */
+    CREATE,
+    /**
+     * Update the activity for the contact and season (status submitted)
+     */
+    UPDATE
+}
@@ -0,0 +1,108 @@
+package uk.gov.defra.datareturns.data.model.outbox;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import uk.gov.defra.datareturns.data.model.AbstractBaseEntity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import java.time.Instant;
+
+/**
+ * A CRM activity call awaiting dispatch.
+ * <p>
+ * Entries are written in the same transaction as the submission change which requires them and removed once the call to the CRM has
+ * succeeded, so a change to a submission is never committed without the corresponding CRM call (nor vice versa).
+ */
+@Entity(name = "rcr_crm_activity_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+public class CrmActivityOutboxEntry extends AbstractBaseEntity<Long> {
+    /**
+     * Database sequence name for this entity
+     */
+    public static final String SEQUENCE = "rcr_crm_activity_outbox_id_seq";
+
+    /**
+     * Number of identifiers allocated from the sequence at a time (must match the sequence increment)
+     */
+    public static final int SEQUENCE_ALLOCATION_SIZE = 50;
+
+    /**
+     * Primary key
+     */
+    @Id
+    @Column(name = "id")
+    @SequenceGenerator(name = SEQUENCE, sequenceName = SEQUENCE, allocationSize = SEQUENCE_ALLOCATION_SIZE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SEQUENCE)
+    @Setter(AccessLevel.NONE)
+    private Long id;
+
+    /**
+     * The CRM contact identifier
+     */
+    @Column(nullable = false, updatable = false)
+    private String contactId;
+
+    /**
+     * The season (year) of the return
+     */
+    @Column(nullable = false, updatable = false)
+    private Short season;
+
+    /**
+     * The CRM activity call to be made
+     */
+    @Column(nullable = false, updatable = false)
+    @Enumerated(EnumType.STRING)
+    private CrmActivityAction action;
+
+    /**
+     * The number of failed attempts to make the call
+     */
+    @Column(nullable = false)
+    private int attempts;
+
+    /**
+     * The time at which the call may next be attempted
+     */
+    @Column(nullable = false)
+    private Instant nextAttempt;
+
+    /**
+     * The token of the dispatcher currently processing the entry (if any)
+     */
+    private String claim;
+
+    /**
+     * The error raised by the last failed attempt
+     */
+    @Column(length = 1000)
+    private String lastError;
+
+    /**
+     * Create a new outbox entry which is due for dispatch immediately
+     *
+     * @param contactId the CRM contact identifier
+     * @param season    the season (year) of the return
+     * @param action    the CRM activity call to be made
+     * @return the new outbox entry
+     */
+    public static CrmActivityOutboxEntry of(final String contactId, final Short season, final CrmActivityAction action) {
+        final CrmActivityOutboxEntry entry = new CrmActivityOutboxEntry();
+        entry.setContactId(contactId);
+        entry.setSeason(season);
+        entry.setAction(action);
+        entry.setNextAttempt(Instant.now());
+        return entry;
+    }
+}
@@ -0,0 +1,33 @@
+package uk.gov.defra.datareturns.data.model.outbox;
+
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import uk.gov.defra.datareturns.data.BaseRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for {@link CrmActivityOutboxEntry} entities (not exported)
+ */
+@RepositoryRestResource(exported = false)
+public interface CrmActivityOutboxRepository extends BaseRepository<CrmActivityOutboxEntry, Long>, CrmActivityOutboxRepositoryCustom {
+    /**
+     * @param claim the token identifying the claimant
+     * @return the entries held by the given claim, oldest first
+     */
+    List<CrmActivityOutboxEntry> findByClaimOrderById(String claim);
+
+    /**
+     * @param contactId the CRM contact identifier
+     * @param season    the season (year) of the return
+     * @return the entries awaiting dispatch for the given contact and season
+     */
+    List<CrmActivityOutboxEntry> findByContactIdAndSeason(String contactId, Short season);
+
+    /**
+     * @param action     the CRM activity call
+     * @param contactIds the CRM contact identifiers
+     * @return the entries awaiting dispatch of the given call for any of the given contacts (regardless of whether they are due or claimed)
+     */
+    List<CrmActivityOutboxEntry> findByActionAndContactIdIn(CrmActivityAction action, Collection<String> contactIds);
+}
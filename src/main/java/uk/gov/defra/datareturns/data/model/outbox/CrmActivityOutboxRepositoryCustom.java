@@ -0,0 +1,23 @@
+package uk.gov.defra.datareturns.data.model.outbox;
+
+import java.time.Instant;
+
+/**
+ * Custom operations for the {@link CrmActivityOutboxRepository}
+ */
+public interface CrmActivityOutboxRepositoryCustom {
+    /**
+     * Claim the oldest entries which are due for dispatch.
+     * <p>
+     * Claimed entries are leased to the caller by moving their next attempt to the end of the lease, so entries claimed by a dispatcher
+     * which fails to complete are released for another attempt once the lease expires.  The due condition is repeated on the outer update
+     * so that concurrent dispatchers (e.g. on other instances) cannot claim the same entries.
+     *
+     * @param claim the token identifying the claimant
+     * @param now   the current time
+     * @param lease the time at which the claim expires
+     * @param limit the maximum number of entries to claim
+     * @return the number of entries claimed
+     */
+    int claim(String claim, Instant now, Instant lease, int limit);
+}
@@ -0,0 +1,34 @@
+package uk.gov.defra.datareturns.data.model.outbox;
+
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Instant;
+
+/**
+ * Implementation of the {@link CrmActivityOutboxRepositoryCustom} operations
+ */
+public class CrmActivityOutboxRepositoryImpl implements CrmActivityOutboxRepositoryCustom {
+    private static final String CLAIM = "update rcr_crm_activity_outbox set claim = :claim, next_attempt = :lease"
+            + " where next_attempt <= :now and id in"
+            + " (select id from rcr_crm_activity_outbox where next_attempt <= :now order by id limit :limit)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int claim(final String claim, final Instant now, final Instant lease, final int limit) {
+        // Declare the table affected so that hibernate does not evict every second-level cache region (and cached query) on each poll
+        return entityManager.createNativeQuery(CLAIM)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(CrmActivityOutboxEntry.class)
+                .setParameter("claim", claim)
+                .setParameter("now", now)
+                .setParameter("lease", lease)
+                .setParameter("limit", limit)
+                .executeUpdate();
+    }
+}
@@ -4,10 +4,13 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.Audited;
 import uk.gov.defra.datareturns.data.model.AbstractBaseEntity;
 import uk.gov.defra.datareturns.data.model.catchments.Catchment;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -24,6 +27,8 @@ import java.util.List;
  * @author Sam Gardner-Dell
  */
 @Entity(name = "rcr_region")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Region.CACHE_REGION)
 @Audited
 @Getter
 @Setter
@@ -33,6 +38,11 @@ public class Region extends AbstractBaseEntity<Long> {
      */
     public static final String SEQUENCE = "rcr_region_id_seq";
 
+    /**
+     * Hibernate second-level cache region for this entity
+     */
+    public static final String CACHE_REGION = "rcr-region";
+
     /**
      * Primary key
      */
@@ -0,0 +1,145 @@
+package uk.gov.defra.datareturns.data.model.reporting.exports;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.rest.webmvc.BasePathAwareController;
+import org.springframework.data.rest.webmvc.RepositoryLinksResource;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.ResourceProcessor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.FeedType;
+import uk.gov.defra.datareturns.data.model.reporting.filters.SeasonFilter;
+import uk.gov.defra.datareturns.services.reporting.exports.ExportFormat;
+import uk.gov.defra.datareturns.services.reporting.exports.ExportJob;
+import uk.gov.defra.datareturns.services.reporting.exports.ExportJobService;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.UUID;
+
+/**
+ * Controller for asynchronous reporting exports.  Long running exports are submitted as jobs, polled for progress and then downloaded
+ * once complete.
+ */
+@BasePathAwareController
+@ConditionalOnWebApplication
+@Slf4j
+@RequiredArgsConstructor
+@RequestMapping("/reporting/exports")
+public class ExportController implements ResourceProcessor<RepositoryLinksResource> {
+    private final ExportJobService exportJobService;
+
+    /**
+     * Submit a new export job
+     *
+     * @param request the export request
+     * @return 202 Accepted with the job status, the Location header provides the job download URI
+     */
+    @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ExportJob> submit(@Valid @RequestBody final ExportRequest request) {
+        final FeedType feed = FeedType.fromPath(request.getFeed())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown reporting feed " + request.getFeed()));
+        final SeasonFilter season;
+        try {
+            season = new SeasonFilter(request.getSeason());
+        } catch (final UnsupportedOperationException | IllegalArgumentException e) {
+            // Thrown for unrecognised filters and for seasons which match the filter pattern but are out of range
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid season filter " + request.getSeason());
+        }
+        final ExportJob job = exportJobService.submit(feed, season, request.getFormat());
+        final URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(job.getId()).toUri();
+        return ResponseEntity.accepted().location(location).body(job);
+    }
+
+    /**
+     * Retrieve the status of an export job
+     *
+     * @param id the job id
+     * @return the job status
+     */
+    @GetMapping(value = "/{id}/status", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ExportJob> status(@PathVariable("id") final UUID id) {
+        return ResponseEntity.ok(getJob(id));
+    }
+
+    /**
+     * Download the result of an export job.  Until the job is complete the job status is returned instead (202 Accepted while the job is
+     * queued or running, 500 Internal Server Error if the job failed).
+     *
+     * @param id       the job id
+     * @param response the response to write the result to
+     * @return the job status if the job is not complete, otherwise null once the result has been written to the response
+     * @throws IOException if an IO error occurs writing the response
+     */
+    @GetMapping(value = "/{id}")
+    public ResponseEntity<ExportJob> download(@PathVariable("id") final UUID id, final HttpServletResponse response) throws IOException {
+        final ExportJob job = getJob(id);
+        switch (job.getState()) {
+            case COMPLETE:
+                response.setHeader(HttpHeaders.CONTENT_TYPE, job.getFormat().getContentType());
+                response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + job.getFilename() + "\"");
+                response.setContentLengthLong(Files.size(job.getFile()));
+                Files.copy(job.getFile(), response.getOutputStream());
+                response.flushBuffer();
+                return null;
+            case FAILED:
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).contentType(MediaType.APPLICATION_JSON).body(job);
+            default:
+                return ResponseEntity.accepted().contentType(MediaType.APPLICATION_JSON).body(job);
+        }
+    }
+
+    private ExportJob getJob(final UUID id) {
+        return exportJobService.getJob(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Export " + id + " not found or expired"));
+    }
+
+    @Override
+    public RepositoryLinksResource process(final RepositoryLinksResource resource) {
+        final String base = ServletUriComponentsBuilder.fromCurrentRequest().toUriString();
+        resource.add(new Link(base + "reporting/exports", "reportingExports"));
+        return resource;
+    }
+
+    /**
+     * Request body for a new export job
+     */
+    @Getter
+    @Setter
+    public static class ExportRequest {
+        /**
+         * The path segment of the feed to export (e.g. large-catches)
+         */
+        @NotNull
+        private String feed;
+
+        /**
+         * The season filter (e.g. 2010-2026)
+         */
+        @NotNull
+        private String season;
+
+        /**
+         * The export format
+         */
+        @NotNull
+        private ExportFormat format = ExportFormat.CSV;
+    }
+}
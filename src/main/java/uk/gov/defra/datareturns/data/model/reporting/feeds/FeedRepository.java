@@ -0,0 +1,40 @@
+package uk.gov.defra.datareturns.data.model.reporting.feeds;
+
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.NoRepositoryBean;
+import uk.gov.defra.datareturns.data.ReadOnlyRepository;
+
+import javax.persistence.QueryHint;
+import java.io.Serializable;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+
+/**
+ * Reporting feed repository
+ * Provides cursor-backed streaming access to the reporting views so that feeds can be exported without loading the entire result set
+ *
+ * @param <E> the feed entity this repository will serve
+ * @param <I> the generic type of the entity identifier
+ */
+@NoRepositoryBean
+public interface FeedRepository<E, I extends Serializable> extends ReadOnlyRepository<E, I> {
+    /**
+     * The number of rows fetched from the database cursor on each round trip
+     */
+    String FETCH_SIZE = "1000";
+
+    /**
+     * Stream the feed entries for the given (inclusive) season range.
+     * <p>
+     * Must be called within a transaction and the returned {@link Stream} must be closed once consumed.
+     *
+     * @param minSeason the first season to include
+     * @param maxSeason the last season to include
+     * @return a {@link Stream} of feed entries backed by a database cursor
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = FETCH_SIZE), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<E> streamBySeasonBetween(Short minSeason, Short maxSeason);
+}
@@ -0,0 +1,284 @@
+package uk.gov.defra.datareturns.data.model.reporting.feeds;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.activities.ActivityFeed;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.aggregates.ActivitySummaryFeed;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.aggregates.LargeCatchSummaryFeed;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.aggregates.SmallCatchCountSummaryFeed;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.aggregates.SmallCatchSummaryFeed;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.catches.LargeCatchFeed;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.catches.SmallCatchCountFeed;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.catches.SmallCatchFeed;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.grilse.GrilseEstimateEntry;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.submissions.SubmissionFeed;
+import uk.gov.defra.datareturns.data.model.reporting.filters.SeasonFilter;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The reporting feeds available from the {@link ReportingController}
+ */
+@Getter
+@RequiredArgsConstructor
+public enum FeedType {
+    /**
+     * Submissions feed
+     */
+    SUBMISSIONS("submissions", "SubmissionFeed", SubmissionFeed.class, "rcv_feed_submissions",
+            "id as \"ID\", contact_id as \"Contact ID\", season as \"Season\", status as \"Status\", source as \"Source\", "
+                    + Columns.timestamp("created", "Created") + ", " + Columns.timestamp("last_modified", "Last Modified"),
+            "rcr_submission sub",
+            "sub.id", "not sub.reporting_exclude", "sub.last_modified", "0", "rcr_submission_aud"),
+    /**
+     * Activities feed
+     */
+    ACTIVITIES("activities", "Activities", ActivityFeed.class, "rcv_feed_activities",
+            "id as \"ID\", submission_id as \"Submission ID\", river_id as \"River ID\", "
+                    + "days_fished_with_mandatory_release as \"Days Fished (Mandatory Release)\", days_fished_other as \"Days Fished (Other)\"",
+            "rcr_activity act inner join rcr_submission sub on (act.submission_id = sub.id)",
+            "act.id", "not sub.reporting_exclude", "greatest(act.last_modified, sub.last_modified)", "0", "rcr_activity_aud"),
+    /**
+     * Large catches feed
+     */
+    LARGE_CATCHES("large-catches", "LargeCatchFeed", LargeCatchFeed.class, "rcv_feed_large_catches",
+            "id as \"ID\", activity_id as \"Activity ID\", date_caught as \"Date\", species_id as \"Species ID\", method_id as \"Method ID\", "
+                    + "mass_kg as \"Mass (kg)\", released::text as \"Released\", only_month_recorded::text as \"Only Month Recorded\", "
+                    + "no_date_recorded::text as \"No Date Recorded\"",
+            "rcr_catch cat inner join rcr_activity act on (cat.activity_id = act.id) "
+                    + "inner join rcr_submission sub on (act.submission_id = sub.id)",
+            "cat.id", "not (cat.reporting_exclude or sub.reporting_exclude)", "greatest(cat.last_modified, sub.last_modified)", "0",
+            "rcr_catch_aud"),
+    /**
+     * Small catches feed
+     */
+    SMALL_CATCHES("small-catches", "SmallCatchFeed", SmallCatchFeed.class, "rcv_feed_small_catches",
+            "id as \"ID\", activity_id as \"Activity ID\", month as \"Month\", species_id as \"Species ID\", released as \"Released\", "
+                    + "no_month_recorded::text as \"No Month Recorded\"",
+            "rcr_small_catch sc inner join rcr_activity act on (sc.activity_id = act.id) "
+                    + "inner join rcr_submission sub on (act.submission_id = sub.id)",
+            "sc.id", "not (sc.reporting_exclude or sub.reporting_exclude)", "greatest(sc.last_modified, sub.last_modified)", "0",
+            "rcr_small_catch_aud"),
+    /**
+     * Small catch counts feed (counts are not audited so no delta feed is available)
+     */
+    SMALL_CATCH_COUNTS("small-catch-counts", "SmallCatchCountFeed", SmallCatchCountFeed.class, "rcv_feed_small_catch_counts",
+            "small_catch_id as \"Small Catch ID\", method_id as \"Method ID\", count as \"Caught\"",
+            "rcr_small_catch_counts counts inner join rcr_small_catch sc on (counts.small_catch_id = sc.id) "
+                    + "inner join rcr_activity act on (sc.activity_id = act.id) "
+                    + "inner join rcr_submission sub on (act.submission_id = sub.id)",
+            "concat(sc.id, '_', counts.method_id)", "not (sc.reporting_exclude or sub.reporting_exclude)",
+            "greatest(sc.last_modified, sub.last_modified)",
+            "coalesce(sum(case when not (sc.reporting_exclude or sub.reporting_exclude) then counts.count end), 0)", null),
+    /**
+     * Activities aggregated by season and river
+     */
+    ACTIVITY_SUMMARY("activity-summary", "ActivitySummary", ActivitySummaryFeed.class, "rcv_agg_activities",
+            Columns.LOCATION + "anglers as \"Anglers\", days_fished_with_mandatory_release as \"Days Fished (Mandatory Release)\", "
+                    + "days_fished_other as \"Days Fished (Other)\"",
+            "rcr_activity act inner join rcr_submission sub on (act.submission_id = sub.id)",
+            "act.id", "not sub.reporting_exclude", "greatest(act.last_modified, sub.last_modified)", "0", null),
+    /**
+     * Large catches aggregated by season, river, month, species and method
+     */
+    LARGE_CATCH_SUMMARY("large-catch-summary", "LargeCatchSummary", LargeCatchSummaryFeed.class, "rcv_agg_large_catches",
+            Columns.LOCATION + "month as \"Month\", species_id as \"Species ID\", method_id as \"Method ID\", caught as \"Caught\", "
+                    + "released as \"Released\", mass_kg as \"Mass (kg)\"",
+            "rcr_catch cat inner join rcr_activity act on (cat.activity_id = act.id) "
+                    + "inner join rcr_submission sub on (act.submission_id = sub.id)",
+            "cat.id", "not (cat.reporting_exclude or sub.reporting_exclude)",
+            "greatest(cat.last_modified, act.last_modified, sub.last_modified)", "0", null),
+    /**
+     * Small catches aggregated by season, river and month
+     */
+    SMALL_CATCH_SUMMARY("small-catch-summary", "SmallCatchSummary", SmallCatchSummaryFeed.class, "rcv_agg_small_catches",
+            Columns.LOCATION + "month as \"Month\", caught as \"Caught\", released as \"Released\"",
+            "rcr_small_catch sc left join rcr_small_catch_counts counts on (counts.small_catch_id = sc.id) "
+                    + "inner join rcr_activity act on (sc.activity_id = act.id) "
+                    + "inner join rcr_submission sub on (act.submission_id = sub.id)",
+            "sc.id", "not (sc.reporting_exclude or sub.reporting_exclude)",
+            "greatest(sc.last_modified, act.last_modified, sub.last_modified)",
+            "coalesce(sum(case when not (sc.reporting_exclude or sub.reporting_exclude) then counts.count end), 0)", null),
+    /**
+     * Small catch counts aggregated by season, river, month and method
+     */
+    SMALL_CATCH_COUNT_SUMMARY("small-catch-count-summary", "SmallCatchCountSummary", SmallCatchCountSummaryFeed.class,
+            "rcv_agg_small_catch_counts",
+            Columns.LOCATION + "month as \"Month\", method_id as \"Method ID\", caught as \"Caught\"",
+            "rcr_small_catch_counts counts inner join rcr_small_catch sc on (counts.small_catch_id = sc.id) "
+                    + "inner join rcr_activity act on (sc.activity_id = act.id) "
+                    + "inner join rcr_submission sub on (act.submission_id = sub.id)",
+            "sc.id", "not (sc.reporting_exclude or sub.reporting_exclude)",
+            "greatest(sc.last_modified, act.last_modified, sub.last_modified)",
+            "coalesce(sum(case when not (sc.reporting_exclude or sub.reporting_exclude) then counts.count end), 0)", null),
+    /**
+     * Estimated grilse and multi-sea-winter salmon caught by season, river and month.  The estimates are computed from the catches and
+     * grilse probabilities rather than read from a view (see {@link #isComputed()}), the checksum detects replaced probability data.
+     */
+    GRILSE_ESTIMATES("grilse-estimates", "GrilseEstimates", GrilseEstimateEntry.class, null, null,
+            "rcr_catch cat inner join rcr_activity act on (cat.activity_id = act.id) "
+                    + "inner join rcr_submission sub on (act.submission_id = sub.id) "
+                    + "inner join rcr_river riv on (act.river_id = riv.id) "
+                    + "inner join rcr_catchment ctm on (riv.catchment_id = ctm.id) "
+                    + "inner join rcr_region reg on (ctm.region_id = reg.id)",
+            "cat.id", "not (cat.reporting_exclude or sub.reporting_exclude)",
+            "greatest(cat.last_modified, act.last_modified, sub.last_modified, riv.last_modified, ctm.last_modified, reg.last_modified)",
+            "(select coalesce(sum(gp.id), 0) from rcr_grilse_probability gp where gp.season between :minSeason and :maxSeason)", null);
+
+    /**
+     * Common select lists used by the feed definitions (held separately as enum constants cannot reference the enum's own static fields)
+     */
+    private static final class Columns {
+        private static final String LOCATION = "season as \"Season\", region_name as \"Region\", catchment_name as \"Catchment\", "
+                + "river_id as \"River ID\", river_name as \"River\", ";
+
+        /**
+         * Select a timestamp column formatted as by {@link java.sql.Timestamp#toString()} (as written by the JPA engine), which always
+         * includes a fractional second (e.g. 2019-01-01 12:00:00.0) whereas PostgreSQL omits it for whole seconds.
+         */
+        private static String timestamp(final String column, final String header) {
+            return "regexp_replace(rtrim(to_char(" + column + ", 'YYYY-MM-DD HH24:MI:SS.US'), '0'), '\\.$', '.0') as \"" + header + "\"";
+        }
+    }
+
+    /**
+     * Restriction applied to the source tables to select the requested seasons
+     */
+    private static final String SEASON_RESTRICTION = " where sub.season between :minSeason and :maxSeason";
+
+    /**
+     * The path segment used to request the feed
+     */
+    private final String path;
+
+    /**
+     * The prefix used for the filename of the generated CSV file
+     */
+    private final String filePrefix;
+
+    /**
+     * The feed entity class
+     */
+    private final Class<?> feedClass;
+
+    /**
+     * The reporting view that the feed is read from, null if the feed is computed
+     */
+    private final String view;
+
+    /**
+     * The select list used to produce the feed columns directly from the view (aliased to the CSV headers of the feed entity), null if
+     * the feed is computed
+     */
+    private final String columns;
+
+    /**
+     * The underlying rcr_* tables the feed view is built from (as a from clause, the submission table is always aliased as sub)
+     */
+    private final String source;
+
+    /**
+     * Expression for the feed row id over the source tables
+     */
+    private final String idColumn;
+
+    /**
+     * Predicate over the source tables which is true for rows which are included in the feed (not excluded from reporting)
+     */
+    private final String included;
+
+    /**
+     * Expression for the latest modification timestamp of a row over the source tables
+     */
+    private final String modified;
+
+    /**
+     * Aggregate expression over the source tables used to detect changes to values which are not reflected in a modification timestamp
+     */
+    private final String checksum;
+
+    /**
+     * The Envers audit table for the feed rows, null if the rows are not audited
+     */
+    private final String auditTable;
+
+    /**
+     * Retrieve the filename to use for the feed when exported for the given season(s)
+     *
+     * @param season the season filter that was applied to the feed
+     * @return the filename for the exported feed
+     */
+    public String getFilename(final SeasonFilter season) {
+        return getFilePrefix() + "-" + season + ".csv";
+    }
+
+    /**
+     * Aggregate query over the underlying rcr_* tables used to compute a cheap validator for the feed.  Returns the number of reported
+     * rows, the latest modification timestamp of any row (including excluded rows, so that exclusion changes are detected) and the
+     * checksum.  The season range is bound to the :minSeason and :maxSeason parameters.
+     *
+     * @return the validator query
+     */
+    public String getValidatorQuery() {
+        return "select count(case when " + getIncluded() + " then 1 end), max(" + getModified() + "), " + getChecksum()
+                + " from " + getSource() + SEASON_RESTRICTION;
+    }
+
+    /**
+     * @return true if the feed is computed by the API rather than read from a reporting view
+     */
+    public boolean isComputed() {
+        return getView() == null;
+    }
+
+    /**
+     * @return true if the feed supports delta (changes since) requests
+     */
+    public boolean isDeltaSupported() {
+        return getAuditTable() != null;
+    }
+
+    /**
+     * Query for the feed rows which have been created or modified since the :since parameter and are included in the feed.  The season
+     * range is bound to the :minSeason and :maxSeason parameters.
+     *
+     * @return the modified rows query, the results map to the feed entity class
+     */
+    public String getModifiedRowsQuery() {
+        return "select v.* from " + getView() + " v where v.id in (select " + getIdColumn() + " from " + getSource() + SEASON_RESTRICTION
+                + " and " + getModified() + " > :since)";
+    }
+
+    /**
+     * Query for the ids of rows which have been excluded from the feed since the :since parameter.  The season range is bound to the
+     * :minSeason and :maxSeason parameters.
+     *
+     * @return the excluded rows query
+     */
+    public String getExcludedRowsQuery() {
+        return "select " + getIdColumn() + " from " + getSource() + SEASON_RESTRICTION + " and " + getModified() + " > :since and not "
+                + getIncluded();
+    }
+
+    /**
+     * Query for the ids of rows which have been deleted since the :sinceRevision parameter (epoch millis).  Deleted rows no longer
+     * reference their submission, so this query is not restricted by season.
+     *
+     * @return the deleted rows query
+     */
+    public String getDeletedRowsQuery() {
+        return "select distinct aud.id from " + getAuditTable() + " aud inner join revinfo rev on (aud.rev = rev.rev) "
+                + "where aud.revtype = 2 and rev.revtstmp > :sinceRevision";
+    }
+
+    /**
+     * Lookup a feed by the path segment used to request it
+     *
+     * @param path the path segment
+     * @return an {@link Optional} containing the matching {@link FeedType}, or empty if no feed matches
+     */
+    public static Optional<FeedType> fromPath(final String path) {
+        return Arrays.stream(values()).filter(f -> f.getPath().equals(path)).findFirst();
+    }
+}
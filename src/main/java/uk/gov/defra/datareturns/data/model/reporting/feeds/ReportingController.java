@@ -2,38 +2,47 @@ package uk.gov.defra.datareturns.data.model.reporting.feeds;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.rest.webmvc.BasePathAwareController;
 import org.springframework.data.rest.webmvc.RepositoryLinksResource;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.ResourceProcessor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
-import uk.gov.defra.datareturns.data.model.reporting.feeds.activities.ActivityFeed;
-import uk.gov.defra.datareturns.data.model.reporting.feeds.activities.ActivityFeedRepository;
-import uk.gov.defra.datareturns.data.model.reporting.feeds.activities.ActivityFeed_;
-import uk.gov.defra.datareturns.data.model.reporting.feeds.catches.LargeCatchFeed;
-import uk.gov.defra.datareturns.data.model.reporting.feeds.catches.LargeCatchFeedRepository;
-import uk.gov.defra.datareturns.data.model.reporting.feeds.catches.LargeCatchFeed_;
-import uk.gov.defra.datareturns.data.model.reporting.feeds.catches.SmallCatchCountFeed;
-import uk.gov.defra.datareturns.data.model.reporting.feeds.catches.SmallCatchCountFeedRepository;
-import uk.gov.defra.datareturns.data.model.reporting.feeds.catches.SmallCatchCountFeed_;
-import uk.gov.defra.datareturns.data.model.reporting.feeds.catches.SmallCatchFeed;
-import uk.gov.defra.datareturns.data.model.reporting.feeds.catches.SmallCatchFeedRepository;
-import uk.gov.defra.datareturns.data.model.reporting.feeds.catches.SmallCatchFeed_;
-import uk.gov.defra.datareturns.data.model.reporting.feeds.submissions.SubmissionFeed;
-import uk.gov.defra.datareturns.data.model.reporting.feeds.submissions.SubmissionFeedRepository;
-import uk.gov.defra.datareturns.data.model.reporting.feeds.submissions.SubmissionFeed_;
 import uk.gov.defra.datareturns.data.model.reporting.filters.SeasonFilter;
+import uk.gov.defra.datareturns.services.reporting.FeedBundleService;
+import uk.gov.defra.datareturns.services.reporting.FeedChanges;
+import uk.gov.defra.datareturns.services.reporting.FeedExportService;
+import uk.gov.defra.datareturns.services.reporting.FeedSnapshotService;
+import uk.gov.defra.datareturns.services.reporting.FeedValidator;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.List;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.Optional;
 
-import static uk.gov.defra.datareturns.util.CsvUtil.writeCsv;
+import static uk.gov.defra.datareturns.util.CsvUtil.setCsvResponseHeaders;
 
 /**
  * Controller to enable reporting functionality
@@ -46,48 +55,206 @@ import static uk.gov.defra.datareturns.util.CsvUtil.writeCsv;
 @RequiredArgsConstructor
 @RequestMapping("/reporting/feeds")
 public class ReportingController implements ResourceProcessor<RepositoryLinksResource> {
-    private final SubmissionFeedRepository submissionFeedRepository;
-    private final ActivityFeedRepository activityFeedRepository;
-    private final LargeCatchFeedRepository largeCatchFeedRepository;
-    private final SmallCatchFeedRepository smallCatchFeedRepository;
-    private final SmallCatchCountFeedRepository smallCatchCountFeedRepository;
+    /**
+     * Request attribute set by the servlet container (Tomcat) when it is able to send a file on the application's behalf
+     */
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Suffix added to the entity tag of gzip encoded responses, as a strong validator must differ for each content-coding
+     */
+    private static final String GZIP_ETAG_SUFFIX = "-gzip";
+
+    private final FeedExportService feedExportService;
+    private final FeedSnapshotService snapshotService;
+    private final FeedBundleService feedBundleService;
 
     @GetMapping(value = "/submissions/{season}")
-    public void submissions(@PathVariable("season") final SeasonFilter season, final HttpServletResponse response) throws IOException {
-        final Specification<SubmissionFeed> seasonSpec = (root, query, cb) -> season.predicate(cb, root.get(SubmissionFeed_.season));
-        final Iterable<SubmissionFeed> submissions = submissionFeedRepository.findAll(seasonSpec);
-        writeCsv(SubmissionFeed.class, submissions, response, "SubmissionFeed-" + season + ".csv");
+    public void submissions(@PathVariable("season") final SeasonFilter season, final ServletWebRequest request) throws IOException {
+        export(FeedType.SUBMISSIONS, season, request);
     }
 
     @GetMapping(value = "/activities/{season}")
-    public void activities(@PathVariable("season") final SeasonFilter season, final HttpServletResponse response) throws IOException {
-        final Specification<ActivityFeed> seasonSpec = (root, query, cb) -> season.predicate(cb, root.get(ActivityFeed_.season));
-        final List<ActivityFeed> entries = activityFeedRepository.findAll(seasonSpec);
-        writeCsv(ActivityFeed.class, entries, response, "Activities-" + season + ".csv");
+    public void activities(@PathVariable("season") final SeasonFilter season, final ServletWebRequest request) throws IOException {
+        export(FeedType.ACTIVITIES, season, request);
     }
 
     @GetMapping(value = "/large-catches/{season}")
-    public void largeCatches(@PathVariable("season") final SeasonFilter season,
-                             final HttpServletResponse response) throws IOException {
-        final Specification<LargeCatchFeed> seasonSpec = (root, query, cb) -> season.predicate(cb, root.get(LargeCatchFeed_.season));
-        final List<LargeCatchFeed> entries = largeCatchFeedRepository.findAll(seasonSpec);
-        writeCsv(LargeCatchFeed.class, entries, response, "LargeCatchFeed-" + season + ".csv");
+    public void largeCatches(@PathVariable("season") final SeasonFilter season, final ServletWebRequest request) throws IOException {
+        export(FeedType.LARGE_CATCHES, season, request);
     }
 
     @GetMapping(value = "/small-catches/{season}")
-    public void smallCatches(@PathVariable("season") final SeasonFilter season,
-                             final HttpServletResponse response) throws IOException {
-        final Specification<SmallCatchFeed> seasonSpec = (root, query, cb) -> season.predicate(cb, root.get(SmallCatchFeed_.season));
-        final List<SmallCatchFeed> entries = smallCatchFeedRepository.findAll(seasonSpec);
-        writeCsv(SmallCatchFeed.class, entries, response, "SmallCatchFeed-" + season + ".csv");
+    public void smallCatches(@PathVariable("season") final SeasonFilter season, final ServletWebRequest request) throws IOException {
+        export(FeedType.SMALL_CATCHES, season, request);
     }
 
     @GetMapping(value = "/small-catch-counts/{season}")
-    public void smallCatchCounts(@PathVariable("season") final SeasonFilter season,
-                                 final HttpServletResponse response) throws IOException {
-        final Specification<SmallCatchCountFeed> seasonSpec = (root, query, cb) -> season.predicate(cb, root.get(SmallCatchCountFeed_.season));
-        final List<SmallCatchCountFeed> entries = smallCatchCountFeedRepository.findAll(seasonSpec);
-        writeCsv(SmallCatchCountFeed.class, entries, response, "SmallCatchCountFeed-" + season + ".csv");
+    public void smallCatchCounts(@PathVariable("season") final SeasonFilter season, final ServletWebRequest request) throws IOException {
+        export(FeedType.SMALL_CATCH_COUNTS, season, request);
+    }
+
+    @GetMapping(value = "/activity-summary/{season}")
+    public void activitySummary(@PathVariable("season") final SeasonFilter season, final ServletWebRequest request) throws IOException {
+        export(FeedType.ACTIVITY_SUMMARY, season, request);
+    }
+
+    @GetMapping(value = "/large-catch-summary/{season}")
+    public void largeCatchSummary(@PathVariable("season") final SeasonFilter season, final ServletWebRequest request) throws IOException {
+        export(FeedType.LARGE_CATCH_SUMMARY, season, request);
+    }
+
+    @GetMapping(value = "/small-catch-summary/{season}")
+    public void smallCatchSummary(@PathVariable("season") final SeasonFilter season, final ServletWebRequest request) throws IOException {
+        export(FeedType.SMALL_CATCH_SUMMARY, season, request);
+    }
+
+    @GetMapping(value = "/small-catch-count-summary/{season}")
+    public void smallCatchCountSummary(@PathVariable("season") final SeasonFilter season, final ServletWebRequest request)
+            throws IOException {
+        export(FeedType.SMALL_CATCH_COUNT_SUMMARY, season, request);
+    }
+
+    /**
+     * Estimated numbers of grilse and multi-sea-winter salmon caught per river and month, derived from the large salmon catches and the
+     * grilse probability data for the gate associated with each river's catchment
+     *
+     * @param season  the season(s) to estimate
+     * @param request the request being served
+     * @throws IOException if an IO error occurs writing the response
+     */
+    @GetMapping(value = "/grilse-estimates/{season}")
+    public void grilseEstimates(@PathVariable("season") final SeasonFilter season, final ServletWebRequest request) throws IOException {
+        export(FeedType.GRILSE_ESTIMATES, season, request);
+    }
+
+    /**
+     * Download a ZIP bundle containing every feed for the given season(s) along with the reference data used to interpret them
+     *
+     * @param season   the season(s) to bundle
+     * @param response the response to write the bundle to
+     * @throws IOException if an IO error occurs writing the response
+     */
+    @GetMapping(value = "/bundle/{season}")
+    public void bundle(@PathVariable("season") final SeasonFilter season, final HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.CONTENT_TYPE, "application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"rcr-reporting-" + season + ".zip\"");
+        feedBundleService.writeBundle(season, response.getOutputStream());
+    }
+
+    /**
+     * Retrieve the rows of a feed which have changed since the given watermark
+     *
+     * @param feedPath the path segment of the feed (e.g. large-catches)
+     * @param season   the season(s) to retrieve changes for
+     * @param since    the watermark, either a token (epoch millis) returned by a previous request or an ISO-8601 instant
+     * @return the {@link FeedChanges} since the watermark
+     */
+    @GetMapping(value = "/{feed}/{season}/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<FeedChanges<?>> changes(@PathVariable("feed") final String feedPath,
+                                                  @PathVariable("season") final SeasonFilter season,
+                                                  @RequestParam("since") final String since) {
+        final FeedType feed = FeedType.fromPath(feedPath)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown reporting feed " + feedPath));
+        if (!feed.isDeltaSupported()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Changes are not available for the " + feedPath + " feed");
+        }
+        return ResponseEntity.ok(feedExportService.getChanges(feed, season, parseWatermark(since)));
+    }
+
+    private static long parseWatermark(final String since) {
+        try {
+            return since.chars().allMatch(Character::isDigit) ? Long.parseLong(since) : Instant.parse(since).toEpochMilli();
+        } catch (final NumberFormatException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid watermark " + since);
+        }
+    }
+
+    /**
+     * Export the given feed to the response, unless the client already holds the current content (in which case a 304 Not Modified
+     * response is sent based on the If-None-Match request header).  No Last-Modified header is sent: the latest modification time of the
+     * feed rows does not advance when rows are deleted, so If-Modified-Since cannot be answered reliably.  A gzip encoded snapshot is sent
+     * with its own entity tag, as the strong validator of the encoded content differs from that of the plain CSV.
+     *
+     * @param feed    the feed to export
+     * @param season  the season(s) to export
+     * @param request the request being served
+     * @throws IOException if an IO error occurs writing the response
+     */
+    private void export(final FeedType feed, final SeasonFilter season, final ServletWebRequest request) throws IOException {
+        final FeedValidator validator = feedExportService.getValidator(feed, season);
+        final HttpServletResponse response = Objects.requireNonNull(request.getResponse());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        final boolean acceptsGzip = StringUtils.containsIgnoreCase(request.getHeader(HttpHeaders.ACCEPT_ENCODING), "gzip");
+        final Optional<Path> gzipSnapshot = acceptsGzip ? snapshotService.getSnapshot(feed, season, validator, true) : Optional.empty();
+        final String etag = gzipSnapshot.isPresent()
+                ? StringUtils.removeEnd(validator.getEtag(), "\"") + GZIP_ETAG_SUFFIX + "\""
+                : validator.getEtag();
+        if (request.checkNotModified(etag)) {
+            return;
+        }
+        setCsvResponseHeaders(response, feed.getFilename(season));
+
+        final Optional<Path> snapshot;
+        if (gzipSnapshot.isPresent()) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            snapshot = gzipSnapshot;
+        } else {
+            snapshot = snapshotService.getSnapshot(feed, season, validator, false);
+        }
+        if (snapshot.isPresent()) {
+            sendFile(snapshot.get(), request.getRequest(), response);
+        } else {
+            feedExportService.export(feed, season, response.getOutputStream());
+        }
+    }
+
+    /**
+     * Render snapshots of all feeds for the given season
+     *
+     * @param season the season to render
+     * @return 204 No Content once the snapshots have been rendered
+     * @throws IOException if the snapshots could not be written
+     */
+    @PostMapping(value = "/snapshots/{season}")
+    @PreAuthorize("isGranted('REFERENCE_DATA_WRITE')")
+    public ResponseEntity<Object> renderSnapshots(@PathVariable("season") final Short season) throws IOException {
+        snapshotService.render(season);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Send the given file to the client.
+     * <p>
+     * Where the container supports it, the file is handed to the container to be sent directly from the file system (sendfile) without
+     * being copied through the application.  Otherwise it is copied to the response using
+     * {@link FileChannel#transferTo(long, long, WritableByteChannel)}, the file being opened before its size is read so that a snapshot
+     * replaced by a concurrent render is still sent consistently.
+     */
+    private static void sendFile(final Path file, final HttpServletRequest request, final HttpServletResponse response)
+            throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+            final long size = Files.size(file);
+            response.setContentLengthLong(size);
+            request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTRIBUTE, 0L);
+            request.setAttribute(SENDFILE_END_ATTRIBUTE, size);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            response.setContentLengthLong(size);
+            final WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        }
+        response.flushBuffer();
     }
 
     @Override
@@ -98,6 +265,13 @@ public class ReportingController implements ResourceProcessor<RepositoryLinksRes
         resource.add(new Link(base + "reporting/feeds/large-catches/{season}", "largeCatchesReporting"));
         resource.add(new Link(base + "reporting/feeds/small-catches/{season}", "smallCatchesReportingFeed"));
         resource.add(new Link(base + "reporting/feeds/small-catch-counts/{season}", "smallCatchCountsReportingFeed"));
+        resource.add(new Link(base + "reporting/feeds/activity-summary/{season}", "activitySummaryReportingFeed"));
+        resource.add(new Link(base + "reporting/feeds/large-catch-summary/{season}", "largeCatchSummaryReportingFeed"));
+        resource.add(new Link(base + "reporting/feeds/small-catch-summary/{season}", "smallCatchSummaryReportingFeed"));
+        resource.add(new Link(base + "reporting/feeds/small-catch-count-summary/{season}", "smallCatchCountSummaryReportingFeed"));
+        resource.add(new Link(base + "reporting/feeds/grilse-estimates/{season}", "grilseEstimatesReportingFeed"));
+        resource.add(new Link(base + "reporting/feeds/{feed}/{season}/changes{?since}", "reportingFeedChanges"));
+        resource.add(new Link(base + "reporting/feeds/bundle/{season}", "reportingFeedBundle"));
         return resource;
     }
 }
@@ -0,0 +1,44 @@
+package uk.gov.defra.datareturns.data.model.reporting.feeds.aggregates;
+
+import com.univocity.parsers.annotations.Headers;
+import com.univocity.parsers.annotations.Parsed;
+import lombok.Getter;
+
+import javax.persistence.Basic;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Aggregate reporting view of activities by season and river
+ */
+@Entity(name = "rcv_agg_activities")
+@Getter
+@Headers
+public class ActivitySummaryFeed {
+    @Id
+    private String id;
+    @Basic
+    @Parsed(field = "Season")
+    private Short season;
+    @Basic
+    @Parsed(field = "Region")
+    private String regionName;
+    @Basic
+    @Parsed(field = "Catchment")
+    private String catchmentName;
+    @Basic
+    @Parsed(field = "River ID")
+    private Long riverId;
+    @Basic
+    @Parsed(field = "River")
+    private String riverName;
+    @Basic
+    @Parsed(field = "Anglers")
+    private Long anglers;
+    @Basic
+    @Parsed(field = "Days Fished (Mandatory Release)")
+    private Long daysFishedWithMandatoryRelease;
+    @Basic
+    @Parsed(field = "Days Fished (Other)")
+    private Long daysFishedOther;
+}
@@ -0,0 +1,12 @@
+package uk.gov.defra.datareturns.data.model.reporting.feeds.aggregates;
+
+import org.springframework.stereotype.Repository;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.FeedRepository;
+
+
+/**
+ * Spring repository for {@link ActivitySummaryFeed} entities
+ */
+@Repository
+public interface ActivitySummaryFeedRepository extends FeedRepository<ActivitySummaryFeed, String> {
+}
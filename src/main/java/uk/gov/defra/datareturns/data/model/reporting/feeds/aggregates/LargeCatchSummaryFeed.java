@@ -0,0 +1,54 @@
+package uk.gov.defra.datareturns.data.model.reporting.feeds.aggregates;
+
+import com.univocity.parsers.annotations.Headers;
+import com.univocity.parsers.annotations.Parsed;
+import lombok.Getter;
+
+import javax.persistence.Basic;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.math.BigDecimal;
+
+/**
+ * Aggregate reporting view of large catches by season, river, month, species and method
+ */
+@Entity(name = "rcv_agg_large_catches")
+@Getter
+@Headers
+public class LargeCatchSummaryFeed {
+    @Id
+    private String id;
+    @Basic
+    @Parsed(field = "Season")
+    private Short season;
+    @Basic
+    @Parsed(field = "Region")
+    private String regionName;
+    @Basic
+    @Parsed(field = "Catchment")
+    private String catchmentName;
+    @Basic
+    @Parsed(field = "River ID")
+    private Long riverId;
+    @Basic
+    @Parsed(field = "River")
+    private String riverName;
+    @Basic
+    @Parsed(field = "Month")
+    private Short month;
+    @Basic
+    @Parsed(field = "Species ID")
+    private Long speciesId;
+    @Basic
+    @Parsed(field = "Method ID")
+    private Long methodId;
+    @Basic
+    @Parsed(field = "Caught")
+    private Long caught;
+    @Basic
+    @Parsed(field = "Released")
+    private Long released;
+    @Basic
+    @Parsed(field = "Mass (kg)")
+    private BigDecimal massKg;
+}
@@ -0,0 +1,44 @@
+package uk.gov.defra.datareturns.data.model.reporting.feeds.aggregates;
+
+import com.univocity.parsers.annotations.Headers;
+import com.univocity.parsers.annotations.Parsed;
+import lombok.Getter;
+
+import javax.persistence.Basic;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Aggregate reporting view of small catch counts by season, river, month and method
+ */
+@Entity(name = "rcv_agg_small_catch_counts")
+@Getter
+@Headers
+public class SmallCatchCountSummaryFeed {
+    @Id
+    private String id;
+    @Basic
+    @Parsed(field = "Season")
+    private Short season;
+    @Basic
+    @Parsed(field = "Region")
+    private String regionName;
+    @Basic
+    @Parsed(field = "Catchment")
+    private String catchmentName;
+    @Basic
+    @Parsed(field = "River ID")
+    private Long riverId;
+    @Basic
+    @Parsed(field = "River")
+    private String riverName;
+    @Basic
+    @Parsed(field = "Month")
+    private Short month;
+    @Basic
+    @Parsed(field = "Method ID")
+    private Long methodId;
+    @Basic
+    @Parsed(field = "Caught")
+    private Long caught;
+}
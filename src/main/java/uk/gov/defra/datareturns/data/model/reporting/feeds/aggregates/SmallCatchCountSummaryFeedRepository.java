@@ -0,0 +1,12 @@
+package uk.gov.defra.datareturns.data.model.reporting.feeds.aggregates;
+
+import org.springframework.stereotype.Repository;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.FeedRepository;
+
+
+/**
+ * Spring repository for {@link SmallCatchCountSummaryFeed} entities
+ */
+@Repository
+public interface SmallCatchCountSummaryFeedRepository extends FeedRepository<SmallCatchCountSummaryFeed, String> {
+}
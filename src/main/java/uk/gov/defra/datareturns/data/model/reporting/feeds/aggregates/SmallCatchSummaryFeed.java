@@ -0,0 +1,44 @@
+package uk.gov.defra.datareturns.data.model.reporting.feeds.aggregates;
+
+import com.univocity.parsers.annotations.Headers;
+import com.univocity.parsers.annotations.Parsed;
+import lombok.Getter;
+
+import javax.persistence.Basic;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Aggregate reporting view of small catches by season, river and month
+ */
+@Entity(name = "rcv_agg_small_catches")
+@Getter
+@Headers
+public class SmallCatchSummaryFeed {
+    @Id
+    private String id;
+    @Basic
+    @Parsed(field = "Season")
+    private Short season;
+    @Basic
+    @Parsed(field = "Region")
+    private String regionName;
+    @Basic
+    @Parsed(field = "Catchment")
+    private String catchmentName;
+    @Basic
+    @Parsed(field = "River ID")
+    private Long riverId;
+    @Basic
+    @Parsed(field = "River")
+    private String riverName;
+    @Basic
+    @Parsed(field = "Month")
+    private Short month;
+    @Basic
+    @Parsed(field = "Caught")
+    private Long caught;
+    @Basic
+    @Parsed(field = "Released")
+    private Long released;
+}
@@ -1,7 +1,7 @@
 package uk.gov.defra.datareturns.data.model.reporting.feeds.catches;
 
 import org.springframework.stereotype.Repository;
-import uk.gov.defra.datareturns.data.ReadOnlyRepository;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.FeedRepository;
 
 
 /**
@@ -10,5 +10,5 @@ import uk.gov.defra.datareturns.data.ReadOnlyRepository;
  * @author Sam Gardner-Dell
  */
 @Repository
-public interface SmallCatchCountFeedRepository extends ReadOnlyRepository<SmallCatchCountFeed, String> {
+public interface SmallCatchCountFeedRepository extends FeedRepository<SmallCatchCountFeed, String> {
 }
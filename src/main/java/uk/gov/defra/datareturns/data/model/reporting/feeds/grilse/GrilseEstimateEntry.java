@@ -0,0 +1,70 @@
+package uk.gov.defra.datareturns.data.model.reporting.feeds.grilse;
+
+import com.univocity.parsers.annotations.Headers;
+import com.univocity.parsers.annotations.Parsed;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Estimated numbers of grilse and multi-sea-winter salmon caught on a river in a given month
+ */
+@Headers
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class GrilseEstimateEntry {
+    /**
+     * The season the estimate relates to
+     */
+    @Parsed(field = "Season")
+    private Short season;
+
+    /**
+     * The region name of the river
+     */
+    @Parsed(field = "Region")
+    private String regionName;
+
+    /**
+     * The catchment name of the river
+     */
+    @Parsed(field = "Catchment")
+    private String catchmentName;
+
+    /**
+     * The river id
+     */
+    @Parsed(field = "River ID")
+    private Long riverId;
+
+    /**
+     * The river name
+     */
+    @Parsed(field = "River")
+    private String riverName;
+
+    /**
+     * The month (1-based index) the estimate relates to
+     */
+    @Parsed(field = "Month")
+    private Short month;
+
+    /**
+     * The number of salmon caught
+     */
+    @Parsed(field = "Salmon")
+    private Long salmon;
+
+    /**
+     * The expected number of grilse (sum of the grilse probabilities of each salmon caught)
+     */
+    @Parsed(field = "Expected Grilse")
+    private BigDecimal expectedGrilse;
+
+    /**
+     * The expected number of multi-sea-winter salmon
+     */
+    @Parsed(field = "Expected Multi-Sea-Winter")
+    private BigDecimal expectedMultiSeaWinter;
+}
@@ -44,6 +44,20 @@ public class SeasonFilter extends AbstractPathVariableFilter<Short> {
         }
     }
 
+    /**
+     * @return the first season matched by this filter (unbounded if the filter is inactive)
+     */
+    public short getMinSeason() {
+        return isActive() ? (short) getStartYear() : Short.MIN_VALUE;
+    }
+
+    /**
+     * @return the last season matched by this filter (unbounded if the filter is inactive)
+     */
+    public short getMaxSeason() {
+        return isActive() ? (short) getEndYear() : Short.MAX_VALUE;
+    }
+
     @Override
     Predicate toPredicate(final CriteriaBuilder cb, final Path<Short> path) {
         return cb.between(path, (short) getStartYear(), (short) getEndYear());
@@ -19,6 +19,21 @@ public class GrilseControllerExceptionHandler extends ResponseEntityExceptionHan
                 ex.getStatus());
     }
 
+    @ExceptionHandler(GrilseProbabilityController.GrilseCsvBatchException.class)
+    public ResponseEntity<GrilseCsvBatchErrorResponse> grilseCsvBatchErrorHandler(final GrilseProbabilityController.GrilseCsvBatchException ex) {
+        return new ResponseEntity<>(GrilseCsvBatchErrorResponse.of(ex.getStatus().value(), ex.getMessage(), ex.getFiles()),
+                ex.getStatus());
+    }
+
+    @AllArgsConstructor(staticName = "of")
+    @Getter
+    private static class GrilseCsvBatchErrorResponse {
+        private final LocalDateTime timestamp = LocalDateTime.now();
+        private final int status;
+        private final String message;
+        private final List<GrilseProbabilityController.GrilseCsvFileErrors> files;
+    }
+
     @AllArgsConstructor(staticName = "of")
     @Getter
     private static class GrilseCsvErrorResponse {
@@ -1,50 +1,73 @@
 package uk.gov.defra.datareturns.data.model.reporting.referencedata;
 
+import com.univocity.parsers.csv.CsvParser;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.rest.webmvc.BasePathAwareController;
 import org.springframework.data.rest.webmvc.RepositoryLinksResource;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.ResourceProcessor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import uk.gov.defra.datareturns.data.model.grilse.GrilseProbability;
 import uk.gov.defra.datareturns.data.model.grilse.GrilseProbabilityRepository;
 import uk.gov.defra.datareturns.data.model.grilse.GrilseProbability_;
 import uk.gov.defra.datareturns.data.model.grilse.GrilseWeightGate;
+import uk.gov.defra.datareturns.data.model.grilse.GrilseWeightGateRepository;
 import uk.gov.defra.datareturns.data.model.reporting.filters.SeasonFilter;
 import uk.gov.defra.datareturns.data.model.reporting.referencedata.grilse.GrilseProbabilityEntry;
+import uk.gov.defra.datareturns.data.model.reporting.referencedata.grilse.GrilseProbabilityLookup;
+import uk.gov.defra.datareturns.data.model.reporting.referencedata.grilse.GrilseProbabilityQuery;
+import uk.gov.defra.datareturns.services.reporting.grilse.GrilseProbabilityLoader;
+import uk.gov.defra.datareturns.services.reporting.grilse.GrilseProbabilityLookupService;
+import uk.gov.defra.datareturns.services.reporting.grilse.InvalidGrilseProbabilityQueryException;
 import uk.gov.defra.datareturns.util.CsvUtil;
 
 import javax.servlet.http.HttpServletResponse;
 import javax.transaction.Transactional;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.Month;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
-import static uk.gov.defra.datareturns.util.CsvUtil.read;
 import static uk.gov.defra.datareturns.util.CsvUtil.writeCsv;
 
 /**
@@ -58,7 +81,20 @@ import static uk.gov.defra.datareturns.util.CsvUtil.writeCsv;
 @RequiredArgsConstructor
 @RequestMapping("/reporting/reference/grilse-probabilities")
 public class GrilseProbabilityController implements ResourceProcessor<RepositoryLinksResource> {
+    /**
+     * The maximum (uncompressed) size of a single file within an uploaded ZIP file
+     */
+    private static final long MAX_ZIP_ENTRY_SIZE = 5L * 1024 * 1024;
+
+    /**
+     * The maximum total (uncompressed) size of the files within an uploaded ZIP file
+     */
+    private static final long MAX_ZIP_SIZE = 20L * 1024 * 1024;
+
     private final GrilseProbabilityRepository grilseProbabilityRepository;
+    private final GrilseWeightGateRepository grilseWeightGateRepository;
+    private final GrilseProbabilityLoader grilseProbabilityLoader;
+    private final GrilseProbabilityLookupService grilseProbabilityLookupService;
 
     @GetMapping(value = "/{season}")
     public void get(@PathVariable("season") final SeasonFilter season, final HttpServletResponse response) throws IOException {
@@ -75,23 +111,202 @@ public class GrilseProbabilityController implements ResourceProcessor<Repository
                                        @RequestParam(value = "overwrite", required = false) final boolean overwrite,
                                        final InputStream inputStream) {
         final GrilseCsvParser loader = new GrilseCsvParser(inputStream, season, gate);
-        final List<GrilseProbability> existing = grilseProbabilityRepository.findBySeasonAndGate(season, gate);
-        if (!existing.isEmpty()) {
-            if (!overwrite) {
+        if (!overwrite && grilseProbabilityRepository.existsBySeasonAndGate(season, gate)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Existing data found for the given season and gate but overwrite parameter not set");
+        }
+        grilseProbabilityLoader.replace(season, gate, loader::parseRows);
+        return new ResponseEntity<>(HttpStatus.CREATED);
+    }
+
+    /**
+     * Upload the probability data for several gates from a ZIP file containing one CSV file per gate, each named after the gate
+     * (e.g. Dee.csv).  Files larger than {@link #MAX_ZIP_ENTRY_SIZE}, or a total larger than {@link #MAX_ZIP_SIZE}, are rejected with
+     * 413 Payload Too Large.  See {@link #postAll(Short, boolean, List)}.
+     */
+    @PostMapping(value = "/{season}", consumes = "application/zip")
+    @Transactional
+    public ResponseEntity<Object> postZip(@PathVariable("season") final Short season,
+                                          @RequestParam(value = "overwrite", required = false) final boolean overwrite,
+                                          final InputStream inputStream) throws IOException {
+        final List<Pair<String, InputStreamSource>> files = new ArrayList<>();
+        long totalSize = 0;
+        try (ZipInputStream zip = new ZipInputStream(inputStream)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (!entry.isDirectory()) {
+                    final String filename = StringUtils.substringAfterLast("/" + entry.getName(), "/");
+                    final byte[] content = readZipEntry(filename, zip, MAX_ZIP_SIZE - totalSize);
+                    totalSize += content.length;
+                    files.add(Pair.of(filename, new ByteArrayResource(content)));
+                }
+            }
+        }
+        return postAll(season, overwrite, files);
+    }
+
+    /**
+     * Upload the probability data for several gates from a multipart request containing one CSV file per gate, each named after the gate
+     * (e.g. Dee.csv).  See {@link #postAll(Short, boolean, List)}.
+     */
+    @PostMapping(value = "/{season}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Transactional
+    public ResponseEntity<Object> postMultipart(@PathVariable("season") final Short season,
+                                                @RequestParam(value = "overwrite", required = false) final boolean overwrite,
+                                                final MultipartHttpServletRequest request) {
+        final List<Pair<String, InputStreamSource>> files = request.getMultiFileMap().values().stream().flatMap(List::stream)
+                .map(file -> Pair.<String, InputStreamSource>of(
+                        StringUtils.defaultIfBlank(file.getOriginalFilename(), file.getName()), file))
+                .collect(Collectors.toList());
+        return postAll(season, overwrite, files);
+    }
+
+    /**
+     * Parse and validate each of the given files concurrently and, if every file is valid, load the data for all of the gates in the
+     * current transaction.  Any errors found (including a filename given more than once) are returned grouped by file and nothing is
+     * loaded.
+     *
+     * @param season    the season the data relates to
+     * @param overwrite true if existing data may be replaced
+     * @param files     the files to load with their filenames (the name of the gate, optionally with a file extension)
+     * @return 201 Created once all of the data has been loaded
+     */
+    private ResponseEntity<Object> postAll(final Short season, final boolean overwrite, final List<Pair<String, InputStreamSource>> files) {
+        if (files.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No files found in upload.");
+        }
+        final Map<String, GrilseWeightGate> gatesByName = grilseWeightGateRepository.findAll().stream()
+                .collect(Collectors.toMap(g -> StringUtils.upperCase(g.getName()), Function.identity()));
+
+        final List<GrilseCsvFileErrors> fileErrors = new ArrayList<>();
+        final Map<String, GrilseWeightGate> fileGates = new LinkedHashMap<>();
+        final Map<String, CompletableFuture<List<GrilseProbability>>> parsed = new LinkedHashMap<>();
+        final Set<String> filenames = new HashSet<>();
+        files.forEach(file -> {
+            final String filename = file.getKey();
+            final GrilseWeightGate gate = gatesByName.get(StringUtils.upperCase(StringUtils.substringBeforeLast(filename, ".")));
+            if (!filenames.add(filename)) {
+                fileErrors.add(GrilseCsvFileErrors.of(filename, "More than one file named " + filename + " found.", null));
+            } else if (gate == null) {
+                fileErrors.add(GrilseCsvFileErrors.of(filename, "No grilse weight gate found matching the filename.", null));
+            } else if (fileGates.containsValue(gate)) {
+                fileErrors.add(GrilseCsvFileErrors.of(filename, "More than one file found for gate " + gate.getName() + ".", null));
+            } else {
+                fileGates.put(filename, gate);
+                parsed.put(filename, CompletableFuture.supplyAsync(() -> parse(file.getValue(), season, gate)));
+            }
+        });
+
+        final Map<GrilseWeightGate, List<GrilseProbability>> probabilities = new LinkedHashMap<>();
+        parsed.forEach((filename, result) -> {
+            try {
+                probabilities.put(fileGates.get(filename), result.join());
+            } catch (final CompletionException e) {
+                if (e.getCause() instanceof GrilseCsvException) {
+                    final GrilseCsvException csvException = (GrilseCsvException) e.getCause();
+                    fileErrors.add(GrilseCsvFileErrors.of(filename, csvException.getReason(), csvException.getErrors()));
+                } else if (e.getCause() instanceof ResponseStatusException) {
+                    fileErrors.add(GrilseCsvFileErrors.of(filename, ((ResponseStatusException) e.getCause()).getReason(), null));
+                } else {
+                    throw e;
+                }
+            }
+        });
+        if (!fileErrors.isEmpty()) {
+            throw new GrilseCsvBatchException(HttpStatus.BAD_REQUEST, fileErrors);
+        }
+
+        if (!overwrite) {
+            final List<String> existing = probabilities.keySet().stream()
+                    .filter(gate -> grilseProbabilityRepository.existsBySeasonAndGate(season, gate))
+                    .map(GrilseWeightGate::getName).collect(Collectors.toList());
+            if (!existing.isEmpty()) {
                 throw new ResponseStatusException(HttpStatus.CONFLICT,
-                        "Existing data found for the given season and gate but overwrite parameter not set");
+                        "Existing data found for the given season and gate(s) " + existing + " but overwrite parameter not set");
             }
-            grilseProbabilityRepository.deleteAll(existing);
         }
-        grilseProbabilityRepository.flush();
-        grilseProbabilityRepository.saveAll(loader.getGrilseProbabilities());
+        probabilities.forEach((gate, data) -> grilseProbabilityLoader.replace(season, gate, data::forEach));
         return new ResponseEntity<>(HttpStatus.CREATED);
     }
 
+    /**
+     * Read the current entry of a ZIP file, rejecting entries larger than {@link #MAX_ZIP_ENTRY_SIZE} or the remaining allowance
+     */
+    private static byte[] readZipEntry(final String filename, final InputStream zip, final long remaining) throws IOException {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+        int read;
+        while ((read = zip.read(buffer)) != -1) {
+            content.write(buffer, 0, read);
+            if (content.size() > MAX_ZIP_ENTRY_SIZE) {
+                throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                        "File " + filename + " exceeds the maximum size of " + MAX_ZIP_ENTRY_SIZE + " bytes.");
+            } else if (content.size() > remaining) {
+                throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                        "The files in the upload exceed the maximum total size of " + MAX_ZIP_SIZE + " bytes.");
+            }
+        }
+        return content.toByteArray();
+    }
+
+    private static List<GrilseProbability> parse(final InputStreamSource source, final Short season, final GrilseWeightGate gate) {
+        try (InputStream stream = source.getInputStream()) {
+            final List<GrilseProbability> probabilities = new ArrayList<>();
+            new GrilseCsvParser(stream, season, gate).parseRows(probabilities::add);
+            return probabilities;
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lookup the probability that a salmon caught on a river in the given season and month is a grilse
+     *
+     * @param season the season the salmon was caught in
+     * @param query  the query (river, month and either massLbs or massKg) given as request parameters
+     * @return the {@link GrilseProbabilityLookup} result, 404 if the river is not known
+     */
+    @GetMapping(value = "/{season}/lookup", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<GrilseProbabilityLookup> lookup(@PathVariable("season") final Short season, final GrilseProbabilityQuery query) {
+        final GrilseProbabilityLookup result = grilseProbabilityLookupService.lookup(season, query);
+        if (result.getGate() == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No grilse weight gate found for river " + query.getRiver());
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Lookup the probability that each of the given salmon is a grilse
+     *
+     * @param season  the season the salmon were caught in
+     * @param queries the queries to answer
+     * @return a {@link GrilseProbabilityLookup} for each query, in the order given
+     */
+    @PostMapping(value = "/{season}/lookup", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<GrilseProbabilityLookup>> lookup(@PathVariable("season") final Short season,
+                                                                @RequestBody final List<GrilseProbabilityQuery> queries) {
+        return ResponseEntity.ok(grilseProbabilityLookupService.lookup(season, queries));
+    }
+
+    /**
+     * Report incomplete or invalid lookup queries as a bad request
+     *
+     * @param ex       the exception thrown by the lookup service
+     * @param response the response to send the error to
+     * @throws IOException if the error could not be sent
+     */
+    @ExceptionHandler(InvalidGrilseProbabilityQueryException.class)
+    public void invalidQueryHandler(final InvalidGrilseProbabilityQueryException ex, final HttpServletResponse response)
+            throws IOException {
+        response.sendError(HttpStatus.BAD_REQUEST.value(), ex.getMessage());
+    }
+
     @Override
     public RepositoryLinksResource process(final RepositoryLinksResource resource) {
         final String base = ServletUriComponentsBuilder.fromCurrentRequest().toUriString();
         resource.add(new Link(base + "reporting/reference/grilse-probabilities/{season}", "grilseProbabilitiesReporting"));
+        resource.add(new Link(base + "reporting/reference/grilse-probabilities/{season}/lookup{?river,month,massLbs,massKg}",
+                "grilseProbabilityLookup"));
         return resource;
     }
 
@@ -106,35 +321,42 @@ public class GrilseProbabilityController implements ResourceProcessor<Repository
         INVALID_PROBABILITY
     }
 
+    /**
+     * Streaming parser for grilse probability CSV data.  The headers are validated as soon as the parser is created, the rows are then
+     * parsed one at a time by {@link #parseRows(Consumer)} so that the data is never held in memory as a whole.
+     */
     public static final class GrilseCsvParser {
         private static final Set<String> MONTH_NAMES = Arrays.stream(Month.values()).map(Month::name).collect(Collectors.toSet());
-        private final CsvUtil.CsvReadResult<Object[]> data;
-        private final Map<Month, Integer> monthFieldIndexes = new LinkedHashMap<>();
+        private final CsvParser parser;
+        private final Map<Month, Integer> monthFieldIndexes = new EnumMap<>(Month.class);
         private final GrilseWeightGate grilseWeightGate;
         private final Short season;
+        private String[] headers;
         private Integer weightColumnIndex = null;
 
-        @Getter
-        private List<GrilseProbability> grilseProbabilities = null;
-
         GrilseCsvParser(final InputStream stream, final Short season, final GrilseWeightGate grilseWeightGate) {
-            this.data = read(stream);
+            this.parser = CsvUtil.beginReading(stream);
             this.season = season;
             this.grilseWeightGate = grilseWeightGate;
-            parseHeaders();
-            this.grilseProbabilities = parseRows();
+            try {
+                parseHeaders();
+            } catch (final RuntimeException e) {
+                parser.stopParsing();
+                throw e;
+            }
         }
 
         private void parseHeaders() {
             final List<GrilseCsvError> errors = new ArrayList<>();
             // Parse headers to determine the appropriate column indexes from which to extract data
-            if (data.getHeaders() == null) {
+            this.headers = parser.parseNext();
+            if (headers == null) {
                 throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "File is empty or not a valid csv.");
             }
 
             final Set<String> visitedHeaders = new HashSet<>();
-            for (int i = 0; i < data.getHeaders().length; i++) {
-                final String headerKey = StringUtils.upperCase(data.getHeaders()[i]);
+            for (int i = 0; i < headers.length; i++) {
+                final String headerKey = StringUtils.upperCase(headers[i]);
                 if (MONTH_NAMES.contains(headerKey)) {
                     this.monthFieldIndexes.put(Month.valueOf(headerKey), i);
                 } else if ("WEIGHT".equals(headerKey)) {
@@ -151,10 +373,10 @@ public class GrilseProbabilityController implements ResourceProcessor<Repository
 
             // If we couldn't find "WEIGHT" column and at least one month heading then return an error
             if (this.weightColumnIndex == null) {
-                errors.add(new GrilseCsvError(ErrorType.MISSING_WEIGHT_HEADER, 0, data.getHeaders().length));
+                errors.add(new GrilseCsvError(ErrorType.MISSING_WEIGHT_HEADER, 0, headers.length));
             }
             if (this.monthFieldIndexes.isEmpty()) {
-                errors.add(new GrilseCsvError(ErrorType.MISSING_MONTH_HEADER, 0, data.getHeaders().length));
+                errors.add(new GrilseCsvError(ErrorType.MISSING_MONTH_HEADER, 0, headers.length));
             }
             // Cannot process the rows unless the headers are ok so return here if errors
             if (!errors.isEmpty()) {
@@ -162,56 +384,63 @@ public class GrilseProbabilityController implements ResourceProcessor<Repository
             }
         }
 
-        private List<GrilseProbability> parseRows() {
+        /**
+         * Parse the remaining rows, passing each probability to the given consumer as soon as it has been read.  Rows are validated as they
+         * are read, if any errors are found a {@link GrilseCsvException} listing every error is thrown once all rows have been read and
+         * callers are expected to discard (roll back) anything already consumed.
+         *
+         * @param consumer the consumer of the {@link GrilseProbability} data, in row (mass) then month order
+         */
+        public void parseRows(final Consumer<GrilseProbability> consumer) {
             final List<GrilseCsvError> errors = new ArrayList<>();
-            final List<GrilseProbability> probabilities = new ArrayList<>();
             final Set<Short> weightsProcessed = new HashSet<>();
-            for (int rowIndex = 0; rowIndex < data.getRows().size(); rowIndex++) {
-                final Object[] rowData = data.getRows().get(rowIndex);
-                final int rowNum = rowIndex + 1;
-
-                if (data.getHeaders().length != rowData.length) {
-                    final int col = Math.min(data.getHeaders().length, rowData.length);
-                    errors.add(new GrilseCsvError(ErrorType.ROW_HEADER_DISCREPANCY, rowNum, col));
-                    continue;
-                }
-
-                // Extract the weight (in lbs) that this row of data belongs to and check that it isn't duplicated from a previously processed row
-                final String weightField = Objects.toString(rowData[weightColumnIndex]);
-                short weightVal = 0;
-                if (!StringUtils.isNumeric(weightField)) {
-                    errors.add(new GrilseCsvError(ErrorType.NOT_WHOLE_NUMBER, rowNum, weightColumnIndex));
-                } else {
-                    weightVal = Short.parseShort(weightField);
-                    if (!weightsProcessed.add(weightVal)) {
-                        errors.add(new GrilseCsvError(ErrorType.DUPLICATE_WEIGHT, rowNum, weightColumnIndex));
+            try {
+                String[] rowData;
+                for (int rowNum = 1; (rowData = parser.parseNext()) != null; rowNum++) {
+                    if (headers.length != rowData.length) {
+                        final int col = Math.min(headers.length, rowData.length);
+                        errors.add(new GrilseCsvError(ErrorType.ROW_HEADER_DISCREPANCY, rowNum, col));
+                        continue;
                     }
-                }
 
-                // For each month column that was discovered, extract the probability.
-                for (final Map.Entry<Month, Integer> entry : monthFieldIndexes.entrySet()) {
-                    final Month month = entry.getKey();
-                    final Integer fieldIndex = entry.getValue();
-                    BigDecimal ratio = null;
-                    final String strVal = Objects.toString(rowData[fieldIndex], "0");
-                    final BigDecimal value = new BigDecimal(strVal);
-                    if (isValidWeightRatio(value)) {
-                        ratio = value;
+                    // Extract the weight (in lbs) that this row of data belongs to and check that it isn't duplicated from a previously processed row
+                    final String weightField = Objects.toString(rowData[weightColumnIndex]);
+                    short weightVal = 0;
+                    if (!StringUtils.isNumeric(weightField)) {
+                        errors.add(new GrilseCsvError(ErrorType.NOT_WHOLE_NUMBER, rowNum, weightColumnIndex));
                     } else {
-                        errors.add(new GrilseCsvError(ErrorType.INVALID_PROBABILITY, rowNum, fieldIndex));
+                        weightVal = Short.parseShort(weightField);
+                        if (!weightsProcessed.add(weightVal)) {
+                            errors.add(new GrilseCsvError(ErrorType.DUPLICATE_WEIGHT, rowNum, weightColumnIndex));
+                        }
                     }
 
-                    // Only add a grilse probability value if the probability is greater than zero (reporting assumes 0 for any missing data point)
-                    if (isDefined(ratio)) {
-                        probabilities.add(GrilseProbability.of(null, season, grilseWeightGate, (short) month.getValue(), weightVal, ratio));
+                    // For each month column that was discovered, extract the probability.
+                    for (final Map.Entry<Month, Integer> entry : monthFieldIndexes.entrySet()) {
+                        final Month month = entry.getKey();
+                        final Integer fieldIndex = entry.getValue();
+                        BigDecimal ratio = null;
+                        final String strVal = Objects.toString(rowData[fieldIndex], "0");
+                        final BigDecimal value = new BigDecimal(strVal);
+                        if (isValidWeightRatio(value)) {
+                            ratio = value;
+                        } else {
+                            errors.add(new GrilseCsvError(ErrorType.INVALID_PROBABILITY, rowNum, fieldIndex));
+                        }
+
+                        // Only add a grilse probability value if the probability is greater than zero (reporting assumes 0 for any missing
+                        // data point).  Nothing further is passed on once an error has been found as the data will be rejected.
+                        if (errors.isEmpty() && isDefined(ratio)) {
+                            consumer.accept(GrilseProbability.of(null, season, grilseWeightGate, (short) month.getValue(), weightVal, ratio));
+                        }
                     }
                 }
+            } finally {
+                parser.stopParsing();
             }
             if (!errors.isEmpty()) {
                 throw new GrilseCsvException(HttpStatus.BAD_REQUEST, errors);
             }
-            probabilities.sort(Comparator.comparingInt(GrilseProbability::getMassInPounds).thenComparing(GrilseProbability::getMonth));
-            return probabilities;
         }
 
         public boolean isValidWeightRatio(final BigDecimal ratio) {
@@ -233,6 +462,24 @@ public class GrilseProbabilityController implements ResourceProcessor<Repository
         }
     }
 
+    @Getter
+    static final class GrilseCsvBatchException extends ResponseStatusException {
+        private final transient List<GrilseCsvFileErrors> files;
+
+        GrilseCsvBatchException(final HttpStatus status, final List<GrilseCsvFileErrors> files) {
+            super(status, "Invalid CSV data");
+            this.files = files;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor(staticName = "of")
+    static final class GrilseCsvFileErrors {
+        private final String file;
+        private final String message;
+        private final List<GrilseCsvError> errors;
+    }
+
     @Getter
     static final class GrilseCsvError {
         private final ErrorType errorType;
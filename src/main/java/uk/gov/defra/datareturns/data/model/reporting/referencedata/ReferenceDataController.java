@@ -11,11 +11,10 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import uk.gov.defra.datareturns.data.model.method.Method;
-import uk.gov.defra.datareturns.data.model.method.MethodRepository;
 import uk.gov.defra.datareturns.data.model.reporting.referencedata.locations.LocationEntry;
 import uk.gov.defra.datareturns.data.model.reporting.referencedata.locations.LocationEntryRepository;
 import uk.gov.defra.datareturns.data.model.species.Species;
-import uk.gov.defra.datareturns.data.model.species.SpeciesRepository;
+import uk.gov.defra.datareturns.services.referencedata.ReferenceDataSnapshotService;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
@@ -34,8 +33,7 @@ import static uk.gov.defra.datareturns.util.CsvUtil.writeCsv;
 @RequestMapping("/reporting/reference")
 public class ReferenceDataController implements ResourceProcessor<RepositoryLinksResource> {
     private final LocationEntryRepository locationEntryRepository;
-    private final SpeciesRepository speciesRepository;
-    private final MethodRepository methodRepository;
+    private final ReferenceDataSnapshotService referenceDataSnapshotService;
 
     @GetMapping(value = "/locations")
     public void locations(final HttpServletResponse response) throws IOException {
@@ -44,12 +42,12 @@ public class ReferenceDataController implements ResourceProcessor<RepositoryLink
 
     @GetMapping(value = "/species")
     public void species(final HttpServletResponse response) throws IOException {
-        writeCsv(Species.class, speciesRepository.findAll(), response);
+        writeCsv(Species.class, referenceDataSnapshotService.getSnapshot().getSpecies().getAll(), response);
     }
 
     @GetMapping(value = "/methods")
     public void methods(final HttpServletResponse response) throws IOException {
-        writeCsv(Method.class, methodRepository.findAll(), response);
+        writeCsv(Method.class, referenceDataSnapshotService.getSnapshot().getMethods().getAll(), response);
     }
 
     @Override
@@ -0,0 +1,38 @@
+package uk.gov.defra.datareturns.data.model.reporting.referencedata.grilse;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * The result of a {@link GrilseProbabilityQuery}
+ */
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class GrilseProbabilityLookup {
+    /**
+     * The id of the river the salmon was caught on
+     */
+    private final Long river;
+
+    /**
+     * The name of the grilse weight gate associated with the river's catchment (null if the river is unknown or has no gate)
+     */
+    private final String gate;
+
+    /**
+     * The month (1-based index) the salmon was caught
+     */
+    private final Short month;
+
+    /**
+     * The mass of the salmon matched to the nearest whole pound
+     */
+    private final Integer massLbs;
+
+    /**
+     * The probability that the salmon is a grilse (null if the river is unknown or has no gate)
+     */
+    private final BigDecimal probability;
+}
@@ -0,0 +1,38 @@
+package uk.gov.defra.datareturns.data.model.reporting.referencedata.grilse;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * A query for the probability that a salmon caught on a river is a grilse.  The mass may be given in either lbs or kg and is matched to
+ * the nearest whole pound.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor(staticName = "of")
+public class GrilseProbabilityQuery {
+    /**
+     * The id of the river the salmon was caught on
+     */
+    private Long river;
+
+    /**
+     * The month (1-based index) the salmon was caught
+     */
+    private Short month;
+
+    /**
+     * The mass of the salmon in imperial pounds
+     */
+    private BigDecimal massLbs;
+
+    /**
+     * The mass of the salmon in metric kg (used if massLbs is not given)
+     */
+    private BigDecimal massKg;
+}
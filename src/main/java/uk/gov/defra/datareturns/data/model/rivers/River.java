@@ -3,10 +3,13 @@ package uk.gov.defra.datareturns.data.model.rivers;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.Audited;
 import uk.gov.defra.datareturns.data.model.AbstractRestrictedEntity;
 import uk.gov.defra.datareturns.data.model.catchments.Catchment;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
@@ -21,6 +24,8 @@ import javax.persistence.SequenceGenerator;
  * @author Sam Gardner-Dell
  */
 @Entity(name = "rcr_river")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = River.CACHE_REGION)
 @Audited
 @Getter
 @Setter
@@ -30,6 +35,11 @@ public class River extends AbstractRestrictedEntity<Long> {
      */
     public static final String SEQUENCE = "rcr_river_id_seq";
 
+    /**
+     * Hibernate second-level cache region for this entity
+     */
+    public static final String CACHE_REGION = "rcr-river";
+
     /**
      * Primary key
      */
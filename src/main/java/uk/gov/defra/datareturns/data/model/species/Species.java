@@ -5,9 +5,12 @@ import com.univocity.parsers.annotations.Parsed;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.Audited;
 import uk.gov.defra.datareturns.data.model.AbstractBaseEntity;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
@@ -22,6 +25,8 @@ import java.math.BigDecimal;
  * @author Sam Gardner-Dell
  */
 @Entity(name = "rcr_species")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Species.CACHE_REGION)
 @Audited
 @Getter
 @Setter
@@ -32,6 +37,11 @@ public class Species extends AbstractBaseEntity<Long> {
      */
     public static final String SEQUENCE = "rcr_species_id_seq";
 
+    /**
+     * Hibernate second-level cache region for this entity
+     */
+    public static final String CACHE_REGION = "rcr-species";
+
     /**
      * Primary key
      */
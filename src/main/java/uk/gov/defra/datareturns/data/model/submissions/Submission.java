@@ -4,6 +4,8 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.envers.Audited;
+import org.springframework.data.domain.AfterDomainEventPublication;
+import org.springframework.data.domain.DomainEvents;
 import uk.gov.defra.datareturns.data.model.AbstractBaseEntity;
 import uk.gov.defra.datareturns.data.model.activities.Activity;
 import uk.gov.defra.datareturns.validation.submission.ValidSubmission;
@@ -17,10 +19,14 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
+import javax.persistence.PostLoad;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.persistence.UniqueConstraint;
 import javax.validation.Valid;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -88,4 +94,33 @@ public class Submission extends AbstractBaseEntity<Long> {
      */
     @Column
     private boolean reportingExclude = false;
+
+    /**
+     * Has this submission been read from (or already saved to) the database, used to distinguish the creation of a submission from
+     * subsequent changes when publishing {@link SubmissionSavedEvent}s
+     */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean persisted;
+
+    @PostLoad
+    void onLoad() {
+        persisted = true;
+    }
+
+    /**
+     * Spring Data publishes the returned event whenever the submission is saved through its repository, within the saving transaction
+     *
+     * @return the event describing the save
+     */
+    @DomainEvents
+    Collection<SubmissionSavedEvent> domainEvents() {
+        return Collections.singletonList(SubmissionSavedEvent.of(this, !persisted));
+    }
+
+    @AfterDomainEventPublication
+    void afterDomainEventPublication() {
+        persisted = true;
+    }
 }
@@ -0,0 +1,168 @@
+package uk.gov.defra.datareturns.data.model.submissions;
+
+import lombok.Getter;
+import lombok.Setter;
+import uk.gov.defra.datareturns.data.model.catches.CatchMass;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A complete catch return (the submission, its activities and their large and small catches) as submitted in a single request.
+ * <p>
+ * References to rivers, methods and species are given using the identifier of the reference data entity.
+ */
+@Getter
+@Setter
+public class SubmissionGraph {
+    /**
+     * The contact identifier
+     */
+    private String contactId;
+
+    /**
+     * The season (year) pertaining to the submission
+     */
+    private Short season;
+
+    /**
+     * The submission status
+     */
+    private SubmissionStatus status;
+
+    /**
+     * The submission source
+     */
+    private SubmissionSource source;
+
+    /**
+     * The activities recorded by the angler for the season
+     */
+    private List<ActivityNode> activities = new ArrayList<>();
+
+    /**
+     * An activity and its catches
+     */
+    @Getter
+    @Setter
+    public static class ActivityNode {
+        /**
+         * The identifier of the river that was fished
+         */
+        private Long river;
+
+        /**
+         * The number of days fished during the mandatory release period
+         */
+        private Short daysFishedWithMandatoryRelease;
+
+        /**
+         * The number of days fished at other times during the season
+         */
+        private Short daysFishedOther;
+
+        /**
+         * The large catches recorded against the activity
+         */
+        private List<CatchNode> catches = new ArrayList<>();
+
+        /**
+         * The small catches recorded against the activity
+         */
+        private List<SmallCatchNode> smallCatches = new ArrayList<>();
+    }
+
+    /**
+     * A large catch
+     */
+    @Getter
+    @Setter
+    public static class CatchNode {
+        /**
+         * The date of the catch
+         */
+        private LocalDate dateCaught;
+
+        /**
+         * The identifier of the species caught
+         */
+        private Long species;
+
+        /**
+         * The type of measurement provided by the angler
+         */
+        private CatchMass.MeasurementType massType;
+
+        /**
+         * The mass of the catch in the units given by the measurement type
+         */
+        private BigDecimal mass;
+
+        /**
+         * The identifier of the method used
+         */
+        private Long method;
+
+        /**
+         * Was the catch released?
+         */
+        private Boolean released;
+
+        /**
+         * To allow FMT users to report on the default month
+         */
+        private boolean noDateRecorded;
+
+        /**
+         * To allow FMT users to report on the default dates
+         */
+        private boolean onlyMonthRecorded;
+    }
+
+    /**
+     * A small catch (the counts of catches by method for a month)
+     */
+    @Getter
+    @Setter
+    public static class SmallCatchNode {
+        /**
+         * The month this record relates to
+         */
+        private Month month;
+
+        /**
+         * The counts by method
+         */
+        private List<CountNode> counts = new ArrayList<>();
+
+        /**
+         * The number released
+         */
+        private Short released;
+
+        /**
+         * To allow FMT users to report on the default date
+         */
+        private boolean noMonthRecorded;
+    }
+
+    /**
+     * The count of small catches for a method
+     */
+    @Getter
+    @Setter
+    public static class CountNode {
+        /**
+         * The identifier of the method used
+         */
+        private Long method;
+
+        /**
+         * The number of catches for the method
+         */
+        private Short count;
+    }
+}
@@ -0,0 +1,106 @@
+package uk.gov.defra.datareturns.data.model.submissions;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.rest.webmvc.BasePathAwareController;
+import org.springframework.data.rest.webmvc.RepositoryLinksResource;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.ResourceProcessor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import uk.gov.defra.datareturns.services.submissions.SubmissionGraphService;
+import uk.gov.defra.datareturns.services.submissions.SubmissionImportService;
+import uk.gov.defra.datareturns.util.CsvUtil;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Controller to allow complete catch returns (the submission, its activities and catches) to be created in a single request, either
+ * individually or as a bulk import
+ */
+@BasePathAwareController
+@ConditionalOnWebApplication
+@Slf4j
+@RequiredArgsConstructor
+@RequestMapping("/submissionGraphs")
+public class SubmissionGraphController implements ResourceProcessor<RepositoryLinksResource> {
+    /**
+     * the service used to validate and create the catch return
+     */
+    private final SubmissionGraphService submissionGraphService;
+
+    /**
+     * the service used to bulk import catch returns
+     */
+    private final SubmissionImportService submissionImportService;
+
+    /**
+     * Create a complete catch return.  The return is validated as a whole and either every entity is created or none are.
+     *
+     * @param graph the catch return to create
+     * @return a {@link ResponseEntity} containing the identifiers of the created entities, or a 400 status with every validation error
+     * found in the return
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<SubmissionGraphResult> create(@RequestBody final SubmissionGraph graph) {
+        return new ResponseEntity<>(submissionGraphService.create(graph), HttpStatus.CREATED);
+    }
+
+    /**
+     * Bulk import catch returns from a CSV or JSON-lines file.  Each return is imported or rejected as a whole, the errors for rejected
+     * returns are available from the error report.
+     *
+     * @param request the request containing the import file
+     * @return a {@link ResponseEntity} containing a summary of the import
+     * @throws IOException if an IO error occurs reading the import file
+     */
+    @PostMapping(value = "/imports", consumes = {"text/csv", SubmissionImportService.JSON_LINES_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("isGranted('USE_INTERNAL')")
+    public ResponseEntity<SubmissionImportResult> importReturns(final HttpServletRequest request) throws IOException {
+        final SubmissionImportResult result = submissionImportService.importReturns(request.getInputStream(),
+                MediaType.parseMediaType(request.getContentType()));
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * Download the error report for a bulk import
+     *
+     * @param id       the import id
+     * @param response the response to write the error report to
+     * @throws IOException if an IO error occurs writing the response
+     */
+    @GetMapping(value = "/imports/{id}/errors")
+    @PreAuthorize("isGranted('USE_INTERNAL')")
+    public void getImportErrors(@PathVariable("id") final UUID id, final HttpServletResponse response) throws IOException {
+        final Path report = submissionImportService.getErrorReport(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Import " + id + " not found or expired"));
+        CsvUtil.setCsvResponseHeaders(response, "SubmissionImportErrors-" + id + ".csv");
+        response.setContentLengthLong(Files.size(report));
+        Files.copy(report, response.getOutputStream());
+        response.flushBuffer();
+    }
+
+    @Override
+    public RepositoryLinksResource process(final RepositoryLinksResource resource) {
+        final String base = ServletUriComponentsBuilder.fromCurrentRequest().toUriString();
+        resource.add(new Link(base + "submissionGraphs", "submissionGraphs"));
+        resource.add(new Link(base + "submissionGraphs/imports", "submissionImports"));
+        return resource;
+    }
+}
@@ -0,0 +1,45 @@
+package uk.gov.defra.datareturns.data.model.submissions;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import javax.validation.ConstraintViolationException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Reports every constraint violation found in a submission graph, in the same form as the validation errors returned by the individual
+ * REST resources
+ */
+@ControllerAdvice(assignableTypes = SubmissionGraphController.class)
+public class SubmissionGraphExceptionHandler {
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<SubmissionGraphErrorResponse> constraintViolationHandler(final ConstraintViolationException ex) {
+        final List<SubmissionGraphError> errors = ex.getConstraintViolations().stream()
+                .map(v -> SubmissionGraphError.of(v.getLeafBean().getClass().getSimpleName(), v.getPropertyPath().toString(),
+                        v.getMessage()))
+                .sorted(Comparator.comparing(SubmissionGraphError::getProperty).thenComparing(SubmissionGraphError::getMessage))
+                .collect(Collectors.toList());
+        return new ResponseEntity<>(SubmissionGraphErrorResponse.of(errors), HttpStatus.BAD_REQUEST);
+    }
+
+    @AllArgsConstructor(staticName = "of")
+    @Getter
+    private static class SubmissionGraphErrorResponse {
+        private final List<SubmissionGraphError> errors;
+    }
+
+    @AllArgsConstructor(staticName = "of")
+    @Getter
+    private static class SubmissionGraphError {
+        private final String entity;
+        private final String property;
+        private final String message;
+    }
+}
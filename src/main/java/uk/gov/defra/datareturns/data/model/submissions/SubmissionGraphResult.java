@@ -0,0 +1,45 @@
+package uk.gov.defra.datareturns.data.model.submissions;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * The identifiers of the entities created from a {@link SubmissionGraph}, in the same order as given in the request
+ */
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class SubmissionGraphResult {
+    /**
+     * The identifier of the submission
+     */
+    private final Long id;
+
+    /**
+     * The activities created for the submission
+     */
+    private final List<ActivityResult> activities;
+
+    /**
+     * The identifiers of an activity and its catches
+     */
+    @Getter
+    @AllArgsConstructor(staticName = "of")
+    public static class ActivityResult {
+        /**
+         * The identifier of the activity
+         */
+        private final Long id;
+
+        /**
+         * The identifiers of the large catches
+         */
+        private final List<Long> catches;
+
+        /**
+         * The identifiers of the small catches
+         */
+        private final List<Long> smallCatches;
+    }
+}
@@ -0,0 +1,44 @@
+package uk.gov.defra.datareturns.data.model.submissions;
+
+import com.univocity.parsers.annotations.Headers;
+import com.univocity.parsers.annotations.Parsed;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An error found while importing catch returns, as written to the downloadable error report
+ */
+@Headers
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class SubmissionImportError {
+    /**
+     * The line of the import file the error relates to
+     */
+    @Parsed(field = "Line")
+    private Integer line;
+
+    /**
+     * The contact identifier of the return containing the error
+     */
+    @Parsed(field = "Contact ID")
+    private String contactId;
+
+    /**
+     * The season of the return containing the error
+     */
+    @Parsed(field = "Season")
+    private Short season;
+
+    /**
+     * The property (or import file column) which is in error
+     */
+    @Parsed(field = "Property")
+    private String property;
+
+    /**
+     * The error code
+     */
+    @Parsed(field = "Error")
+    private String error;
+}
@@ -0,0 +1,33 @@
+package uk.gov.defra.datareturns.data.model.submissions;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Summary of a bulk import of catch returns
+ */
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class SubmissionImportResult {
+    /**
+     * The identifier of the error report for the import, or null if every return was imported
+     */
+    private final UUID id;
+
+    /**
+     * The number of returns read from the import file
+     */
+    private final int returns;
+
+    /**
+     * The number of returns imported
+     */
+    private final int imported;
+
+    /**
+     * The number of returns rejected (see the error report for details)
+     */
+    private final int rejected;
+}
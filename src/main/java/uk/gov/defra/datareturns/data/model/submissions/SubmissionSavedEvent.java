@@ -0,0 +1,21 @@
+package uk.gov.defra.datareturns.data.model.submissions;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Domain event published (within the saving transaction) whenever a {@link Submission} is saved through its repository
+ */
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class SubmissionSavedEvent {
+    /**
+     * The submission that was saved
+     */
+    private final Submission submission;
+
+    /**
+     * Was the submission created by the save (rather than an existing submission being changed)
+     */
+    private final boolean created;
+}
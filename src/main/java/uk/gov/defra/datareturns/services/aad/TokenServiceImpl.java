@@ -1,89 +1,236 @@
 package uk.gov.defra.datareturns.services.aad;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.microsoft.aad.adal4j.AuthenticationCallback;
 import com.microsoft.aad.adal4j.AuthenticationContext;
 import com.microsoft.aad.adal4j.AuthenticationException;
 import com.microsoft.aad.adal4j.AuthenticationResult;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.cache.annotation.CachePut;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
 import uk.gov.defra.datareturns.config.AADConfiguration;
 import uk.gov.defra.datareturns.config.DynamicsConfiguration;
 
-import java.util.Date;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 
 /**
  * Service to retrieve access token from Azure active directory
+ * <p>
+ * Tokens are held per identity and acquired on a shared, bounded executor, at most one acquisition being in flight for an identity at
+ * any time.  A token which is within the configured refresh-ahead period of its expiry is still returned to the caller while a new
+ * token is acquired in the background, so callers only wait on AAD for an identity's first token (or after a refresh has failed).
+ * <p>
+ * Tokens are held for a bounded number of identities and discarded once unused for the configured period.  Tokens are refreshed using
+ * the refresh token issued with them where possible, the password given by the caller only being used when no refresh token is held (or
+ * it is rejected) - passwords are never retained.
  *
  * @author Graham Willis
  */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 @ConditionalOnProperty(name = "dynamics.impl", havingValue = "dynamics")
 public class TokenServiceImpl implements TokenService {
     /**
      * how early should a cached access token be refreshed
      */
     private static final long PREEMPTIVE_REFRESH = 10000;
-    /**
-     * cache service
-     */
-    private final TokenServiceCache cache;
+
+    private final AADConfiguration aadConfiguration;
+    private final DynamicsConfiguration.Endpoint endpoint;
+    private final AuthenticationContext context;
+    private final Cache<String, IdentityToken> tokens;
+
+    public TokenServiceImpl(final AADConfiguration aadConfiguration, final DynamicsConfiguration.Endpoint endpoint,
+                            @Qualifier(AADConfiguration.TOKEN_EXECUTOR) final ThreadPoolTaskExecutor executor)
+            throws MalformedURLException {
+        this.aadConfiguration = aadConfiguration;
+        this.endpoint = endpoint;
+        this.context = new AuthenticationContext(aadConfiguration.getAuthority().toString(), true, executor.getThreadPoolExecutor());
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(aadConfiguration.getTokenCacheMaximumSize())
+                .expireAfterAccess(aadConfiguration.getTokenCacheExpiry())
+                .build();
+    }
 
     @Override
     @NonNull
     public String getTokenForUserIdentity(final String username, final String password) {
-        AuthenticationResult result = cache.getToken(username, password);
-        if (result == null || new Date(System.currentTimeMillis() - PREEMPTIVE_REFRESH).after(result.getExpiresOnDate())) {
-            result = cache.updateToken(username, password);
+        final String key = identityKey(username, password);
+        return tokens.get(key, k -> new IdentityToken(k, username)).get(password).getAccessToken();
+    }
+
+    /**
+     * Start acquiring a token for the given credentials on the shared executor
+     *
+     * @param username the AAD username
+     * @param password the AAD password
+     * @return the token acquisition
+     */
+    protected CompletableFuture<AuthenticationResult> acquire(final String username, final String password) {
+        final CompletableFuture<AuthenticationResult> future = new CompletableFuture<>();
+        try {
+            context.acquireToken(endpoint.getUrl().toString(), aadConfiguration.getIdentityClientId(), username, password,
+                    callback(future));
+        } catch (final RuntimeException e) {
+            // the executor queue is full
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Start acquiring a new token using the refresh token issued with a previous token on the shared executor
+     *
+     * @param refreshToken the refresh token
+     * @return the token acquisition
+     */
+    protected CompletableFuture<AuthenticationResult> acquireByRefreshToken(final String refreshToken) {
+        final CompletableFuture<AuthenticationResult> future = new CompletableFuture<>();
+        try {
+            context.acquireTokenByRefreshToken(refreshToken, aadConfiguration.getIdentityClientId(), endpoint.getUrl().toString(),
+                    callback(future));
+        } catch (final RuntimeException e) {
+            // the executor queue is full
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static AuthenticationCallback<AuthenticationResult> callback(final CompletableFuture<AuthenticationResult> future) {
+        return new AuthenticationCallback<AuthenticationResult>() {
+            @Override
+            public void onSuccess(final AuthenticationResult result) {
+                future.complete(result);
+            }
+
+            @Override
+            public void onFailure(final Throwable exc) {
+                future.completeExceptionally(exc);
+            }
+        };
+    }
+
+    /**
+     * Wait for a token acquisition to complete, converting adal4j exceptions to spring authentication exceptions as required.
+     */
+    private static AuthenticationResult await(final CompletableFuture<AuthenticationResult> acquisition) {
+        try {
+            return acquisition.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Interrupted fetching identity token", ex);
+        } catch (final ExecutionException ex) {
+            // sadly the only way to do this is by looking at the exception message itself.
+            if (ex.getCause() instanceof AuthenticationException) {
+                final AuthenticationException authEx = (AuthenticationException) ex.getCause();
+                if (authEx.getMessage().contains("ID3242: The security token could not be authenticated or authorized")) {
+                    // adfs returns a 500 response (?!) with a soap envelope on authentication failure with a valid domain
+                    throw new BadCredentialsException("AAD authentication failed - no identity was found for the given credentials.", authEx);
+                } else if (authEx.getMessage().contains("AADSTS90002: Tenant not found.")) { // domain specified but not recognised.
+                    throw new BadCredentialsException("AAD authentication failed - invalid domain", authEx);
+                } else if (authEx.getMessage().contains("AADSTS50034: The user account does not exist")) { // no domain specified in username
+                    throw new BadCredentialsException("AAD authentication failed - the user account does not exist in the directory.", authEx);
+                }
+            }
+            throw new AuthenticationServiceException("Error fetching identity token", ex);
         }
-        return result.getAccessToken();
     }
 
-    @Service
-    @RequiredArgsConstructor
-    @ConditionalOnProperty(name = "dynamics.impl", havingValue = "dynamics")
-    public static class TokenServiceCache {
-        private final AADConfiguration aadConfiguration;
-        private final DynamicsConfiguration.Endpoint endpoint;
-
-        @CachePut(cacheNames = "crm-auth-token-identity")
-        public AuthenticationResult updateToken(final String username, final String password) {
-            final ExecutorService service = Executors.newSingleThreadExecutor();
-            try {
-                final AuthenticationContext context = new AuthenticationContext(aadConfiguration.getAuthority().toString(), true, service);
-                return context.acquireToken(endpoint.getUrl().toString(), aadConfiguration.getIdentityClientId(), username, password, null).get();
-            } catch (final Exception ex) {
-                // handle adal4j AuthenticationExceptions and convert to spring authentication exceptions as required.
-                // sadly the only way to do this is by looking at the exception message itself.
-                if (ex.getCause() instanceof AuthenticationException) {
-                    final AuthenticationException authEx = (AuthenticationException) ex.getCause();
-                    if (authEx.getMessage().contains("ID3242: The security token could not be authenticated or authorized")) {
-                        // adfs returns a 500 response (?!) with a soap envelope on authentication failure with a valid domain
-                        throw new BadCredentialsException("AAD authentication failed - no identity was found for the given credentials.", authEx);
-                    } else if (authEx.getMessage().contains("AADSTS90002: Tenant not found.")) { // domain specified but not recognised.
-                        throw new BadCredentialsException("AAD authentication failed - invalid domain", authEx);
-                    } else if (authEx.getMessage().contains("AADSTS50034: The user account does not exist")) { // no domain specified in username
-                        throw new BadCredentialsException("AAD authentication failed - the user account does not exist in the directory.", authEx);
+    /**
+     * Key tokens by the username and a digest of the password rather than holding the password itself as a map key
+     */
+    private static String identityKey(final String username, final String password) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(String.valueOf(password).getBytes(StandardCharsets.UTF_8));
+            return username + ':' + Base64.getEncoder().encodeToString(digest);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The current token for an identity and the acquisition of its replacement (if one is in flight)
+     */
+    private final class IdentityToken {
+        private final String key;
+        private final String username;
+        private AuthenticationResult token;
+        private CompletableFuture<AuthenticationResult> acquisition;
+
+        private IdentityToken(final String key, final String username) {
+            this.key = key;
+            this.username = username;
+        }
+
+        /**
+         * @param password the password given by the caller, used only if no refresh token is held (or it is rejected)
+         * @return a usable token, refreshing in the background if it is close to expiry and waiting only if it has (all but) expired
+         */
+        private AuthenticationResult get(final String password) {
+            final CompletableFuture<AuthenticationResult> pending;
+            synchronized (this) {
+                final long now = System.currentTimeMillis();
+                if (token != null && now < token.getExpiresOnDate().getTime() - PREEMPTIVE_REFRESH) {
+                    if (now >= token.getExpiresOnDate().getTime() - aadConfiguration.getTokenRefreshAhead().toMillis()) {
+                        refresh(password);
                     }
+                    return token;
+                }
+                pending = refresh(password);
+            }
+            return await(pending);
+        }
+
+        /**
+         * @param password the password given by the caller
+         * @return the in-flight acquisition for this identity, starting one if there is none
+         */
+        private synchronized CompletableFuture<AuthenticationResult> refresh(final String password) {
+            if (acquisition == null) {
+                final CompletableFuture<AuthenticationResult> started;
+                if (token != null && token.getRefreshToken() != null) {
+                    // fall back to the password should the refresh token have expired or been revoked
+                    started = acquireByRefreshToken(token.getRefreshToken())
+                            .handle((result, error) -> error == null
+                                    ? CompletableFuture.completedFuture(result) : acquire(username, password))
+                            .thenCompose(Function.identity());
+                } else {
+                    started = acquire(username, password);
                 }
-                throw new AuthenticationServiceException("Error fetching identity token", ex);
-            } finally {
-                service.shutdown();
+                acquisition = started;
+                started.whenComplete((result, error) -> completed(started, result, error));
+                return started;
             }
+            return acquisition;
         }
 
-        @Cacheable(cacheNames = "crm-auth-token-identity")
-        public AuthenticationResult getToken(final String username, final String password) {
-            return null;
+        private synchronized void completed(final CompletableFuture<AuthenticationResult> completed, final AuthenticationResult result,
+                                            final Throwable error) {
+            if (acquisition == completed) {
+                acquisition = null;
+            }
+            if (result != null) {
+                token = result;
+            } else if (token != null) {
+                // the current token remains usable, the next request after the refresh-ahead point will try again
+                log.warn("Failed to refresh identity token for {}", username, error);
+            } else {
+                // the waiting callers receive the error, don't retain identities which cannot be authenticated
+                tokens.asMap().remove(key, this);
+            }
         }
     }
 }
@@ -1,10 +1,10 @@
 package uk.gov.defra.datareturns.services.authentication;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.config.BeanDefinition;
-import org.springframework.cache.annotation.CacheConfig;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Scope;
 import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -12,43 +12,78 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
-import uk.gov.defra.datareturns.config.CacheManagerConfiguration;
 import uk.gov.defra.datareturns.config.SecurityConfiguration;
 import uk.gov.defra.datareturns.services.crm.CrmLookupService;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
 
+import static uk.gov.defra.datareturns.config.CacheManagerConfiguration.AUTHENTICATION_CACHE;
+import static uk.gov.defra.datareturns.config.CacheManagerConfiguration.AUTHENTICATION_CACHE_MANAGER;
+
+/**
+ * Authenticates users against active directory, resolving their authorities from their CRM roles.
+ * <p>
+ * Successful authentications are cached by username along with a salted digest of the password, so that the repeated requests made by a
+ * user (each carrying their credentials) are verified locally.  A request with a different password is authenticated against active
+ * directory as usual, replacing the cached authentication if it succeeds.
+ */
 @Service
 @Scope(BeanDefinition.SCOPE_SINGLETON)
-@CacheConfig(cacheManager = CacheManagerConfiguration.AUTHENTICATION_CACHE_MANAGER)
 @Slf4j
-@RequiredArgsConstructor
 public class ActiveDirectoryAuthentication implements ActiveDirectoryAuthenticationProvider {
     private final CrmLookupService crmLookupService;
     private final SecurityConfiguration securityConfiguration;
+    private final Cache cache;
+
+    public ActiveDirectoryAuthentication(final CrmLookupService crmLookupService,
+                                         final SecurityConfiguration securityConfiguration,
+                                         @Qualifier(AUTHENTICATION_CACHE_MANAGER) final CacheManager cacheManager) {
+        this.crmLookupService = crmLookupService;
+        this.securityConfiguration = securityConfiguration;
+        this.cache = cacheManager.getCache(AUTHENTICATION_CACHE);
+    }
 
     @Override
-    @Cacheable(cacheNames = "crm-aad-auth",
-               key = "{ #authentication.name, #authentication.credentials }")
     public Authentication authenticate(final Authentication authentication) {
         final String username = authentication.getName();
         final String password = authentication.getCredentials().toString();
+        final CachedAuthentication cached = cache.get(cacheKey(username), CachedAuthentication.class);
+        if (cached != null && cached.matches(password)) {
+            return new RcrAuthentication(username, password, cached.getAuthorities());
+        }
         try {
             final List<String> roles = crmLookupService.getAuthenticatedUserRoles(username, password);
             final List<GrantedAuthority> authorities = roles.stream()
                     .flatMap(crmRole -> securityConfiguration.getRoleAuthorities().get(crmRole).stream())
                     .map(SimpleGrantedAuthority::new)
                     .collect(Collectors.toList());
-            return new UsernamePasswordAuthenticationToken(username, password, authorities);
+            cache.put(cacheKey(username), CachedAuthentication.of(password, authorities));
+            return new RcrAuthentication(username, password, authorities);
         } catch (final AuthenticationServiceException e) {
             log.error("Authentication service error", e);
             throw e;
         }
     }
 
+    @Override
+    public boolean evict(final String username) {
+        final String key = cacheKey(username);
+        final boolean cached = cache.get(key) != null;
+        cache.evict(key);
+        return cached;
+    }
+
     @Override
     public boolean supports(final Class<?> auth) {
         return auth.equals(UsernamePasswordAuthenticationToken.class);
     }
+
+    /**
+     * Active directory usernames are not case sensitive
+     */
+    private static String cacheKey(final String username) {
+        return username.toLowerCase(Locale.ENGLISH);
+    }
 }
@@ -3,4 +3,11 @@ package uk.gov.defra.datareturns.services.authentication;
 import org.springframework.security.authentication.AuthenticationProvider;
 
 public interface ActiveDirectoryAuthenticationProvider extends AuthenticationProvider {
+    /**
+     * Evict the cached authentication for the given user, so that their next request is authenticated against active directory
+     *
+     * @param username the username of the user
+     * @return true if an authentication was cached for the user
+     */
+    boolean evict(String username);
 }
@@ -0,0 +1,69 @@
+package uk.gov.defra.datareturns.services.authentication;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A cached active directory authentication: the authorities granted to the user and a salted digest of the password they were granted
+ * for, so that repeated requests can be verified without holding the password itself.
+ */
+final class CachedAuthentication {
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int SALT_LENGTH = 16;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final byte[] salt;
+    private final byte[] digest;
+
+    /**
+     * The authorities granted to the user
+     */
+    @Getter
+    private final List<GrantedAuthority> authorities;
+
+    private CachedAuthentication(final byte[] salt, final byte[] digest, final List<GrantedAuthority> authorities) {
+        this.salt = salt;
+        this.digest = digest;
+        this.authorities = authorities;
+    }
+
+    /**
+     * Create a cached authentication for the given password and authorities
+     *
+     * @param password    the password which was successfully authenticated
+     * @param authorities the authorities granted to the user
+     * @return the cached authentication
+     */
+    static CachedAuthentication of(final String password, final Collection<? extends GrantedAuthority> authorities) {
+        final byte[] salt = new byte[SALT_LENGTH];
+        RANDOM.nextBytes(salt);
+        return new CachedAuthentication(salt, digest(salt, password), Collections.unmodifiableList(new ArrayList<>(authorities)));
+    }
+
+    /**
+     * @param password the password presented
+     * @return true if the presented password is the one which was authenticated
+     */
+    boolean matches(final String password) {
+        return MessageDigest.isEqual(digest, digest(salt, password));
+    }
+
+    private static byte[] digest(final byte[] salt, final String password) {
+        try {
+            final MessageDigest messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            messageDigest.update(salt);
+            return messageDigest.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
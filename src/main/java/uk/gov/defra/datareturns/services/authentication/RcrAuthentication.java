@@ -0,0 +1,45 @@
+package uk.gov.defra.datareturns.services.authentication;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * An authenticated user whose {@link RcrAuthority} grants have been resolved (once, at authentication time) into an enum set, so that
+ * the authority checks made for every validated entity and every reference data write do not search the granted authorities.
+ */
+public class RcrAuthentication extends UsernamePasswordAuthenticationToken {
+    private static final long serialVersionUID = 1L;
+
+    private final Set<RcrAuthority> granted;
+
+    /**
+     * Create an authenticated user
+     *
+     * @param principal   the principal (username)
+     * @param credentials the credentials
+     * @param authorities the authorities granted to the user
+     */
+    public RcrAuthentication(final Object principal, final Object credentials, final Collection<? extends GrantedAuthority> authorities) {
+        super(principal, credentials, authorities);
+        final Set<RcrAuthority> grants = EnumSet.noneOf(RcrAuthority.class);
+        for (final GrantedAuthority authority : authorities) {
+            final RcrAuthority known = RcrAuthority.lookup(authority.getAuthority());
+            if (known != null) {
+                grants.add(known);
+            }
+        }
+        this.granted = grants;
+    }
+
+    /**
+     * @param authority the authority to check
+     * @return true if the user has been granted the given authority
+     */
+    public boolean hasAuthority(final RcrAuthority authority) {
+        return granted.contains(authority);
+    }
+}
@@ -0,0 +1,40 @@
+package uk.gov.defra.datareturns.services.authentication;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The authorities checked by the application itself (rather than derived per entity type by the permission evaluator).
+ * <p>
+ * Granted authorities with these names are compiled into a {@link RcrAuthentication} when a user is authenticated so that checks for them
+ * are a single bit test.
+ */
+public enum RcrAuthority {
+    /**
+     * Permits access to use reference data marked as internal in a submission (and the internal use only endpoints)
+     */
+    USE_INTERNAL,
+
+    /**
+     * Permits the creation, modification and deletion of reference data
+     */
+    REFERENCE_DATA_WRITE;
+
+    private static final Map<String, RcrAuthority> BY_NAME = new HashMap<>();
+
+    static {
+        for (final RcrAuthority authority : values()) {
+            BY_NAME.put(authority.name(), authority);
+        }
+    }
+
+    /**
+     * Lookup an authority by name
+     *
+     * @param name the authority name
+     * @return the authority with the given name, or null if the name is not one of the {@link RcrAuthority} values
+     */
+    public static RcrAuthority lookup(final String name) {
+        return name != null ? BY_NAME.get(name) : null;
+    }
+}
@@ -0,0 +1,214 @@
+package uk.gov.defra.datareturns.services.crm;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import uk.gov.defra.datareturns.config.CrmOutboxConfiguration;
+import uk.gov.defra.datareturns.data.model.outbox.CrmActivityAction;
+import uk.gov.defra.datareturns.data.model.outbox.CrmActivityOutboxEntry;
+import uk.gov.defra.datareturns.data.model.outbox.CrmActivityOutboxRepository;
+import uk.gov.defra.datareturns.data.model.submissions.Submission;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionSavedEvent;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionStatus;
+import uk.gov.defra.datareturns.services.crm.entity.CrmActivity;
+import uk.gov.defra.datareturns.services.crm.entity.CrmCallResult;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Records the CRM activity calls required by changes to submissions in a transactional outbox and dispatches them in the background.
+ * <p>
+ * Outbox entries are written in the same transaction as the submission change, so saving a submission no longer waits on the CRM and
+ * the CRM call is not lost if it fails.  The dispatcher claims the entries which are due, coalesces them by contact and season (so that
+ * repeated saves of a submission result in a single update) and sends the calls to the CRM in OData batch requests on a bounded executor,
+ * the create call for a contact and season always being made before the update.  Failed calls are retried with exponential backoff.
+ */
+@Service
+@Slf4j
+public class CrmActivityOutboxService {
+    /**
+     * The outbox configuration
+     */
+    private final CrmOutboxConfiguration configuration;
+
+    /**
+     * The outbox entry repository
+     */
+    private final CrmActivityOutboxRepository outboxRepository;
+
+    /**
+     * The CRM service which the activity calls are dispatched to
+     */
+    private final CrmLookupService lookupService;
+
+    /**
+     * The bounded executor used to make CRM calls
+     */
+    private final ThreadPoolTaskExecutor executor;
+
+    public CrmActivityOutboxService(final CrmOutboxConfiguration configuration,
+                                    final CrmActivityOutboxRepository outboxRepository,
+                                    final CrmLookupService lookupService,
+                                    @Qualifier(CrmOutboxConfiguration.OUTBOX_EXECUTOR) final ThreadPoolTaskExecutor executor) {
+        this.configuration = configuration;
+        this.outboxRepository = outboxRepository;
+        this.lookupService = lookupService;
+        this.executor = executor;
+    }
+
+    /**
+     * Queue the CRM activity calls required by a saved submission - a new submission requires the activity to be created and a submitted
+     * submission requires the activity to be updated
+     *
+     * @param event the event describing the saved submission
+     */
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onSubmissionSaved(final SubmissionSavedEvent event) {
+        final Submission submission = event.getSubmission();
+        if (event.isCreated()) {
+            enqueue(submission, CrmActivityAction.CREATE);
+        }
+        if (SubmissionStatus.SUBMITTED.equals(submission.getStatus())) {
+            enqueue(submission, CrmActivityAction.UPDATE);
+        }
+    }
+
+    /**
+     * Dispatch the CRM activity calls which are due, returning once all of the claimed calls have been attempted
+     */
+    @Scheduled(fixedDelayString = "#{@crmOutboxConfiguration.pollInterval.toMillis()}")
+    public void dispatch() {
+        final String claim = UUID.randomUUID().toString();
+        final Instant now = Instant.now();
+        if (outboxRepository.claim(claim, now, now.plus(configuration.getLease()), configuration.getBatchSize()) == 0) {
+            return;
+        }
+
+        final Collection<List<CrmActivityOutboxEntry>> byReturn = outboxRepository.findByClaimOrderById(claim).stream()
+                .collect(Collectors.groupingBy(CrmActivityOutboxService::returnKey, LinkedHashMap::new, Collectors.toList())).values();
+
+        // The activity must exist before it is updated, so all creates are made before any update
+        final List<List<CrmActivityOutboxEntry>> creates = byReturn.stream().map(entries -> filter(entries, CrmActivityAction.CREATE))
+                .filter(entries -> !entries.isEmpty()).collect(Collectors.toList());
+        callAll(creates, CrmActivity.Status.STARTED);
+
+        // Failed creates remain in the outbox, as do creates which failed in an earlier claim or are held by another dispatcher
+        final Set<String> pendingCreates = findPendingCreates(byReturn);
+        final List<List<CrmActivityOutboxEntry>> updates = new ArrayList<>();
+        for (final List<CrmActivityOutboxEntry> entries : byReturn) {
+            final List<CrmActivityOutboxEntry> returnUpdates = filter(entries, CrmActivityAction.UPDATE);
+            if (!returnUpdates.isEmpty() && pendingCreates.contains(returnKey(entries.get(0)))) {
+                retry(returnUpdates, "Awaiting activity creation");
+            } else if (!returnUpdates.isEmpty()) {
+                updates.add(returnUpdates);
+            }
+        }
+        callAll(updates, CrmActivity.Status.SUBMITTED);
+        log.debug("Dispatched CRM activity calls for {} returns", byReturn.size());
+    }
+
+    /**
+     * Find the returns which still have a create call awaiting dispatch, once the creates held by the current claim have been attempted
+     *
+     * @param byReturn the claimed outbox entries, grouped by return
+     * @return the keys of the returns with an outstanding create call
+     */
+    private Set<String> findPendingCreates(final Collection<List<CrmActivityOutboxEntry>> byReturn) {
+        final Set<String> contactIds = byReturn.stream().filter(entries -> !filter(entries, CrmActivityAction.UPDATE).isEmpty())
+                .map(entries -> entries.get(0).getContactId()).collect(Collectors.toSet());
+        if (contactIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return outboxRepository.findByActionAndContactIdIn(CrmActivityAction.CREATE, contactIds).stream()
+                .map(CrmActivityOutboxService::returnKey).collect(Collectors.toSet());
+    }
+
+    private void enqueue(final Submission submission, final CrmActivityAction action) {
+        outboxRepository.save(CrmActivityOutboxEntry.of(submission.getContactId(), submission.getSeason(), action));
+    }
+
+    /**
+     * Make a single (coalesced) CRM call for each of the given groups of outbox entries, sending the calls in batch requests on the bounded
+     * executor
+     *
+     * @param calls  the outbox entries for each call, all entries in a group being for the same contact and season
+     * @param status the activity status to set for each call
+     */
+    private void callAll(final List<List<CrmActivityOutboxEntry>> calls, final CrmActivity.Status status) {
+        final List<CompletableFuture<Void>> batches = new ArrayList<>();
+        final int batchOperations = configuration.getBatchOperations();
+        for (int from = 0; from < calls.size(); from += batchOperations) {
+            final List<List<CrmActivityOutboxEntry>> batch = calls.subList(from, Math.min(from + batchOperations, calls.size()));
+            batches.add(CompletableFuture.runAsync(() -> callBatch(batch, status), executor));
+        }
+        CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).join();
+    }
+
+    private void callBatch(final List<List<CrmActivityOutboxEntry>> batch, final CrmActivity.Status status) {
+        final List<CrmActivity.CrmActivityQuery> queries = batch.stream().map(entries -> entries.get(0))
+                .map(e -> new CrmActivity.CrmActivityQuery(status, e.getContactId(), e.getSeason()))
+                .collect(Collectors.toList());
+        List<CrmCallResult> results;
+        try {
+            results = lookupService.callActivities(queries);
+        } catch (final RuntimeException e) {
+            log.warn("CRM activity batch of {} {} calls failed", queries.size(), status, e);
+            results = Collections.nCopies(queries.size(), CrmCallResult.failure(e.getMessage()));
+        }
+
+        final List<CrmActivityOutboxEntry> succeeded = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            final List<CrmActivityOutboxEntry> entries = batch.get(i);
+            final CrmCallResult result = results.get(i);
+            if (result.isSuccessful()) {
+                succeeded.addAll(entries);
+            } else {
+                final CrmActivityOutboxEntry entry = entries.get(0);
+                log.warn("CRM activity {} failed for contact {} season {} (attempt {}): {}", status, entry.getContactId(),
+                        entry.getSeason(), entry.getAttempts() + 1, result.getError());
+                retry(entries, result.getError());
+            }
+        }
+        if (!succeeded.isEmpty()) {
+            outboxRepository.deleteInBatch(succeeded);
+        }
+    }
+
+    private void retry(final List<CrmActivityOutboxEntry> entries, final String error) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        final Instant now = Instant.now();
+        for (final CrmActivityOutboxEntry entry : entries) {
+            entry.setAttempts(entry.getAttempts() + 1);
+            entry.setNextAttempt(now.plus(configuration.getBackoff(entry.getAttempts())));
+            entry.setLastError(StringUtils.abbreviate(error, 1000));
+            entry.setClaim(null);
+        }
+        outboxRepository.saveAll(entries);
+    }
+
+    private static String returnKey(final CrmActivityOutboxEntry entry) {
+        return entry.getContactId() + "|" + entry.getSeason();
+    }
+
+    private static List<CrmActivityOutboxEntry> filter(final List<CrmActivityOutboxEntry> entries, final CrmActivityAction action) {
+        return entries.stream().filter(e -> action.equals(e.getAction())).collect(Collectors.toList());
+    }
+}
@@ -1,9 +1,13 @@
 package uk.gov.defra.datareturns.services.crm;
 
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.lang.NonNull;
 import uk.gov.defra.datareturns.data.model.licences.Licence;
+import uk.gov.defra.datareturns.services.crm.entity.CrmActivity;
+import uk.gov.defra.datareturns.services.crm.entity.CrmCallResult;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 /**
@@ -47,6 +51,16 @@ public interface CrmLookupService {
      */
     void updateActivity(String contactId, short season);
 
+    /**
+     * Create and/or update the activities for a number of contacts and seasons in a single request to the CRM.  Each call succeeds or
+     * fails independently of the others.
+     *
+     * @param activities the activity calls to make
+     * @return the outcome of each call, in the same order as the given calls
+     */
+    @NonNull
+    List<CrmCallResult> callActivities(List<CrmActivity.CrmActivityQuery> activities);
+
     /**
      * Get the roles associated with an AD user in the CRM
      *
@@ -56,4 +70,15 @@ public interface CrmLookupService {
      */
     @NonNull
     List<String> getAuthenticatedUserRoles(String username, String password);
+
+    /**
+     * Normalise a licence lookup parameter, ignoring case and whitespace, so that equivalent lookups make the same query to the CRM (and
+     * share a cache entry)
+     *
+     * @param value the licence number or postcode
+     * @return the normalised value
+     */
+    static String normaliseLicenceParameter(final String value) {
+        return StringUtils.upperCase(StringUtils.deleteWhitespace(value), Locale.ENGLISH);
+    }
 }
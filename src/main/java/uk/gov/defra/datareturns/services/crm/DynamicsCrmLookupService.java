@@ -1,32 +1,41 @@
 package uk.gov.defra.datareturns.services.crm;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.annotation.Scope;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
+import uk.gov.defra.datareturns.config.CacheManagerConfiguration;
 import uk.gov.defra.datareturns.config.DynamicsConfiguration;
 import uk.gov.defra.datareturns.data.model.licences.Contact;
 import uk.gov.defra.datareturns.data.model.licences.Licence;
 import uk.gov.defra.datareturns.services.aad.TokenService;
 import uk.gov.defra.datareturns.services.crm.entity.CrmActivity;
 import uk.gov.defra.datareturns.services.crm.entity.CrmCall;
+import uk.gov.defra.datareturns.services.crm.entity.CrmCallResult;
 import uk.gov.defra.datareturns.services.crm.entity.CrmLicence;
 import uk.gov.defra.datareturns.services.crm.entity.CrmResponseEntity;
 import uk.gov.defra.datareturns.services.crm.entity.CrmRoles;
+import uk.gov.defra.datareturns.services.crm.rest.ODataBatch;
 
 import javax.inject.Provider;
 import javax.validation.Validator;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -42,8 +51,12 @@ import static uk.gov.defra.datareturns.services.crm.entity.CrmActivity.Status.SU
 @Service
 @RequiredArgsConstructor
 @Scope(BeanDefinition.SCOPE_SINGLETON)
+@CacheConfig(cacheManager = CacheManagerConfiguration.LICENCE_CACHE_MANAGER)
 @Slf4j
 public class DynamicsCrmLookupService implements CrmLookupService {
+    private static final String PREFER_HEADER = "Prefer";
+    private static final ObjectMapper MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
     /**
      * The dynamics configuration
      */
@@ -70,17 +83,22 @@ public class DynamicsCrmLookupService implements CrmLookupService {
     private final TokenService tokenService;
 
     @Override
+    @Cacheable(cacheNames = CacheManagerConfiguration.LICENCE_CACHE, keyGenerator = CacheManagerConfiguration.LICENCE_KEY_GENERATOR,
+               sync = true)
     public Optional<Licence> getLicence(final String licenceNumber, final String postcode) {
         final CrmLicence.LicenceQuery licenceQuery = new CrmLicence.LicenceQuery();
-        licenceQuery.setQueryParams(CrmLicence.QueryParams.of(licenceNumber, postcode));
+        licenceQuery.setQueryParams(CrmLicence.QueryParams.of(CrmLookupService.normaliseLicenceParameter(licenceNumber),
+                CrmLookupService.normaliseLicenceParameter(postcode)));
         return callCRM(dynamicsClientRestTemplate.get(), licenceQuery, null);
     }
 
     @Override
+    @Cacheable(cacheNames = CacheManagerConfiguration.FULL_LICENCE_CACHE, keyGenerator = CacheManagerConfiguration.LICENCE_KEY_GENERATOR,
+               sync = true)
     public Optional<Licence> getLicence(final String fullLicenceNumber) {
         String entity = "defra_permissions";
         MultiValueMap<String, String> queryMap = new LinkedMultiValueMap<>();
-        queryMap.add("$filter", "defra_name eq '" + fullLicenceNumber + "'");
+        queryMap.add("$filter", "defra_name eq '" + CrmLookupService.normaliseLicenceParameter(fullLicenceNumber) + "'");
         queryMap.add("$expand", "defra_ContactId");
         queryMap.add("$select", "defra_name");
 
@@ -112,6 +130,40 @@ public class DynamicsCrmLookupService implements CrmLookupService {
         callCRM(dynamicsClientRestTemplate.get(), query, null);
     }
 
+    @Override
+    @NonNull
+    public List<CrmCallResult> callActivities(final List<CrmActivity.CrmActivityQuery> activities) {
+        if (activities.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final ODataBatch.Request batch = ODataBatch.request();
+        for (final CrmActivity.CrmActivityQuery query : activities) {
+            final URI storedProcedure = endpointConfiguration.getApiStoredProcedureEndpoint(query.getQueryName());
+            batch.add(HttpMethod.POST, storedProcedure, toJson(query.getQueryParams()));
+        }
+        final ODataBatch.Encoded request = batch.encode();
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(request.getContentType());
+        headers.set(PREFER_HEADER, ODataBatch.CONTINUE_ON_ERROR);
+        final ResponseEntity<String> response = dynamicsClientRestTemplate.get().exchange(endpointConfiguration.getApiBatchEndpoint(),
+                HttpMethod.POST, new HttpEntity<>(request.getContent(), headers), String.class);
+
+        final MediaType responseType = response.getHeaders().getContentType();
+        final List<ODataBatch.Response> responses = responseType != null && response.getBody() != null
+                ? ODataBatch.decodeResponses(responseType, response.getBody()) : Collections.emptyList();
+        final List<CrmCallResult> results = new ArrayList<>(activities.size());
+        for (int i = 0; i < activities.size(); i++) {
+            if (i >= responses.size()) {
+                results.add(CrmCallResult.failure("No response to batch operation"));
+            } else if (responses.get(i).isSuccessful()) {
+                results.add(CrmCallResult.success());
+            } else {
+                results.add(CrmCallResult.failure(responses.get(i).getStatus() + " " + responses.get(i).getBody()));
+            }
+        }
+        return results;
+    }
+
     @Override
     @NonNull
     public List<String> getAuthenticatedUserRoles(final String username, final String password) {
@@ -145,6 +197,14 @@ public class DynamicsCrmLookupService implements CrmLookupService {
         return result;
     }
 
+    private static String toJson(final Object value) {
+        try {
+            return MAPPER.writeValueAsString(value);
+        } catch (final JsonProcessingException e) {
+            throw new IllegalArgumentException("Unable to serialise CRM query parameters", e);
+        }
+    }
+
     /**
      * Generic CRM call method with query - uses the spring rest template
      *
@@ -2,6 +2,7 @@ package uk.gov.defra.datareturns.services.crm;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.hamcrest.Matchers;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
@@ -17,14 +18,20 @@ import org.springframework.test.web.client.match.MockRestRequestMatchers;
 import org.springframework.util.Assert;
 import org.springframework.web.client.RestTemplate;
 import uk.gov.defra.datareturns.services.aad.MockTokenServiceImpl;
+import uk.gov.defra.datareturns.services.crm.entity.CrmActivity;
 import uk.gov.defra.datareturns.services.crm.entity.CrmContactResponse;
 import uk.gov.defra.datareturns.services.crm.entity.CrmLicence;
 import uk.gov.defra.datareturns.services.crm.entity.CrmLicenceResponse;
 import uk.gov.defra.datareturns.services.crm.entity.CrmResponseEntity;
 import uk.gov.defra.datareturns.services.crm.entity.CrmRoles;
+import uk.gov.defra.datareturns.services.crm.rest.ODataBatch;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -106,6 +113,42 @@ public final class DynamicsMockServer {
                 request -> new MockClientHttpResponse(new byte[] {}, HttpStatus.CREATED));
     }
 
+    private static void setupBatchMock(final MockRestServiceServer restServiceServer) {
+        setupCrmMock(restServiceServer, HttpMethod.POST, "/api/data/v9.0/" + ODataBatch.BATCH_PATH, request -> {
+            final MockClientHttpRequest mockRequest = (MockClientHttpRequest) request;
+            final List<ODataBatch.Response> responses = new ArrayList<>();
+            for (final ODataBatch.Operation operation : ODataBatch.decodeOperations(request.getHeaders().getContentType(),
+                    mockRequest.getBodyAsString())) {
+                responses.add(respondToBatchOperation(operation));
+            }
+            final ODataBatch.Encoded encoded = ODataBatch.encodeResponses(responses);
+            final MockClientHttpResponse response = new MockClientHttpResponse(encoded.getContent().getBytes(StandardCharsets.UTF_8),
+                    HttpStatus.OK);
+            response.getHeaders().setContentType(encoded.getContentType());
+            return response;
+        });
+    }
+
+    /**
+     * Emulate the activity stored procedures within a batch - activities are rejected if no contact is given
+     */
+    private static ODataBatch.Response respondToBatchOperation(final ODataBatch.Operation operation) throws IOException {
+        final String path = operation.getUri().getPath();
+        if (!HttpMethod.POST.equals(operation.getMethod())
+                || !(path.endsWith("/defra_CreateRCRActivity") || path.endsWith("/defra_UpdateRCRActivity"))) {
+            return new ODataBatch.Response(HttpStatus.NOT_FOUND.value(), batchError("Resource not found for the segment " + path));
+        }
+        final CrmActivity.QueryParams params = MAPPER.readValue(operation.getBody(), CrmActivity.QueryParams.class);
+        if (StringUtils.isBlank(params.getContactId())) {
+            return new ODataBatch.Response(HttpStatus.BAD_REQUEST.value(), batchError("ContactId is required"));
+        }
+        return new ODataBatch.Response(HttpStatus.NO_CONTENT.value(), null);
+    }
+
+    private static String batchError(final String message) throws IOException {
+        return MAPPER.writeValueAsString(Collections.singletonMap("error", Collections.singletonMap("message", message)));
+    }
+
     private static void setupGetRcrRolesByUserMock(final MockRestServiceServer restServiceServer) {
         setupCrmMock(restServiceServer, HttpMethod.POST, "/api/data/v9.0/defra_GetRcrRolesByUser", request -> {
             Assert.notNull(request, "request should not be null");
@@ -141,6 +184,7 @@ public final class DynamicsMockServer {
         setupGetContactByFullLicenceNumberMock(restServiceServer);
         setupCreateRCRActivityMock(restServiceServer);
         setupUpdateRCRActivityMock(restServiceServer);
+        setupBatchMock(restServiceServer);
         setupGetRcrRolesByUserMock(restServiceServer);
         return restServiceServer;
     }
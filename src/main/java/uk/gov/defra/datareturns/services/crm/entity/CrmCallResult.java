@@ -0,0 +1,39 @@
+package uk.gov.defra.datareturns.services.crm.entity;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The outcome of a single call made to the CRM as part of a batch
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class CrmCallResult {
+    private static final CrmCallResult SUCCESS = new CrmCallResult(true, null);
+
+    /**
+     * Did the call succeed
+     */
+    private final boolean successful;
+
+    /**
+     * The error reported for a failed call
+     */
+    private final String error;
+
+    /**
+     * @return the result of a successful call
+     */
+    public static CrmCallResult success() {
+        return SUCCESS;
+    }
+
+    /**
+     * @param error the error reported for the call
+     * @return the result of a failed call
+     */
+    public static CrmCallResult failure(final String error) {
+        return new CrmCallResult(false, error);
+    }
+}
@@ -0,0 +1,266 @@
+package uk.gov.defra.datareturns.services.crm.rest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.Assert;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Encoding and decoding of OData {@code $batch} requests (as supported by the Dynamics Web API).
+ * <p>
+ * Batches are sent as {@code multipart/mixed} content, each part holding a complete HTTP request.  Operations are not wrapped in a
+ * change set, so each succeeds or fails independently, and the {@code odata.continue-on-error} preference is sent so that the response
+ * contains a part for every operation, in the order the operations were given.
+ */
+public final class ODataBatch {
+    /**
+     * The path of the batch endpoint (relative to the Web API path)
+     */
+    public static final String BATCH_PATH = "$batch";
+
+    /**
+     * The preference requesting that the remaining operations of a batch are processed after an operation fails
+     */
+    public static final String CONTINUE_ON_ERROR = "odata.continue-on-error";
+
+    private static final String CRLF = "\r\n";
+    private static final String BOUNDARY = "boundary";
+    private static final Pattern REQUEST_LINE = Pattern.compile("^(?<method>[A-Z]+) (?<uri>\\S+) HTTP/1\\.1$");
+    private static final Pattern STATUS_LINE = Pattern.compile("^HTTP/1\\.1 (?<status>\\d{3})(?: .*)?$");
+
+    private ODataBatch() {
+    }
+
+    /**
+     * Create a new (empty) batch request
+     *
+     * @return the new batch request
+     */
+    public static Request request() {
+        return new Request("batch_" + UUID.randomUUID());
+    }
+
+    /**
+     * Encode the responses to the operations of a batch
+     *
+     * @param responses the operation responses, in the order the operations were given
+     * @return the encoded batch response
+     */
+    public static Encoded encodeResponses(final List<Response> responses) {
+        final String boundary = "batchresponse_" + UUID.randomUUID();
+        final StringBuilder body = new StringBuilder();
+        for (final Response response : responses) {
+            final HttpStatus status = HttpStatus.valueOf(response.getStatus());
+            startPart(body, boundary);
+            body.append("HTTP/1.1 ").append(status.value()).append(' ').append(status.getReasonPhrase()).append(CRLF);
+            appendContent(body, response.getBody());
+        }
+        body.append("--").append(boundary).append("--").append(CRLF);
+        return new Encoded(multipart(boundary), body.toString());
+    }
+
+    /**
+     * Decode the operations of a batch request
+     *
+     * @param contentType the content type of the batch request
+     * @param content     the batch request content
+     * @return the operations, in the order given in the batch
+     */
+    public static List<Operation> decodeOperations(final MediaType contentType, final String content) {
+        final List<Operation> operations = new ArrayList<>();
+        for (final Part part : split(contentType, content)) {
+            final Matcher matcher = REQUEST_LINE.matcher(part.startLine);
+            Assert.isTrue(matcher.matches(), "Invalid batch request line: " + part.startLine);
+            operations.add(new Operation(HttpMethod.valueOf(matcher.group("method")), URI.create(matcher.group("uri")), part.body));
+        }
+        return operations;
+    }
+
+    /**
+     * Decode the responses to the operations of a batch
+     *
+     * @param contentType the content type of the batch response
+     * @param content     the batch response content
+     * @return the operation responses, in the order the operations were given
+     */
+    public static List<Response> decodeResponses(final MediaType contentType, final String content) {
+        final List<Response> responses = new ArrayList<>();
+        for (final Part part : split(contentType, content)) {
+            final Matcher matcher = STATUS_LINE.matcher(part.startLine);
+            Assert.isTrue(matcher.matches(), "Invalid batch response status line: " + part.startLine);
+            responses.add(new Response(Integer.parseInt(matcher.group("status")), part.body));
+        }
+        return responses;
+    }
+
+    private static MediaType multipart(final String boundary) {
+        return new MediaType(MediaType.MULTIPART_MIXED, Collections.singletonMap(BOUNDARY, boundary));
+    }
+
+    private static void startPart(final StringBuilder body, final String boundary) {
+        body.append("--").append(boundary).append(CRLF);
+        body.append("Content-Type: application/http").append(CRLF);
+        body.append("Content-Transfer-Encoding: binary").append(CRLF);
+        body.append(CRLF);
+    }
+
+    private static void appendContent(final StringBuilder body, final String content) {
+        if (content != null && !content.isEmpty()) {
+            body.append("Content-Type: application/json; charset=utf-8").append(CRLF);
+            body.append(CRLF);
+            body.append(content).append(CRLF);
+        } else {
+            body.append(CRLF);
+        }
+    }
+
+    /**
+     * Split multipart content into the HTTP messages held by each part
+     */
+    private static List<Part> split(final MediaType contentType, final String content) {
+        final String boundary = contentType.getParameter(BOUNDARY);
+        Assert.hasText(boundary, "Batch content type has no boundary: " + contentType);
+        final List<Part> parts = new ArrayList<>();
+        final String[] sections = content.split("(?:\r?\n)?--" + Pattern.quote(boundary));
+        // the first section is the (empty) preamble and the last follows the closing delimiter
+        for (int i = 1; i < sections.length; i++) {
+            final String section = sections[i];
+            if (section.startsWith("--")) {
+                break;
+            }
+            // skip the part headers to reach the HTTP message, then separate the head of the message from its body
+            final String[] headersAndMessage = section.split("\r?\n\r?\n", 2);
+            Assert.isTrue(headersAndMessage.length == 2, "Invalid batch part: " + section);
+            final String[] headAndBody = headersAndMessage[1].split("\r?\n\r?\n", 2);
+            final String startLine = headAndBody[0].split("\r?\n", 2)[0].trim();
+            final String body = headAndBody.length > 1 ? headAndBody[1].trim() : "";
+            parts.add(new Part(startLine, body));
+        }
+        return parts;
+    }
+
+    /**
+     * A batch request under construction
+     */
+    public static final class Request {
+        private final String boundary;
+        private final StringBuilder body = new StringBuilder();
+        private int operations;
+
+        private Request(final String boundary) {
+            this.boundary = boundary;
+        }
+
+        /**
+         * Add an operation to the batch
+         *
+         * @param method the HTTP method of the operation
+         * @param uri    the absolute URI of the operation
+         * @param json   the JSON request body of the operation (may be null)
+         * @return this batch request
+         */
+        public Request add(final HttpMethod method, final URI uri, final String json) {
+            startPart(body, boundary);
+            body.append(method.name()).append(' ').append(uri).append(" HTTP/1.1").append(CRLF);
+            appendContent(body, json);
+            operations++;
+            return this;
+        }
+
+        /**
+         * @return the number of operations in the batch
+         */
+        public int size() {
+            return operations;
+        }
+
+        /**
+         * @return the encoded batch request
+         */
+        public Encoded encode() {
+            return new Encoded(multipart(boundary), body + "--" + boundary + "--" + CRLF);
+        }
+    }
+
+    /**
+     * An encoded batch request or response
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Encoded {
+        /**
+         * The multipart content type (including the boundary)
+         */
+        private final MediaType contentType;
+
+        /**
+         * The multipart content
+         */
+        private final String content;
+    }
+
+    /**
+     * An operation read from a batch request
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Operation {
+        /**
+         * The HTTP method of the operation
+         */
+        private final HttpMethod method;
+
+        /**
+         * The URI of the operation
+         */
+        private final URI uri;
+
+        /**
+         * The request body of the operation (empty if none)
+         */
+        private final String body;
+    }
+
+    /**
+     * The response to a single operation of a batch
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Response {
+        /**
+         * The HTTP status code of the operation
+         */
+        private final int status;
+
+        /**
+         * The response body of the operation (empty if none)
+         */
+        private final String body;
+
+        /**
+         * @return true if the operation succeeded
+         */
+        public boolean isSuccessful() {
+            return status >= HttpStatus.OK.value() && status < HttpStatus.MULTIPLE_CHOICES.value();
+        }
+    }
+
+    /**
+     * A part of multipart batch content, the start line and body of the HTTP message it holds
+     */
+    @AllArgsConstructor
+    private static final class Part {
+        private final String startLine;
+        private final String body;
+    }
+}
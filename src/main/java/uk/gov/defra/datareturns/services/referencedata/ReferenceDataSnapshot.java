@@ -0,0 +1,104 @@
+package uk.gov.defra.datareturns.services.referencedata;
+
+import lombok.Getter;
+import uk.gov.defra.datareturns.data.model.catchments.Catchment;
+import uk.gov.defra.datareturns.data.model.grilse.GrilseWeightGate;
+import uk.gov.defra.datareturns.data.model.method.Method;
+import uk.gov.defra.datareturns.data.model.regions.Region;
+import uk.gov.defra.datareturns.data.model.rivers.River;
+import uk.gov.defra.datareturns.data.model.species.Species;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * An immutable, versioned snapshot of the reference data (regions, catchments, rivers, species, methods and grilse weight gates).
+ * <p>
+ * The entities are detached: their many-to-one associations (e.g. river to catchment to region) are loaded with the snapshot but their
+ * collections are not, so they may be used to resolve and validate references but must not be modified.
+ */
+@Getter
+public final class ReferenceDataSnapshot {
+    /**
+     * The version of the snapshot, incremented each time the reference data is reloaded
+     */
+    private final long version;
+
+    /**
+     * The time at which the snapshot was loaded
+     */
+    private final Instant loaded;
+
+    private final Table<Region> regions;
+    private final Table<Catchment> catchments;
+    private final Table<River> rivers;
+    private final Table<Species> species;
+    private final Table<Method> methods;
+    private final Table<GrilseWeightGate> gates;
+
+    ReferenceDataSnapshot(final long version, final List<Region> regions, final List<Catchment> catchments, final List<River> rivers,
+                          final List<Species> species, final List<Method> methods, final List<GrilseWeightGate> gates) {
+        this.version = version;
+        this.loaded = Instant.now();
+        this.regions = Table.of(regions, Region::getId);
+        this.catchments = Table.of(catchments, Catchment::getId);
+        this.rivers = Table.of(rivers, River::getId);
+        this.species = Table.of(species, Species::getId);
+        this.methods = Table.of(methods, Method::getId);
+        this.gates = Table.of(gates, GrilseWeightGate::getId);
+    }
+
+    /**
+     * The entities of a single type, indexed by id
+     *
+     * @param <E> the entity type
+     */
+    public static final class Table<E> {
+        private final Object[] byId;
+        private final List<E> all;
+
+        private Table(final Object[] byId, final List<E> all) {
+            this.byId = byId;
+            this.all = all;
+        }
+
+        private static <E> Table<E> of(final List<E> entities, final Function<E, Long> idFunction) {
+            final List<E> sorted = new ArrayList<>(entities);
+            sorted.sort(Comparator.comparing(idFunction));
+            // identifiers are allocated from a sequence, so the index is dense enough to address directly
+            final long maxId = sorted.isEmpty() ? 0 : idFunction.apply(sorted.get(sorted.size() - 1));
+            final Object[] byId = new Object[Math.toIntExact(maxId + 1)];
+            for (final E entity : sorted) {
+                byId[Math.toIntExact(idFunction.apply(entity))] = entity;
+            }
+            return new Table<>(byId, Collections.unmodifiableList(sorted));
+        }
+
+        /**
+         * @param id the entity id
+         * @return the entity with the given id, or null if there is no such entity
+         */
+        @SuppressWarnings("unchecked")
+        public E get(final Long id) {
+            return id != null && id >= 0 && id < byId.length ? (E) byId[id.intValue()] : null;
+        }
+
+        /**
+         * @return all of the entities, in id order
+         */
+        public List<E> getAll() {
+            return all;
+        }
+
+        /**
+         * @return the number of entities
+         */
+        public int size() {
+            return all.size();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package uk.gov.defra.datareturns.services.referencedata;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.rest.core.annotation.HandleAfterCreate;
+import org.springframework.data.rest.core.annotation.HandleAfterDelete;
+import org.springframework.data.rest.core.annotation.HandleAfterSave;
+import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
+import org.springframework.stereotype.Component;
+import uk.gov.defra.datareturns.data.model.catchments.Catchment;
+import uk.gov.defra.datareturns.data.model.grilse.GrilseWeightGate;
+import uk.gov.defra.datareturns.data.model.method.Method;
+import uk.gov.defra.datareturns.data.model.regions.Region;
+import uk.gov.defra.datareturns.data.model.rivers.River;
+import uk.gov.defra.datareturns.data.model.species.Species;
+
+/**
+ * Used to intercept changes to the reference data and reload the {@link ReferenceDataSnapshot} once they have been committed
+ */
+@Component
+@RepositoryEventHandler
+@RequiredArgsConstructor
+public class ReferenceDataSnapshotInvalidator {
+    private final ReferenceDataSnapshotService snapshotService;
+
+    @HandleAfterCreate
+    @HandleAfterSave
+    @HandleAfterDelete
+    public void regionChanged(final Region region) {
+        snapshotService.reloadAfterCommit();
+    }
+
+    @HandleAfterCreate
+    @HandleAfterSave
+    @HandleAfterDelete
+    public void catchmentChanged(final Catchment catchment) {
+        snapshotService.reloadAfterCommit();
+    }
+
+    @HandleAfterCreate
+    @HandleAfterSave
+    @HandleAfterDelete
+    public void riverChanged(final River river) {
+        snapshotService.reloadAfterCommit();
+    }
+
+    @HandleAfterCreate
+    @HandleAfterSave
+    @HandleAfterDelete
+    public void speciesChanged(final Species species) {
+        snapshotService.reloadAfterCommit();
+    }
+
+    @HandleAfterCreate
+    @HandleAfterSave
+    @HandleAfterDelete
+    public void methodChanged(final Method method) {
+        snapshotService.reloadAfterCommit();
+    }
+
+    @HandleAfterCreate
+    @HandleAfterSave
+    @HandleAfterDelete
+    public void gateChanged(final GrilseWeightGate gate) {
+        snapshotService.reloadAfterCommit();
+    }
+}
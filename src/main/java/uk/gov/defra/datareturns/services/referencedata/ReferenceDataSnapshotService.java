@@ -0,0 +1,195 @@
+package uk.gov.defra.datareturns.services.referencedata;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.defra.datareturns.data.model.catchments.CatchmentRepository;
+import uk.gov.defra.datareturns.data.model.grilse.GrilseWeightGateRepository;
+import uk.gov.defra.datareturns.data.model.method.Method;
+import uk.gov.defra.datareturns.data.model.method.MethodRepository;
+import uk.gov.defra.datareturns.data.model.regions.RegionRepository;
+import uk.gov.defra.datareturns.data.model.rivers.River;
+import uk.gov.defra.datareturns.data.model.rivers.RiverRepository;
+import uk.gov.defra.datareturns.data.model.species.Species;
+import uk.gov.defra.datareturns.data.model.species.SpeciesRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Holds the current {@link ReferenceDataSnapshot}.
+ * <p>
+ * The snapshot is loaded at startup and reloaded once a change to the reference data has been committed (and periodically, to pick up
+ * changes made through other instances).  A new snapshot is loaded completely before it replaces the current one, so readers always see
+ * a single consistent version of the reference data without making any queries.
+ * <p>
+ * An entity which is not in the snapshot (e.g. one created through another instance since the snapshot was loaded) is looked up in the
+ * database by {@link #getRiver(Long)}, {@link #getSpecies(Long)} and {@link #getMethod(Long)}, and the snapshot reloaded if it is found.
+ * Changes to existing entities made through other instances are seen once the snapshot is next refreshed.
+ * <p>
+ * The hibernate second-level and query caches are local to each instance, so the snapshot is always read from the database (refreshing
+ * the cached entities and queries as it goes) rather than from entries which may have been cached before a change made elsewhere.
+ */
+@Service
+@Slf4j
+public class ReferenceDataSnapshotService {
+    private final AtomicReference<ReferenceDataSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate currentTransaction;
+    private final RegionRepository regionRepository;
+    private final CatchmentRepository catchmentRepository;
+    private final RiverRepository riverRepository;
+    private final SpeciesRepository speciesRepository;
+    private final MethodRepository methodRepository;
+    private final GrilseWeightGateRepository gateRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ReferenceDataSnapshotService(final PlatformTransactionManager transactionManager,
+                                        final RegionRepository regionRepository,
+                                        final CatchmentRepository catchmentRepository,
+                                        final RiverRepository riverRepository,
+                                        final SpeciesRepository speciesRepository,
+                                        final MethodRepository methodRepository,
+                                        final GrilseWeightGateRepository gateRepository) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // Lookups of single entities join the caller's transaction (if any) rather than holding a second connection
+        this.currentTransaction = new TransactionTemplate(transactionManager);
+        this.currentTransaction.setReadOnly(true);
+        this.currentTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_SUPPORTS);
+        this.regionRepository = regionRepository;
+        this.catchmentRepository = catchmentRepository;
+        this.riverRepository = riverRepository;
+        this.speciesRepository = speciesRepository;
+        this.methodRepository = methodRepository;
+        this.gateRepository = gateRepository;
+    }
+
+    /**
+     * @return the current reference data snapshot
+     */
+    public ReferenceDataSnapshot getSnapshot() {
+        final ReferenceDataSnapshot current = snapshot.get();
+        return current != null ? current : reload();
+    }
+
+    /**
+     * @param id the river id
+     * @return the river with the given id, or null if there is no such river
+     */
+    public River getRiver(final Long id) {
+        return find(ReferenceDataSnapshot::getRivers, riverRepository, id);
+    }
+
+    /**
+     * @param id the species id
+     * @return the species with the given id, or null if there is no such species
+     */
+    public Species getSpecies(final Long id) {
+        return find(ReferenceDataSnapshot::getSpecies, speciesRepository, id);
+    }
+
+    /**
+     * @param id the method id
+     * @return the method with the given id, or null if there is no such method
+     */
+    public Method getMethod(final Long id) {
+        return find(ReferenceDataSnapshot::getMethods, methodRepository, id);
+    }
+
+    /**
+     * Find an entity in the current snapshot, reloading the snapshot should the entity exist in the database but not in the snapshot
+     */
+    private <E> E find(final Function<ReferenceDataSnapshot, ReferenceDataSnapshot.Table<E>> table,
+                       final CrudRepository<E, Long> repository, final Long id) {
+        final E entity = table.apply(getSnapshot()).get(id);
+        if (entity != null || id == null || !Boolean.TRUE.equals(readFromDatabase(currentTransaction, () -> repository.existsById(id)))) {
+            return entity;
+        }
+        log.debug("Reference data entity {} not found in snapshot, reloading", id);
+        return table.apply(reload()).get(id);
+    }
+
+    /**
+     * Load the snapshot at startup so that the first requests do not wait for it
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    /**
+     * Periodically reload the snapshot
+     */
+    @Scheduled(fixedDelayString = "#{@referenceDataConfiguration.refreshInterval.toMillis()}",
+               initialDelayString = "#{@referenceDataConfiguration.refreshInterval.toMillis()}")
+    public void refresh() {
+        reload();
+    }
+
+    /**
+     * Reload the snapshot once the current transaction (if any) has committed
+     */
+    public void reloadAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                }
+            });
+        } else {
+            reload();
+        }
+    }
+
+    /**
+     * Load a new snapshot and make it current
+     *
+     * @return the new snapshot
+     */
+    public synchronized ReferenceDataSnapshot reload() {
+        final ReferenceDataSnapshot loaded = readFromDatabase(readOnlyTransaction, () -> new ReferenceDataSnapshot(versions.incrementAndGet(),
+                regionRepository.findAll(), catchmentRepository.findAll(), riverRepository.findAll(), speciesRepository.findAll(),
+                methodRepository.findAll(), gateRepository.findAll()));
+        snapshot.set(loaded);
+        log.debug("Loaded reference data snapshot version {} ({} rivers, {} species, {} methods)", loaded.getVersion(),
+                loaded.getRivers().size(), loaded.getSpecies().size(), loaded.getMethods().size());
+        return loaded;
+    }
+
+    /**
+     * Execute the given query using the given transaction template, bypassing (but refreshing) the second-level and query caches.  The
+     * session's cache mode is restored afterwards as the session may belong to the caller's transaction.
+     */
+    private <T> T readFromDatabase(final TransactionTemplate transaction, final Supplier<T> query) {
+        return transaction.execute(status -> {
+            final Session session = entityManager.unwrap(Session.class);
+            final CacheMode cacheMode = session.getCacheMode();
+            session.setCacheMode(CacheMode.REFRESH);
+            try {
+                return query.get();
+            } finally {
+                session.setCacheMode(cacheMode);
+            }
+        });
+    }
+}
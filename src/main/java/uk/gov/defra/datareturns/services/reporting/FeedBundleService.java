@@ -0,0 +1,179 @@
+package uk.gov.defra.datareturns.services.reporting;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.defra.datareturns.data.model.grilse.GrilseProbability;
+import uk.gov.defra.datareturns.data.model.grilse.GrilseProbabilityRepository;
+import uk.gov.defra.datareturns.data.model.grilse.GrilseProbability_;
+import uk.gov.defra.datareturns.data.model.method.Method;
+import uk.gov.defra.datareturns.data.model.method.MethodRepository;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.FeedType;
+import uk.gov.defra.datareturns.data.model.reporting.filters.SeasonFilter;
+import uk.gov.defra.datareturns.data.model.reporting.referencedata.grilse.GrilseProbabilityEntry;
+import uk.gov.defra.datareturns.data.model.reporting.referencedata.locations.LocationEntry;
+import uk.gov.defra.datareturns.data.model.reporting.referencedata.locations.LocationEntryRepository;
+import uk.gov.defra.datareturns.data.model.species.Species;
+import uk.gov.defra.datareturns.data.model.species.SpeciesRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static uk.gov.defra.datareturns.util.CsvUtil.writeCsv;
+
+/**
+ * Produces a ZIP bundle of every reporting feed and the reference data required to interpret them.
+ * <p>
+ * Each entry is generated concurrently (using a separate database connection) to a temporary file and written into the archive as soon
+ * as it completes, so the time taken to produce a bundle is roughly that of the slowest feed.
+ */
+@Service
+@Slf4j
+public class FeedBundleService {
+    /**
+     * The export service used to write feeds
+     */
+    private final FeedExportService feedExportService;
+
+    /**
+     * The executor used to generate bundle entries concurrently
+     */
+    private final ThreadPoolTaskExecutor executor;
+
+    /**
+     * Read only transactions for reference data queries
+     */
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final LocationEntryRepository locationEntryRepository;
+    private final SpeciesRepository speciesRepository;
+    private final MethodRepository methodRepository;
+    private final GrilseProbabilityRepository grilseProbabilityRepository;
+
+    public FeedBundleService(final FeedExportService feedExportService,
+                             @Qualifier("reportingBundleExecutor") final ThreadPoolTaskExecutor executor,
+                             final PlatformTransactionManager transactionManager,
+                             final LocationEntryRepository locationEntryRepository,
+                             final SpeciesRepository speciesRepository,
+                             final MethodRepository methodRepository,
+                             final GrilseProbabilityRepository grilseProbabilityRepository) {
+        this.feedExportService = feedExportService;
+        this.executor = executor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.locationEntryRepository = locationEntryRepository;
+        this.speciesRepository = speciesRepository;
+        this.methodRepository = methodRepository;
+        this.grilseProbabilityRepository = grilseProbabilityRepository;
+    }
+
+    /**
+     * Write a ZIP bundle for the given season(s) to the given stream.  The stream is flushed but not closed.
+     *
+     * @param season the season(s) to bundle
+     * @param out    the {@link OutputStream} to write to
+     * @throws IOException if the bundle could not be generated
+     */
+    public void writeBundle(final SeasonFilter season, final OutputStream out) throws IOException {
+        final Map<String, EntryWriter> writers = new LinkedHashMap<>();
+        for (final FeedType feed : FeedType.values()) {
+            writers.put(feed.getFilename(season), o -> feedExportService.export(feed, season, o));
+        }
+        writers.put("grilse-probabilities-" + season + ".csv",
+                o -> writeEntries(GrilseProbabilityEntry.class, getGrilseProbabilities(season), o));
+        writers.put("locations.csv", o -> writeEntries(LocationEntry.class, locationEntryRepository.findAll(), o));
+        writers.put("species.csv", o -> writeEntries(Species.class, speciesRepository.findAll(), o));
+        writers.put("methods.csv", o -> writeEntries(Method.class, methodRepository.findAll(), o));
+
+        final CompletionService<BundleEntry> completionService = new ExecutorCompletionService<>(executor);
+        final List<Future<BundleEntry>> futures = new ArrayList<>();
+        final List<Path> files = new ArrayList<>();
+        try {
+            for (final Map.Entry<String, EntryWriter> writer : writers.entrySet()) {
+                final BundleEntry entry = new BundleEntry(writer.getKey(), Files.createTempFile("rcr-bundle-", ".csv"));
+                files.add(entry.file);
+                futures.add(completionService.submit(() -> {
+                    try (OutputStream fileOut = Files.newOutputStream(entry.file)) {
+                        writer.getValue().write(fileOut);
+                    }
+                    return entry;
+                }));
+            }
+
+            final ZipOutputStream zip = new ZipOutputStream(out);
+            for (int i = 0; i < futures.size(); i++) {
+                final BundleEntry entry = completionService.take().get();
+                zip.putNextEntry(new ZipEntry(entry.name));
+                Files.copy(entry.file, zip);
+                zip.closeEntry();
+                Files.deleteIfExists(entry.file);
+            }
+            zip.finish();
+            out.flush();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted generating bundle", e);
+        } catch (final ExecutionException e) {
+            throw new IOException("Unable to generate bundle", e.getCause());
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+            for (final Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private List<GrilseProbabilityEntry> getGrilseProbabilities(final SeasonFilter season) {
+        final Specification<GrilseProbability> seasonSpec = (root, query, cb) -> season.predicate(cb, root.get(GrilseProbability_.season));
+        return readOnlyTransaction.execute(status -> grilseProbabilityRepository.findAll(Specification.where(seasonSpec))
+                .stream().map(GrilseProbabilityEntry::new).collect(Collectors.toList()));
+    }
+
+    private static <T> void writeEntries(final Class<T> beanClass, final Iterable<T> entries, final OutputStream out) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeCsv(beanClass, entries, writer);
+        writer.flush();
+    }
+
+    /**
+     * Writes the content of a bundle entry
+     */
+    @FunctionalInterface
+    private interface EntryWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * A generated bundle entry awaiting addition to the archive
+     */
+    private static final class BundleEntry {
+        private final String name;
+        private final Path file;
+
+        private BundleEntry(final String name, final Path file) {
+            this.name = name;
+            this.file = file;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package uk.gov.defra.datareturns.services.reporting;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * The changes made to a reporting feed since a given watermark
+ *
+ * @param <T> the feed entity type
+ */
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class FeedChanges<T> {
+    /**
+     * The watermark the changes were requested from (epoch millis)
+     */
+    private final long since;
+
+    /**
+     * The watermark to use for the next request (epoch millis).  Consecutive requests overlap slightly so that rows committed late by
+     * a concurrent transaction are not missed, consumers should therefore apply changes idempotently.
+     */
+    private final long watermark;
+
+    /**
+     * Rows created or modified since the watermark
+     */
+    private final Collection<T> upserts;
+
+    /**
+     * Ids of rows which have been deleted or excluded from reporting since the watermark
+     */
+    private final Set<Long> tombstones;
+}
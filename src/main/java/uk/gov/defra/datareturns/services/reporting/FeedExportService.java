@@ -0,0 +1,249 @@
+package uk.gov.defra.datareturns.services.reporting;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import uk.gov.defra.datareturns.config.ReportingConfiguration;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.FeedRepository;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.FeedType;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.activities.ActivityFeedRepository;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.aggregates.ActivitySummaryFeedRepository;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.aggregates.LargeCatchSummaryFeedRepository;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.aggregates.SmallCatchCountSummaryFeedRepository;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.aggregates.SmallCatchSummaryFeedRepository;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.catches.LargeCatchFeedRepository;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.catches.SmallCatchCountFeedRepository;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.catches.SmallCatchFeedRepository;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.grilse.GrilseEstimateEntry;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.submissions.SubmissionFeedRepository;
+import uk.gov.defra.datareturns.data.model.reporting.filters.SeasonFilter;
+import uk.gov.defra.datareturns.services.reporting.grilse.GrilseEstimationService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static uk.gov.defra.datareturns.util.CsvUtil.writeCsv;
+
+/**
+ * Exports reporting feeds as CSV data.
+ * <p>
+ * Feeds are either streamed through JPA and serialised by the API, or (when configured and running against PostgreSQL) produced
+ * directly by the database using {@code COPY ... TO STDOUT} and piped straight to the output stream.  Computed feeds (the grilse
+ * estimates) are always serialised by the API.
+ */
+@Service
+@Slf4j
+public class FeedExportService {
+    /**
+     * The reporting configuration
+     */
+    private final ReportingConfiguration configuration;
+
+    /**
+     * The datasource used for COPY based exports
+     */
+    private final DataSource dataSource;
+
+    /**
+     * The feed repositories, keyed by the feed they serve
+     */
+    private final Map<FeedType, FeedRepository<?, ?>> repositories = new EnumMap<>(FeedType.class);
+
+    /**
+     * The service computing the grilse estimates feed
+     */
+    private final GrilseEstimationService grilseEstimationService;
+
+    /**
+     * The entity manager, used to detach entries once they have been exported
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public FeedExportService(final ReportingConfiguration configuration,
+                             final DataSource dataSource,
+                             final SubmissionFeedRepository submissionFeedRepository,
+                             final ActivityFeedRepository activityFeedRepository,
+                             final LargeCatchFeedRepository largeCatchFeedRepository,
+                             final SmallCatchFeedRepository smallCatchFeedRepository,
+                             final SmallCatchCountFeedRepository smallCatchCountFeedRepository,
+                             final ActivitySummaryFeedRepository activitySummaryFeedRepository,
+                             final LargeCatchSummaryFeedRepository largeCatchSummaryFeedRepository,
+                             final SmallCatchSummaryFeedRepository smallCatchSummaryFeedRepository,
+                             final SmallCatchCountSummaryFeedRepository smallCatchCountSummaryFeedRepository,
+                             final GrilseEstimationService grilseEstimationService) {
+        this.configuration = configuration;
+        this.dataSource = dataSource;
+        this.grilseEstimationService = grilseEstimationService;
+        this.repositories.put(FeedType.SUBMISSIONS, submissionFeedRepository);
+        this.repositories.put(FeedType.ACTIVITIES, activityFeedRepository);
+        this.repositories.put(FeedType.LARGE_CATCHES, largeCatchFeedRepository);
+        this.repositories.put(FeedType.SMALL_CATCHES, smallCatchFeedRepository);
+        this.repositories.put(FeedType.SMALL_CATCH_COUNTS, smallCatchCountFeedRepository);
+        this.repositories.put(FeedType.ACTIVITY_SUMMARY, activitySummaryFeedRepository);
+        this.repositories.put(FeedType.LARGE_CATCH_SUMMARY, largeCatchSummaryFeedRepository);
+        this.repositories.put(FeedType.SMALL_CATCH_SUMMARY, smallCatchSummaryFeedRepository);
+        this.repositories.put(FeedType.SMALL_CATCH_COUNT_SUMMARY, smallCatchCountSummaryFeedRepository);
+    }
+
+    /**
+     * Export the given feed as UTF-8 encoded CSV data using the configured engine.  The output stream is flushed but not closed.
+     *
+     * @param feed   the feed to export
+     * @param season the season(s) to export
+     * @param out    the {@link OutputStream} to write to
+     * @throws IOException if an IO error occurs
+     */
+    @Transactional(readOnly = true)
+    public void export(final FeedType feed, final SeasonFilter season, final OutputStream out) throws IOException {
+        export(feed, season, out, configuration.getFeedEngine());
+    }
+
+    /**
+     * Export the given feed as UTF-8 encoded CSV data using the given engine.  The output stream is flushed but not closed.
+     *
+     * @param feed   the feed to export
+     * @param season the season(s) to export
+     * @param out    the {@link OutputStream} to write to
+     * @param engine the engine to use, the JPA engine is used if COPY is requested but not supported by the database
+     * @throws IOException if an IO error occurs
+     */
+    @Transactional(readOnly = true)
+    public void export(final FeedType feed, final SeasonFilter season, final OutputStream out,
+                       final ReportingConfiguration.FeedEngine engine) throws IOException {
+        if (!ReportingConfiguration.FeedEngine.COPY.equals(engine) || feed.isComputed() || !copyOut(feed, season, out)) {
+            final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            exportEntities(feed, season, writer);
+            writer.flush();
+        }
+        out.flush();
+    }
+
+    /**
+     * Compute a validator for the content of the given feed using a single aggregate query over the underlying tables.
+     *
+     * @param feed   the feed to validate
+     * @param season the season(s) to validate
+     * @return the {@link FeedValidator} for the current feed content
+     */
+    @Transactional(readOnly = true)
+    public FeedValidator getValidator(final FeedType feed, final SeasonFilter season) {
+        final Object[] result = (Object[]) entityManager.createNativeQuery(feed.getValidatorQuery())
+                .setParameter("minSeason", season.getMinSeason())
+                .setParameter("maxSeason", season.getMaxSeason())
+                .getSingleResult();
+        final long rows = ((Number) result[0]).longValue();
+        final long lastModified = result[1] != null ? ((Date) result[1]).getTime() : -1;
+        final long checksum = ((Number) result[2]).longValue();
+        // The engine is included as the CSV formatting differs slightly between the engines
+        final String etag = String.format("\"%s-%s-%s-%d-%d-%d\"", feed.getPath(), season, configuration.getFeedEngine().name().toLowerCase(),
+                rows, lastModified, checksum);
+        return FeedValidator.of(etag, lastModified);
+    }
+
+    /**
+     * Retrieve the rows of the given feed which have been created, modified, deleted or excluded from reporting since the given watermark
+     *
+     * @param feed   the feed to retrieve changes for
+     * @param season the season(s) to retrieve changes for
+     * @param since  the watermark (epoch millis) to retrieve changes from
+     * @return the {@link FeedChanges} including the watermark for the next request
+     */
+    @Transactional(readOnly = true)
+    public FeedChanges<?> getChanges(final FeedType feed, final SeasonFilter season, final long since) {
+        // Taken before querying so that changes made while the queries run are included in the next request
+        final long watermark = Math.max(since, System.currentTimeMillis() - configuration.getDeltaOverlap().toMillis());
+        final Timestamp sinceTimestamp = new Timestamp(since);
+
+        final List<?> upserts = entityManager.createNativeQuery(feed.getModifiedRowsQuery(), feed.getFeedClass())
+                .setParameter("minSeason", season.getMinSeason())
+                .setParameter("maxSeason", season.getMaxSeason())
+                .setParameter("since", sinceTimestamp)
+                .getResultList();
+
+        final Set<Long> tombstones = new TreeSet<>();
+        entityManager.createNativeQuery(feed.getExcludedRowsQuery())
+                .setParameter("minSeason", season.getMinSeason())
+                .setParameter("maxSeason", season.getMaxSeason())
+                .setParameter("since", sinceTimestamp)
+                .getResultList().forEach(id -> tombstones.add(((Number) id).longValue()));
+        entityManager.createNativeQuery(feed.getDeletedRowsQuery())
+                .setParameter("sinceRevision", since)
+                .getResultList().forEach(id -> tombstones.add(((Number) id).longValue()));
+        return FeedChanges.of(since, watermark, upserts, tombstones);
+    }
+
+    /**
+     * Check if the COPY engine is supported by the underlying database
+     *
+     * @return true if the database supports COPY based exports, false otherwise
+     */
+    @Transactional(readOnly = true)
+    public boolean isCopySupported() {
+        final Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return connection.isWrapperFor(PGConnection.class);
+        } catch (final SQLException e) {
+            return false;
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void exportEntities(final FeedType feed, final SeasonFilter season, final Writer writer) {
+        if (FeedType.GRILSE_ESTIMATES.equals(feed)) {
+            writeCsv(GrilseEstimateEntry.class, grilseEstimationService.estimate(season), writer);
+            return;
+        }
+        final FeedRepository<T, ?> repository = (FeedRepository<T, ?>) repositories.get(feed);
+        try (Stream<T> entries = repository.streamBySeasonBetween(season.getMinSeason(), season.getMaxSeason())) {
+            // Detach each entry once read so that the heap used by an export does not grow with the number of rows written
+            writeCsv((Class<T>) feed.getFeedClass(), entries.peek(entityManager::detach), writer);
+        }
+    }
+
+    /**
+     * Export the given feed using PostgreSQL's COPY command
+     *
+     * @return true if the feed was exported, false if COPY is not supported by the database
+     */
+    private boolean copyOut(final FeedType feed, final SeasonFilter season, final OutputStream out) throws IOException {
+        final Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            if (!connection.isWrapperFor(PGConnection.class)) {
+                log.debug("COPY export engine not supported by the database, falling back to JPA");
+                return false;
+            }
+            // COPY does not support bind parameters, the season bounds are numeric so are safe to inline
+            final String sql = String.format("COPY (select %s from %s where season between %d and %d) TO STDOUT WITH CSV HEADER",
+                    feed.getColumns(), feed.getView(), season.getMinSeason(), season.getMaxSeason());
+            final long rows = connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, out);
+            log.debug("Exported {} rows from {} using COPY", rows, feed.getView());
+            return true;
+        } catch (final SQLException e) {
+            throw new IOException("Unable to export " + feed.getView() + " using COPY", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package uk.gov.defra.datareturns.services.reporting;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.rest.core.annotation.HandleAfterCreate;
+import org.springframework.data.rest.core.annotation.HandleAfterDelete;
+import org.springframework.data.rest.core.annotation.HandleAfterSave;
+import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
+import org.springframework.stereotype.Component;
+import uk.gov.defra.datareturns.data.model.activities.Activity;
+import uk.gov.defra.datareturns.data.model.catches.Catch;
+import uk.gov.defra.datareturns.data.model.smallcatches.SmallCatch;
+import uk.gov.defra.datareturns.data.model.submissions.Submission;
+
+/**
+ * Used to intercept changes to submissions and their children (including toggling reportingExclude) and invalidate the reporting feed
+ * snapshots for the season of the submission
+ */
+@Component
+@RepositoryEventHandler
+@RequiredArgsConstructor
+public class FeedSnapshotInvalidator {
+    private final FeedSnapshotService snapshotService;
+
+    @HandleAfterCreate
+    @HandleAfterSave
+    @HandleAfterDelete
+    public void submissionChanged(final Submission submission) {
+        snapshotService.invalidate(submission.getSeason());
+    }
+
+    @HandleAfterCreate
+    @HandleAfterSave
+    @HandleAfterDelete
+    public void activityChanged(final Activity activity) {
+        submissionChanged(activity.getSubmission());
+    }
+
+    @HandleAfterCreate
+    @HandleAfterSave
+    @HandleAfterDelete
+    public void catchChanged(final Catch largeCatch) {
+        activityChanged(largeCatch.getActivity());
+    }
+
+    @HandleAfterCreate
+    @HandleAfterSave
+    @HandleAfterDelete
+    public void smallCatchChanged(final SmallCatch smallCatch) {
+        activityChanged(smallCatch.getActivity());
+    }
+}
@@ -0,0 +1,182 @@
+package uk.gov.defra.datareturns.services.reporting;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import uk.gov.defra.datareturns.config.ReportingConfiguration;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.FeedType;
+import uk.gov.defra.datareturns.data.model.reporting.filters.SeasonFilter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Year;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Manages pre-rendered reporting feed snapshots.
+ * <p>
+ * Each feed is rendered per season to a plain and a gzip compressed CSV file, alongside the {@link FeedValidator} entity tag of the data
+ * it was rendered from.  A snapshot is only considered fresh while its entity tag matches the current validator for the feed, so any
+ * change to the underlying data (including toggling reportingExclude) causes a fall back to live generation until it is re-rendered.
+ * <p>
+ * Renders of the same feed and season are serialised, so that the files of one render are never paired with the entity tag of another.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class FeedSnapshotService {
+    private static final String CSV_EXTENSION = ".csv";
+    private static final String GZIP_EXTENSION = ".csv.gz";
+    private static final String ETAG_EXTENSION = ".etag";
+
+    /**
+     * The snapshot configuration
+     */
+    private final ReportingConfiguration.Snapshot configuration;
+
+    /**
+     * The export service used to render snapshots
+     */
+    private final FeedExportService feedExportService;
+
+    /**
+     * Locks held while rendering, keyed by feed and season
+     */
+    private final ConcurrentMap<String, Object> renderLocks = new ConcurrentHashMap<>();
+
+    /**
+     * Retrieve a fresh snapshot for the given feed
+     *
+     * @param feed      the feed to retrieve a snapshot for
+     * @param season    the season filter requested, only filters for a single season can be served from a snapshot
+     * @param validator the current validator for the feed
+     * @param gzip      true to retrieve the gzip compressed snapshot, false for the plain CSV snapshot
+     * @return an {@link Optional} containing the path to the snapshot file, or empty if no fresh snapshot is available
+     */
+    public Optional<Path> getSnapshot(final FeedType feed, final SeasonFilter season, final FeedValidator validator, final boolean gzip) {
+        if (!configuration.isEnabled() || !isSingleSeason(season)) {
+            return Optional.empty();
+        }
+        final Path etagFile = getFile(feed, season.getMinSeason(), ETAG_EXTENSION);
+        final Path snapshotFile = getFile(feed, season.getMinSeason(), gzip ? GZIP_EXTENSION : CSV_EXTENSION);
+        try {
+            if (Files.isReadable(etagFile) && Files.isReadable(snapshotFile)
+                    && validator.getEtag().equals(new String(Files.readAllBytes(etagFile), StandardCharsets.UTF_8))) {
+                return Optional.of(snapshotFile);
+            }
+        } catch (final IOException e) {
+            log.warn("Unable to read snapshot validator {}", etagFile, e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Render snapshots of every feed for the given season
+     *
+     * @param season the season to render
+     * @throws IOException if the snapshots could not be written
+     */
+    public void render(final short season) throws IOException {
+        for (final FeedType feed : FeedType.values()) {
+            render(feed, season);
+        }
+    }
+
+    /**
+     * Render a snapshot of the given feed for the given season, replacing any existing snapshot
+     *
+     * @param feed   the feed to render
+     * @param season the season to render
+     * @throws IOException if the snapshot could not be written
+     */
+    public void render(final FeedType feed, final short season) throws IOException {
+        synchronized (renderLocks.computeIfAbsent(feed.name() + "/" + season, key -> new Object())) {
+            renderSnapshot(feed, season);
+        }
+    }
+
+    private void renderSnapshot(final FeedType feed, final short season) throws IOException {
+        final SeasonFilter filter = new SeasonFilter(String.valueOf(season));
+        final Path directory = Files.createDirectories(getDirectory(season));
+        // Computed before rendering, if the data changes during rendering then the snapshot will simply be considered stale
+        final FeedValidator validator = feedExportService.getValidator(feed, filter);
+
+        final Path csv = Files.createTempFile(directory, feed.name(), CSV_EXTENSION);
+        final Path gzip = Files.createTempFile(directory, feed.name(), GZIP_EXTENSION);
+        try {
+            try (OutputStream out = Files.newOutputStream(csv)) {
+                feedExportService.export(feed, filter, out);
+            }
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+                Files.copy(csv, out);
+            }
+            // Remove the existing validator first so that the snapshot is never considered fresh while the files are being replaced
+            Files.deleteIfExists(getFile(feed, season, ETAG_EXTENSION));
+            Files.move(csv, getFile(feed, season, CSV_EXTENSION), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(gzip, getFile(feed, season, GZIP_EXTENSION), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.write(getFile(feed, season, ETAG_EXTENSION), validator.getEtag().getBytes(StandardCharsets.UTF_8));
+            log.debug("Rendered {} snapshot for season {}", feed.getPath(), season);
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(gzip);
+        }
+    }
+
+    /**
+     * Invalidate the snapshots for the given season
+     *
+     * @param season the season to invalidate
+     */
+    public void invalidate(final short season) {
+        for (final FeedType feed : FeedType.values()) {
+            try {
+                Files.deleteIfExists(getFile(feed, season, ETAG_EXTENSION));
+            } catch (final IOException e) {
+                log.warn("Unable to invalidate {} snapshot for season {}", feed.getPath(), season, e);
+            }
+        }
+    }
+
+    /**
+     * Render any stale snapshots for closed seasons
+     */
+    @Scheduled(cron = "${reporting.snapshot.cron:0 0 2 * * *}")
+    public void renderClosedSeasons() {
+        if (!configuration.isEnabled()) {
+            return;
+        }
+        final int currentSeason = Year.now().getValue();
+        for (int season = configuration.getFirstSeason(); season < currentSeason; season++) {
+            final SeasonFilter filter = new SeasonFilter(String.valueOf(season));
+            for (final FeedType feed : FeedType.values()) {
+                try {
+                    if (!getSnapshot(feed, filter, feedExportService.getValidator(feed, filter), false).isPresent()) {
+                        render(feed, (short) season);
+                    }
+                } catch (final IOException e) {
+                    log.error("Unable to render {} snapshot for season {}", feed.getPath(), season, e);
+                }
+            }
+        }
+    }
+
+    private static boolean isSingleSeason(final SeasonFilter season) {
+        return season.isActive() && season.getStartYear() == season.getEndYear();
+    }
+
+    private Path getDirectory(final short season) {
+        return configuration.getDirectory().resolve(String.valueOf(season));
+    }
+
+    private Path getFile(final FeedType feed, final short season, final String extension) {
+        return getDirectory(season).resolve(feed.name() + extension);
+    }
+}
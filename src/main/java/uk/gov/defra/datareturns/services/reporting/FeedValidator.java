@@ -0,0 +1,22 @@
+package uk.gov.defra.datareturns.services.reporting;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Cheap validator for the content of a reporting feed, used to support conditional requests.
+ */
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class FeedValidator {
+    /**
+     * The entity tag for the feed content
+     */
+    private final String etag;
+
+    /**
+     * The latest modification time of the feed rows in milliseconds since the epoch, or -1 if unknown.  This does not advance when rows
+     * are deleted, so is only used as part of the entity tag (and not as a Last-Modified header).
+     */
+    private final long lastModified;
+}
@@ -0,0 +1,30 @@
+package uk.gov.defra.datareturns.services.reporting.exports;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Available formats for asynchronous reporting exports
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+    /**
+     * Plain CSV
+     */
+    CSV(".csv", "text/csv; charset=UTF-8"),
+    /**
+     * Gzip compressed CSV
+     */
+    GZIP(".csv.gz", "application/gzip");
+
+    /**
+     * The file extension for the export format
+     */
+    private final String extension;
+
+    /**
+     * The content type used when the result is downloaded
+     */
+    private final String contentType;
+}
@@ -0,0 +1,185 @@
+package uk.gov.defra.datareturns.services.reporting.exports;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.FeedType;
+import uk.gov.defra.datareturns.data.model.reporting.filters.SeasonFilter;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An asynchronous reporting export job and its progress
+ */
+@Getter
+public class ExportJob {
+    /**
+     * Export job states
+     */
+    public enum State {
+        /**
+         * the job is waiting for an export thread
+         */
+        QUEUED,
+        /**
+         * the export is being written
+         */
+        RUNNING,
+        /**
+         * the export is complete and can be downloaded
+         */
+        COMPLETE,
+        /**
+         * the export failed, the job may be resubmitted
+         */
+        FAILED
+    }
+
+    /**
+     * The job identifier
+     */
+    private final UUID id = UUID.randomUUID();
+
+    /**
+     * The feed being exported
+     */
+    private final FeedType feed;
+
+    /**
+     * The season(s) being exported
+     */
+    @JsonIgnore
+    private final SeasonFilter season;
+
+    /**
+     * The export format
+     */
+    private final ExportFormat format;
+
+    /**
+     * The file the export is written to
+     */
+    @JsonIgnore
+    private final Path file;
+
+    /**
+     * The time the job was submitted
+     */
+    private final Instant submitted = Instant.now();
+
+    /**
+     * The time the job completed (successfully or otherwise)
+     */
+    private volatile Instant completed;
+
+    /**
+     * The current state of the job
+     */
+    private volatile State state = State.QUEUED;
+
+    /**
+     * The reason the job failed
+     */
+    private volatile String error;
+
+    /**
+     * The number of CSV rows written so far (excluding the header row)
+     */
+    @JsonIgnore
+    private final AtomicLong lines = new AtomicLong();
+
+    /**
+     * The number of uncompressed bytes written so far
+     */
+    @JsonIgnore
+    private final AtomicLong bytes = new AtomicLong();
+
+    ExportJob(final FeedType feed, final SeasonFilter season, final ExportFormat format, final Path directory) {
+        this.feed = feed;
+        this.season = season;
+        this.format = format;
+        this.file = directory.resolve(id + format.getExtension());
+    }
+
+    /**
+     * @return the season(s) being exported
+     */
+    public String getSeasons() {
+        return season.toString();
+    }
+
+    /**
+     * @return the number of CSV rows written so far (excluding the header row)
+     */
+    public long getRowsWritten() {
+        return Math.max(0, lines.get() - 1);
+    }
+
+    /**
+     * @return the number of uncompressed bytes written so far
+     */
+    public long getBytesWritten() {
+        return bytes.get();
+    }
+
+    /**
+     * @return the filename to use when the export is downloaded
+     */
+    @JsonIgnore
+    public String getFilename() {
+        final String filename = feed.getFilename(season);
+        return ExportFormat.GZIP.equals(format) ? filename + ".gz" : filename;
+    }
+
+    void running() {
+        state = State.RUNNING;
+    }
+
+    void complete() {
+        completed = Instant.now();
+        state = State.COMPLETE;
+    }
+
+    void failed(final Throwable cause) {
+        completed = Instant.now();
+        error = cause.getMessage();
+        state = State.FAILED;
+    }
+
+    /**
+     * Wrap the given stream so that bytes and rows written through it are recorded as progress on this job
+     *
+     * @param out the {@link OutputStream} to wrap
+     * @return an {@link OutputStream} which records progress
+     */
+    OutputStream track(final OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(final int b) throws IOException {
+                out.write(b);
+                bytes.incrementAndGet();
+                if (b == '\n') {
+                    lines.incrementAndGet();
+                }
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) throws IOException {
+                out.write(b, off, len);
+                int newLines = 0;
+                for (int i = off; i < off + len; i++) {
+                    if (b[i] == '\n') {
+                        newLines++;
+                    }
+                }
+                bytes.addAndGet(len);
+                lines.addAndGet(newLines);
+            }
+        };
+    }
+}
@@ -0,0 +1,130 @@
+package uk.gov.defra.datareturns.services.reporting.exports;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import uk.gov.defra.datareturns.config.ReportingConfiguration;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.FeedType;
+import uk.gov.defra.datareturns.data.model.reporting.filters.SeasonFilter;
+import uk.gov.defra.datareturns.services.reporting.FeedExportService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Runs reporting exports asynchronously on a bounded executor, writing the results to temporary storage for later download
+ */
+@Service
+@Slf4j
+public class ExportJobService {
+    /**
+     * The export job configuration
+     */
+    private final ReportingConfiguration.Exports configuration;
+
+    /**
+     * The export service used to write feeds
+     */
+    private final FeedExportService feedExportService;
+
+    /**
+     * The bounded executor used to run export jobs
+     */
+    private final ThreadPoolTaskExecutor executor;
+
+    /**
+     * Export jobs by id, retained until they expire
+     */
+    private final Map<UUID, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    public ExportJobService(final ReportingConfiguration.Exports configuration,
+                            final FeedExportService feedExportService,
+                            @Qualifier(ReportingConfiguration.Exports.EXPORT_EXECUTOR) final ThreadPoolTaskExecutor executor) {
+        this.configuration = configuration;
+        this.feedExportService = feedExportService;
+        this.executor = executor;
+    }
+
+    /**
+     * Submit a new export job
+     *
+     * @param feed   the feed to export
+     * @param season the season(s) to export
+     * @param format the export format
+     * @return the submitted {@link ExportJob}
+     * @throws ResponseStatusException (503) if the export queue is full
+     */
+    public ExportJob submit(final FeedType feed, final SeasonFilter season, final ExportFormat format) {
+        final ExportJob job = new ExportJob(feed, season, format, configuration.getDirectory());
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (final TaskRejectedException e) {
+            jobs.remove(job.getId());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many exports in progress, please try again later");
+        }
+        return job;
+    }
+
+    /**
+     * Retrieve an export job
+     *
+     * @param id the job id
+     * @return an {@link Optional} containing the {@link ExportJob}, or empty if no such job exists (or it has expired)
+     */
+    public Optional<ExportJob> getJob(final UUID id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * Remove expired export jobs and their results
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void expireJobs() {
+        final Instant expiry = Instant.now().minus(configuration.getRetention());
+        jobs.values().removeIf(job -> {
+            final boolean expired = job.getCompleted() != null && job.getCompleted().isBefore(expiry);
+            if (expired) {
+                delete(job);
+            }
+            return expired;
+        });
+    }
+
+    private void run(final ExportJob job) {
+        job.running();
+        try {
+            Files.createDirectories(job.getFile().getParent());
+            try (OutputStream file = Files.newOutputStream(job.getFile());
+                 OutputStream out = ExportFormat.GZIP.equals(job.getFormat()) ? new GZIPOutputStream(file) : file) {
+                feedExportService.export(job.getFeed(), job.getSeason(), job.track(out));
+            }
+            job.complete();
+            log.debug("Export {} of {} complete, {} rows written", job.getId(), job.getFeed().getPath(), job.getRowsWritten());
+        } catch (final IOException | RuntimeException e) {
+            log.error("Export {} of {} failed", job.getId(), job.getFeed().getPath(), e);
+            delete(job);
+            job.failed(e);
+        }
+    }
+
+    private static void delete(final ExportJob job) {
+        try {
+            Files.deleteIfExists(job.getFile());
+        } catch (final IOException e) {
+            log.warn("Unable to delete export file {}", job.getFile(), e);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package uk.gov.defra.datareturns.services.reporting.grilse;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import uk.gov.defra.datareturns.config.ReportingConfiguration;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.grilse.GrilseEstimateEntry;
+import uk.gov.defra.datareturns.data.model.reporting.filters.SeasonFilter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+
+/**
+ * Estimates the number of grilse and multi-sea-winter salmon caught on each river by applying the grilse probability data for the gate
+ * associated with the river's catchment to each large salmon catch (catches of the species configured by
+ * {@link ReportingConfiguration#getGrilseSpeciesId()}).
+ * <p>
+ * Catches are loaded with a single query and grouped by season and catchment, each catchment is then estimated as a separate fork/join
+ * task against a dense {@link GrilseProbabilityMatrix} for the season.  Catches with no date recorded cannot be matched to a month and
+ * are not included in the estimates.
+ */
+@Service
+@RequiredArgsConstructor
+public class GrilseEstimationService {
+    /**
+     * Scale of the expected counts reported in the feed
+     */
+    private static final int SCALE = 4;
+
+    private static final String PROBABILITY_QUERY = "select gp.season, gp.gate_id, gp.month, gp.mass_lbs, gp.probability"
+            + " from rcr_grilse_probability gp where gp.season between :minSeason and :maxSeason";
+
+    private static final String CATCH_QUERY = "select sub.season, ctm.id, ctm.gate_id, act.river_id,"
+            + " cast(extract(month from cat.date_caught) as smallint), cat.mass_kg"
+            + " from rcr_catch cat"
+            + " inner join rcr_activity act on (cat.activity_id = act.id)"
+            + " inner join rcr_submission sub on (act.submission_id = sub.id)"
+            + " inner join rcr_river riv on (act.river_id = riv.id)"
+            + " inner join rcr_catchment ctm on (riv.catchment_id = ctm.id)"
+            + " where cat.species_id = :speciesId and not (cat.reporting_exclude or sub.reporting_exclude or cat.no_date_recorded)"
+            + " and cat.mass_kg is not null and sub.season between :minSeason and :maxSeason"
+            + " order by sub.season, ctm.id";
+
+    private static final String LOCATION_QUERY = "select loc.id, loc.name, loc.catchment_name, loc.region_name from rcv_ref_locations loc";
+
+    private final ReportingConfiguration configuration;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Estimate the grilse and multi-sea-winter salmon caught per river and month for the given season(s)
+     *
+     * @param season the season(s) to estimate
+     * @return the estimates, ordered by season, river and month
+     */
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public List<GrilseEstimateEntry> estimate(final SeasonFilter season) {
+        final Map<Short, List<Object[]>> probabilityRows = new HashMap<>();
+        for (final Object[] row : (List<Object[]>) seasonQuery(PROBABILITY_QUERY, season).getResultList()) {
+            probabilityRows.computeIfAbsent(((Number) row[0]).shortValue(), s -> new ArrayList<>())
+                    .add(Arrays.copyOfRange(row, 1, row.length));
+        }
+        final Map<Short, GrilseProbabilityMatrix> matrices = new HashMap<>();
+        probabilityRows.forEach((s, rows) -> matrices.put(s, GrilseProbabilityMatrix.of(rows)));
+
+        final Map<Long, String[]> locations = new HashMap<>();
+        for (final Object[] row : (List<Object[]>) entityManager.createNativeQuery(LOCATION_QUERY).getResultList()) {
+            locations.put(((Number) row[0]).longValue(), new String[] {(String) row[1], (String) row[2], (String) row[3]});
+        }
+
+        final List<CatchmentCatches> catchments = new ArrayList<>();
+        CatchmentCatches current = null;
+        final Query catchQuery = seasonQuery(CATCH_QUERY, season).setParameter("speciesId", configuration.getGrilseSpeciesId());
+        for (final Object[] row : (List<Object[]>) catchQuery.getResultList()) {
+            final short rowSeason = ((Number) row[0]).shortValue();
+            final long catchmentId = ((Number) row[1]).longValue();
+            if (current == null || current.season != rowSeason || current.catchmentId != catchmentId) {
+                final Long gateId = row[2] != null ? ((Number) row[2]).longValue() : null;
+                current = new CatchmentCatches(rowSeason, catchmentId, gateId, matrices.get(rowSeason));
+                catchments.add(current);
+            }
+            current.add(((Number) row[3]).longValue(), ((Number) row[4]).intValue(), ((BigDecimal) row[5]).doubleValue());
+        }
+        if (catchments.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        final List<GrilseEstimateEntry> estimates = ForkJoinPool.commonPool().invoke(new EstimationTask(catchments, 0, catchments.size()))
+                .stream().map(e -> e.toEntry(locations.get(e.riverId))).collect(Collectors.toList());
+        estimates.sort(Comparator.comparing(GrilseEstimateEntry::getSeason)
+                .thenComparing(GrilseEstimateEntry::getRiverName, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(GrilseEstimateEntry::getMonth));
+        return estimates;
+    }
+
+    private Query seasonQuery(final String sql, final SeasonFilter season) {
+        return entityManager.createNativeQuery(sql)
+                .setParameter("minSeason", season.getMinSeason())
+                .setParameter("maxSeason", season.getMaxSeason());
+    }
+
+    /**
+     * Fork/join task estimating a range of catchments, split until a single catchment remains
+     */
+    private static final class EstimationTask extends RecursiveTask<List<Estimate>> {
+        private static final long serialVersionUID = 1L;
+        private final transient List<CatchmentCatches> catchments;
+        private final int from;
+        private final int to;
+
+        private EstimationTask(final List<CatchmentCatches> catchments, final int from, final int to) {
+            this.catchments = catchments;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Estimate> compute() {
+            if (to - from == 1) {
+                return catchments.get(from).estimate();
+            }
+            final int mid = (from + to) >>> 1;
+            final EstimationTask left = new EstimationTask(catchments, from, mid);
+            left.fork();
+            final List<Estimate> results = new EstimationTask(catchments, mid, to).compute();
+            results.addAll(left.join());
+            return results;
+        }
+    }
+
+    /**
+     * The salmon catches for a single catchment in a season, held in primitive arrays
+     */
+    private static final class CatchmentCatches {
+        private final short season;
+        private final long catchmentId;
+        private final Long gateId;
+        private final GrilseProbabilityMatrix matrix;
+        private long[] riverIds = new long[16];
+        private int[] months = new int[16];
+        private double[] masses = new double[16];
+        private int size = 0;
+
+        private CatchmentCatches(final short season, final long catchmentId, final Long gateId, final GrilseProbabilityMatrix matrix) {
+            this.season = season;
+            this.catchmentId = catchmentId;
+            this.gateId = gateId;
+            this.matrix = matrix;
+        }
+
+        private void add(final long riverId, final int month, final double kg) {
+            if (size == riverIds.length) {
+                riverIds = Arrays.copyOf(riverIds, size * 2);
+                months = Arrays.copyOf(months, size * 2);
+                masses = Arrays.copyOf(masses, size * 2);
+            }
+            riverIds[size] = riverId;
+            months[size] = month;
+            masses[size] = kg;
+            size++;
+        }
+
+        private List<Estimate> estimate() {
+            final Map<Long, Estimate[]> byRiver = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                final int month = months[i];
+                final Estimate[] riverEstimates = byRiver.computeIfAbsent(riverIds[i], r -> new Estimate[12]);
+                Estimate estimate = riverEstimates[month - 1];
+                if (estimate == null) {
+                    estimate = new Estimate(season, riverIds[i], month);
+                    riverEstimates[month - 1] = estimate;
+                }
+                final double probability = gateId == null || matrix == null ? 0 : matrix.getProbability(gateId, month, masses[i]);
+                estimate.salmon++;
+                estimate.grilse += probability;
+            }
+            final List<Estimate> results = new ArrayList<>();
+            byRiver.values().forEach(e -> Arrays.stream(e).filter(Objects::nonNull).forEach(results::add));
+            return results;
+        }
+    }
+
+    /**
+     * Running estimate for a single river and month
+     */
+    private static final class Estimate {
+        private final short season;
+        private final long riverId;
+        private final int month;
+        private long salmon;
+        private double grilse;
+
+        private Estimate(final short season, final long riverId, final int month) {
+            this.season = season;
+            this.riverId = riverId;
+            this.month = month;
+        }
+
+        private GrilseEstimateEntry toEntry(final String[] location) {
+            final String[] names = location != null ? location : new String[3];
+            return GrilseEstimateEntry.of(season, names[2], names[1], riverId, names[0], (short) month, salmon,
+                    BigDecimal.valueOf(grilse).setScale(SCALE, RoundingMode.HALF_UP),
+                    BigDecimal.valueOf(salmon - grilse).setScale(SCALE, RoundingMode.HALF_UP));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package uk.gov.defra.datareturns.services.reporting.grilse;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Immutable grilse probability matrix for a single season and gate, indexed by [month][lbs].
+ * <p>
+ * Probabilities are held as fixed-point integers with {@link #SCALE} decimal places so that the matrix is a single primitive array
+ * rather than a collection of {@link BigDecimal} instances.  Any data point not present in the source data has a probability of zero.
+ */
+public final class GrilseGateMatrix {
+    /**
+     * Number of decimal places held for each probability
+     */
+    public static final int SCALE = 9;
+
+    private static final int MONTHS = 12;
+
+    /**
+     * The number of mass entries held for each month (mass in lbs is 0 to massEntries - 1)
+     */
+    private final int massEntries;
+
+    /**
+     * The fixed-point probabilities, laid out as [month][lbs]
+     */
+    private final int[] probabilities;
+
+    private GrilseGateMatrix(final int massEntries, final int[] probabilities) {
+        this.massEntries = massEntries;
+        this.probabilities = probabilities;
+    }
+
+    /**
+     * Build a matrix from the given rows
+     *
+     * @param rows rows of (month, mass in lbs, probability) as returned by a native query
+     * @return the {@link GrilseGateMatrix} for the given rows
+     */
+    public static GrilseGateMatrix of(final List<Object[]> rows) {
+        int maxLbs = -1;
+        for (final Object[] row : rows) {
+            maxLbs = Math.max(maxLbs, ((Number) row[1]).intValue());
+        }
+        final int massEntries = maxLbs + 1;
+        final int[] probabilities = new int[MONTHS * massEntries];
+        for (final Object[] row : rows) {
+            final int month = ((Number) row[0]).intValue();
+            final int lbs = ((Number) row[1]).intValue();
+            if (month >= 1 && month <= MONTHS && lbs >= 0) {
+                probabilities[(month - 1) * massEntries + lbs] = ((BigDecimal) row[2]).movePointRight(SCALE)
+                        .setScale(0, RoundingMode.HALF_UP).intValueExact();
+            }
+        }
+        return new GrilseGateMatrix(massEntries, probabilities);
+    }
+
+    /**
+     * Retrieve the fixed-point probability (with {@link #SCALE} decimal places) that a salmon is a grilse
+     *
+     * @param month the month (1-based) that the salmon was caught
+     * @param lbs   the mass of the salmon to the nearest whole pound
+     * @return the fixed-point probability, 0 if no data is held
+     */
+    public int getFixedPointProbability(final int month, final int lbs) {
+        if (month < 1 || month > MONTHS || lbs < 0 || lbs >= massEntries) {
+            return 0;
+        }
+        return probabilities[(month - 1) * massEntries + lbs];
+    }
+
+    /**
+     * Retrieve the probability that a salmon is a grilse
+     *
+     * @param month the month (1-based) that the salmon was caught
+     * @param lbs   the mass of the salmon to the nearest whole pound
+     * @return the probability, zero if no data is held
+     */
+    public BigDecimal getProbability(final int month, final int lbs) {
+        return BigDecimal.valueOf(getFixedPointProbability(month, lbs), SCALE);
+    }
+}
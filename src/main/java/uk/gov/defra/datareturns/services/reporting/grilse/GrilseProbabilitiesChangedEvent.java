@@ -0,0 +1,16 @@
+package uk.gov.defra.datareturns.services.reporting.grilse;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when the grilse probability data for a season has been replaced
+ */
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class GrilseProbabilitiesChangedEvent {
+    /**
+     * The season whose data was replaced
+     */
+    private final short season;
+}
@@ -0,0 +1,133 @@
+package uk.gov.defra.datareturns.services.reporting.grilse;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.envers.AuditReaderFactory;
+import org.hibernate.envers.DefaultRevisionEntity;
+import org.hibernate.envers.RevisionType;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.query.NativeQuery;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import uk.gov.defra.datareturns.data.model.grilse.GrilseProbability;
+import uk.gov.defra.datareturns.data.model.grilse.GrilseWeightGate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.function.Consumer;
+
+/**
+ * Bulk loader for grilse probability data.
+ * <p>
+ * Replacing the data for a season and gate is performed with a single set-based delete followed by batched JDBC inserts using identifiers
+ * allocated in pools from the entity's sequence.  As the rows bypass the persistence context, the audit history is written directly with
+ * set-based inserts against a single Envers revision for the whole load.  The tables affected by each native statement are declared so that
+ * hibernate only invalidates the cached data which depends upon them (rather than the entire second-level and query caches).
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class GrilseProbabilityLoader {
+    /**
+     * Number of rows sent to the database in each JDBC batch
+     */
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT = "insert into rcr_grilse_probability"
+            + " (id, season, gate_id, month, mass_lbs, probability, created, last_modified, version) values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String AUDIT = "insert into rcr_grilse_probability_aud"
+            + " (id, rev, revtype, season, gate_id, month, mass_lbs, probability)"
+            + " select gp.id, :rev, :revType, gp.season, gp.gate_id, gp.month, gp.mass_lbs, gp.probability"
+            + " from rcr_grilse_probability gp where gp.season = :season and gp.gate_id = :gateId";
+
+    private static final String AUDIT_TABLE = "rcr_grilse_probability_aud";
+
+    private static final String DELETE = "delete from rcr_grilse_probability where season = :season and gate_id = :gateId";
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Replace any existing probability data for the given season and gate with the data provided by the given source
+     *
+     * @param season the season the data relates to
+     * @param gate   the gate the data relates to
+     * @param source the source of the new probability data, invoked once with a consumer which accepts each probability in turn
+     * @return the number of probabilities loaded
+     */
+    @Transactional
+    public int replace(final short season, final GrilseWeightGate gate, final Consumer<Consumer<GrilseProbability>> source) {
+        final int revision = AuditReaderFactory.get(entityManager).getCurrentRevision(DefaultRevisionEntity.class, true).getId();
+        entityManager.flush();
+
+        final int deleted = audit(revision, RevisionType.DEL, season, gate);
+        entityManager.createNativeQuery(DELETE)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(GrilseProbability.class)
+                .setParameter("season", season)
+                .setParameter("gateId", gate.getId())
+                .executeUpdate();
+
+        final int loaded = insert(season, gate, source);
+        audit(revision, RevisionType.ADD, season, gate);
+        // Listeners (such as the lookup service) are notified once the transaction has committed
+        eventPublisher.publishEvent(GrilseProbabilitiesChangedEvent.of(season));
+        log.info("Replaced {} grilse probabilities with {} for season {} gate {} (revision {})", deleted, loaded, season, gate.getName(),
+                revision);
+        return loaded;
+    }
+
+    private int audit(final int revision, final RevisionType revisionType, final short season, final GrilseWeightGate gate) {
+        // Deleted rows are recorded with the values they held at the time of deletion
+        return entityManager.createNativeQuery(AUDIT)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(AUDIT_TABLE)
+                .setParameter("rev", revision)
+                .setParameter("revType", revisionType.getRepresentation())
+                .setParameter("season", season)
+                .setParameter("gateId", gate.getId())
+                .executeUpdate();
+    }
+
+    private int insert(final short season, final GrilseWeightGate gate, final Consumer<Consumer<GrilseProbability>> source) {
+        final SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        // Share the entity's pooled identifier generator so that identifiers never clash with entities saved through the repository
+        final IdentifierGenerator idGenerator = session.getFactory().getIdentifierGenerator(GrilseProbability.class.getName());
+        final Timestamp now = new Timestamp(System.currentTimeMillis());
+        final int[] count = {0};
+
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+                source.accept(probability -> {
+                    try {
+                        statement.setLong(1, (Long) idGenerator.generate(session, probability));
+                        statement.setShort(2, season);
+                        statement.setLong(3, gate.getId());
+                        statement.setShort(4, probability.getMonth());
+                        statement.setShort(5, probability.getMassInPounds());
+                        statement.setBigDecimal(6, probability.getProbability());
+                        statement.setTimestamp(7, now);
+                        statement.setTimestamp(8, now);
+                        statement.setTimestamp(9, now);
+                        statement.addBatch();
+                        if (++count[0] % BATCH_SIZE == 0) {
+                            statement.executeBatch();
+                        }
+                    } catch (final SQLException e) {
+                        throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "Unable to insert grilse probability", INSERT);
+                    }
+                });
+                statement.executeBatch();
+            }
+        });
+        return count[0];
+    }
+}
@@ -0,0 +1,50 @@
+package uk.gov.defra.datareturns.services.reporting.grilse;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.rest.core.annotation.HandleAfterCreate;
+import org.springframework.data.rest.core.annotation.HandleAfterDelete;
+import org.springframework.data.rest.core.annotation.HandleAfterSave;
+import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
+import org.springframework.stereotype.Component;
+import uk.gov.defra.datareturns.data.model.catchments.Catchment;
+import uk.gov.defra.datareturns.data.model.grilse.GrilseProbability;
+import uk.gov.defra.datareturns.data.model.grilse.GrilseWeightGate;
+import uk.gov.defra.datareturns.data.model.rivers.River;
+
+/**
+ * Used to intercept changes to the reference data used by the {@link GrilseProbabilityLookupService} and discard its snapshots
+ */
+@Component
+@RepositoryEventHandler
+@RequiredArgsConstructor
+public class GrilseProbabilityLookupInvalidator {
+    private final GrilseProbabilityLookupService lookupService;
+
+    @HandleAfterCreate
+    @HandleAfterSave
+    @HandleAfterDelete
+    public void riverChanged(final River river) {
+        lookupService.invalidate();
+    }
+
+    @HandleAfterCreate
+    @HandleAfterSave
+    @HandleAfterDelete
+    public void catchmentChanged(final Catchment catchment) {
+        lookupService.invalidate();
+    }
+
+    @HandleAfterCreate
+    @HandleAfterSave
+    @HandleAfterDelete
+    public void gateChanged(final GrilseWeightGate gate) {
+        lookupService.invalidate();
+    }
+
+    @HandleAfterCreate
+    @HandleAfterSave
+    @HandleAfterDelete
+    public void probabilityChanged(final GrilseProbability probability) {
+        lookupService.invalidate();
+    }
+}
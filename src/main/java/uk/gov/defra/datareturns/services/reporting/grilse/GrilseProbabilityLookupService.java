@@ -0,0 +1,164 @@
+package uk.gov.defra.datareturns.services.reporting.grilse;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import uk.gov.defra.datareturns.data.model.reporting.referencedata.grilse.GrilseProbabilityLookup;
+import uk.gov.defra.datareturns.data.model.reporting.referencedata.grilse.GrilseProbabilityQuery;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory lookup of grilse probabilities.
+ * <p>
+ * For each season an immutable snapshot is built holding the river to gate mappings and a {@link GrilseGateMatrix} per gate.  Snapshots
+ * are built on first use and rebuilt when new probability data is loaded for the season, the new snapshot replaces the old one in a
+ * single step so lookups never observe a partially built snapshot.
+ */
+@Service
+@Slf4j
+public class GrilseProbabilityLookupService {
+    private static final String RIVER_QUERY = "select riv.id, ctm.gate_id from rcr_river riv"
+            + " inner join rcr_catchment ctm on (riv.catchment_id = ctm.id)";
+    private static final String GATE_QUERY = "select gate.id, gate.name from rcr_grilse_weight_gate gate";
+    private static final String PROBABILITY_QUERY = "select gp.gate_id, gp.month, gp.mass_lbs, gp.probability from rcr_grilse_probability gp"
+            + " where gp.season = :season";
+
+    /**
+     * The snapshot for each season that has been queried
+     */
+    private final Map<Short, SeasonSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Lookup the probability that a salmon is a grilse for each of the given queries
+     *
+     * @param season  the season the salmon were caught in
+     * @param queries the queries to answer
+     * @return a result for each query (in the same order)
+     * @throws InvalidGrilseProbabilityQueryException if any query is incomplete or invalid
+     */
+    public List<GrilseProbabilityLookup> lookup(final short season, final List<GrilseProbabilityQuery> queries) {
+        final SeasonSnapshot snapshot = getSnapshot(season);
+        return queries.stream().map(snapshot::lookup).collect(Collectors.toList());
+    }
+
+    /**
+     * Lookup the probability that a salmon is a grilse
+     *
+     * @param season the season the salmon was caught in
+     * @param query  the query to answer
+     * @return the result of the query
+     * @throws InvalidGrilseProbabilityQueryException if the query is incomplete or invalid
+     */
+    public GrilseProbabilityLookup lookup(final short season, final GrilseProbabilityQuery query) {
+        return getSnapshot(season).lookup(query);
+    }
+
+    /**
+     * Rebuild the snapshot for the given season, replacing the existing snapshot once the new one is complete
+     *
+     * @param season the season to rebuild
+     */
+    public void rebuild(final short season) {
+        snapshots.put(season, load(season));
+    }
+
+    /**
+     * Discard all snapshots (for example when the river, catchment or gate reference data changes)
+     */
+    public void invalidate() {
+        snapshots.clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGrilseProbabilitiesChanged(final GrilseProbabilitiesChangedEvent event) {
+        rebuild(event.getSeason());
+    }
+
+    private SeasonSnapshot getSnapshot(final short season) {
+        return snapshots.computeIfAbsent(season, this::load);
+    }
+
+    @SuppressWarnings("unchecked")
+    private SeasonSnapshot load(final short season) {
+        final Map<Long, String> gateNames = new HashMap<>();
+        for (final Object[] row : (List<Object[]>) entityManager.createNativeQuery(GATE_QUERY).getResultList()) {
+            gateNames.put(((Number) row[0]).longValue(), (String) row[1]);
+        }
+
+        final Map<Long, Long> riverGates = new HashMap<>();
+        for (final Object[] row : (List<Object[]>) entityManager.createNativeQuery(RIVER_QUERY).getResultList()) {
+            riverGates.put(((Number) row[0]).longValue(), row[1] != null ? ((Number) row[1]).longValue() : null);
+        }
+
+        final Map<Long, List<Object[]>> gateRows = new HashMap<>();
+        for (final Object[] row : (List<Object[]>) entityManager.createNativeQuery(PROBABILITY_QUERY)
+                .setParameter("season", season).getResultList()) {
+            gateRows.computeIfAbsent(((Number) row[0]).longValue(), g -> new ArrayList<>()).add(new Object[] {row[1], row[2], row[3]});
+        }
+        final Map<Long, GrilseGateMatrix> matrices = new HashMap<>();
+        gateRows.forEach((gateId, rows) -> matrices.put(gateId, GrilseGateMatrix.of(rows)));
+
+        log.debug("Loaded grilse probability lookup for season {} ({} gates with data)", season, matrices.size());
+        return new SeasonSnapshot(Collections.unmodifiableMap(riverGates), Collections.unmodifiableMap(gateNames),
+                Collections.unmodifiableMap(matrices));
+    }
+
+    /**
+     * Immutable snapshot of the data required to answer queries for a single season
+     */
+    private static final class SeasonSnapshot {
+        private static final GrilseGateMatrix EMPTY = GrilseGateMatrix.of(Collections.emptyList());
+        private final Map<Long, Long> riverGates;
+        private final Map<Long, String> gateNames;
+        private final Map<Long, GrilseGateMatrix> matrices;
+
+        private SeasonSnapshot(final Map<Long, Long> riverGates, final Map<Long, String> gateNames,
+                               final Map<Long, GrilseGateMatrix> matrices) {
+            this.riverGates = riverGates;
+            this.gateNames = gateNames;
+            this.matrices = matrices;
+        }
+
+        private GrilseProbabilityLookup lookup(final GrilseProbabilityQuery query) {
+            if (query.getRiver() == null || query.getMonth() == null || query.getMonth() < 1 || query.getMonth() > 12) {
+                throw new InvalidGrilseProbabilityQueryException("A river and month (1-12) must be given");
+            }
+            final int lbs = toPounds(query);
+            final Long gateId = riverGates.get(query.getRiver());
+            final BigDecimal probability = Optional.ofNullable(gateId)
+                    .map(g -> matrices.getOrDefault(g, EMPTY).getProbability(query.getMonth(), lbs))
+                    .orElse(null);
+            return GrilseProbabilityLookup.of(query.getRiver(), gateId != null ? gateNames.get(gateId) : null, query.getMonth(), lbs,
+                    probability);
+        }
+
+        private static int toPounds(final GrilseProbabilityQuery query) {
+            final double lbs;
+            if (query.getMassLbs() != null) {
+                lbs = query.getMassLbs().doubleValue();
+            } else if (query.getMassKg() != null) {
+                lbs = query.getMassKg().doubleValue() * GrilseProbabilityMatrix.LBS_PER_KG;
+            } else {
+                throw new InvalidGrilseProbabilityQueryException("A mass in either lbs or kg must be given");
+            }
+            if (lbs < 0) {
+                throw new InvalidGrilseProbabilityQueryException("The mass must not be negative");
+            }
+            return (int) Math.round(lbs);
+        }
+    }
+}
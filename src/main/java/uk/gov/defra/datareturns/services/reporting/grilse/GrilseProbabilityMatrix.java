@@ -0,0 +1,102 @@
+package uk.gov.defra.datareturns.services.reporting.grilse;
+
+import uk.gov.defra.datareturns.data.model.catches.CatchMass;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, dense representation of the grilse probabilities for a single season, indexed by [gate][month][lbs].
+ * <p>
+ * Probabilities are held in a single primitive array so that a lookup is a couple of multiplications and an array access.  Any data point
+ * not present in the source data (including masses heavier than the heaviest mass supplied for the season) has a probability of zero, in
+ * line with the reporting assumption made when the probability data is uploaded.
+ */
+public final class GrilseProbabilityMatrix {
+    /**
+     * Conversion factor to convert between kg/lbs (derived from the kg/oz conversion used for catch masses)
+     */
+    public static final double LBS_PER_KG = 1 / (CatchMass.CONVERSION.doubleValue() * 16);
+
+    /**
+     * Number of months in the matrix
+     */
+    private static final int MONTHS = 12;
+
+    /**
+     * The dense index of each gate, keyed by gate id
+     */
+    private final Map<Long, Integer> gateIndexes;
+
+    /**
+     * The number of mass entries held for each gate and month (mass in lbs is 0 to maxLbs inclusive)
+     */
+    private final int massEntries;
+
+    /**
+     * The probabilities, laid out as [gate][month][lbs]
+     */
+    private final double[] probabilities;
+
+    private GrilseProbabilityMatrix(final Map<Long, Integer> gateIndexes, final int massEntries, final double[] probabilities) {
+        this.gateIndexes = gateIndexes;
+        this.massEntries = massEntries;
+        this.probabilities = probabilities;
+    }
+
+    /**
+     * Build a matrix from the given rows
+     *
+     * @param rows rows of (gate id, month, mass in lbs, probability) as returned by a native query
+     * @return the {@link GrilseProbabilityMatrix} for the given rows
+     */
+    public static GrilseProbabilityMatrix of(final List<Object[]> rows) {
+        final Map<Long, Integer> gateIndexes = new HashMap<>();
+        int maxLbs = -1;
+        for (final Object[] row : rows) {
+            gateIndexes.putIfAbsent(((Number) row[0]).longValue(), gateIndexes.size());
+            maxLbs = Math.max(maxLbs, ((Number) row[2]).intValue());
+        }
+        final int massEntries = maxLbs + 1;
+        final double[] probabilities = new double[gateIndexes.size() * MONTHS * massEntries];
+        for (final Object[] row : rows) {
+            final int gate = gateIndexes.get(((Number) row[0]).longValue());
+            final int month = ((Number) row[1]).intValue();
+            final int lbs = ((Number) row[2]).intValue();
+            if (month >= 1 && month <= MONTHS && lbs >= 0) {
+                probabilities[index(gate, month, lbs, massEntries)] = ((BigDecimal) row[3]).doubleValue();
+            }
+        }
+        return new GrilseProbabilityMatrix(gateIndexes, massEntries, probabilities);
+    }
+
+    /**
+     * Retrieve the probability that a salmon of the given mass caught in the given month and gate is a grilse
+     *
+     * @param gateId the id of the grilse weight gate
+     * @param month  the month (1-based) that the salmon was caught
+     * @param kg     the mass of the salmon in kg, matched to the nearest whole pound
+     * @return the probability that the salmon is a grilse (0 if no data is held)
+     */
+    public double getProbability(final long gateId, final int month, final double kg) {
+        final Integer gate = gateIndexes.get(gateId);
+        final long lbs = Math.round(kg * LBS_PER_KG);
+        if (gate == null || month < 1 || month > MONTHS || lbs < 0 || lbs >= massEntries) {
+            return 0;
+        }
+        return probabilities[index(gate, month, (int) lbs, massEntries)];
+    }
+
+    /**
+     * @return true if the matrix holds no probability data
+     */
+    public boolean isEmpty() {
+        return probabilities.length == 0;
+    }
+
+    private static int index(final int gate, final int month, final int lbs, final int massEntries) {
+        return (gate * MONTHS + month - 1) * massEntries + lbs;
+    }
+}
@@ -0,0 +1,17 @@
+package uk.gov.defra.datareturns.services.reporting.grilse;
+
+/**
+ * Thrown when a grilse probability lookup query is incomplete or invalid
+ */
+public class InvalidGrilseProbabilityQueryException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Create a new exception
+     *
+     * @param message the reason the query is invalid
+     */
+    public InvalidGrilseProbabilityQueryException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,81 @@
+package uk.gov.defra.datareturns.services.submissions;
+
+import lombok.Getter;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionGraph;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionImportError;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single catch return read from an import file, along with the line(s) of the file it was read from and any errors found reading it
+ */
+@Getter
+class ImportedReturn {
+    /**
+     * The first line of the import file the return was read from
+     */
+    private final int line;
+
+    /**
+     * The return, or null if it could not be read
+     */
+    private final SubmissionGraph graph;
+
+    /**
+     * The errors found reading the return
+     */
+    private final List<SubmissionImportError> errors = new ArrayList<>();
+
+    /**
+     * The line each node of the graph was read from, keyed by the property path of the node (e.g. activities[0].catches[1])
+     */
+    private final Map<String, Integer> nodeLines = new HashMap<>();
+
+    ImportedReturn(final int line, final SubmissionGraph graph) {
+        this.line = line;
+        this.graph = graph;
+    }
+
+    /**
+     * @return the key uniquely identifying the return (its contact and season)
+     */
+    String getKey() {
+        return graph.getContactId() + "|" + graph.getSeason();
+    }
+
+    /**
+     * Record an error found reading the return
+     *
+     * @param errorLine the line containing the error
+     * @param property  the property or import file column in error
+     * @param error     the error code
+     */
+    void addError(final int errorLine, final String property, final String error) {
+        errors.add(toError(errorLine, property, error));
+    }
+
+    /**
+     * Create an error against the node of the return identified by the given property path
+     *
+     * @param propertyPath the property path (e.g. activities[0].catches[1].dateCaught)
+     * @param error        the error code
+     * @return the error, against the line the node was read from
+     */
+    SubmissionImportError toError(final String propertyPath, final String error) {
+        String path = propertyPath;
+        Integer nodeLine = null;
+        while (nodeLine == null && !path.isEmpty()) {
+            nodeLine = nodeLines.get(path);
+            path = path.substring(0, Math.max(path.lastIndexOf('.'), 0));
+        }
+        return toError(nodeLine != null ? nodeLine : line, propertyPath, error);
+    }
+
+    private SubmissionImportError toError(final int errorLine, final String property, final String error) {
+        return SubmissionImportError.of(errorLine, graph != null ? graph.getContactId() : null, graph != null ? graph.getSeason() : null,
+                property, error);
+    }
+}
@@ -0,0 +1,76 @@
+package uk.gov.defra.datareturns.services.submissions;
+
+import lombok.AllArgsConstructor;
+import uk.gov.defra.datareturns.data.model.activities.Activity;
+import uk.gov.defra.datareturns.data.model.catches.Catch;
+import uk.gov.defra.datareturns.data.model.method.Method;
+import uk.gov.defra.datareturns.data.model.rivers.River;
+import uk.gov.defra.datareturns.data.model.smallcatches.SmallCatch;
+import uk.gov.defra.datareturns.data.model.smallcatches.SmallCatchCount;
+import uk.gov.defra.datareturns.data.model.species.Species;
+import uk.gov.defra.datareturns.data.model.submissions.Submission;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionGraph;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the (unsaved) entity graph for a {@link SubmissionGraph} using the given reference data lookups (by id).  Unknown references are
+ * left null and reported by the validators in the same way as a missing reference.
+ */
+@AllArgsConstructor(staticName = "of")
+class SubmissionGraphMapper {
+    private final Function<Long, River> rivers;
+    private final Function<Long, Species> species;
+    private final Function<Long, Method> methods;
+
+    Submission toSubmission(final SubmissionGraph graph) {
+        final Submission submission = new Submission();
+        submission.setContactId(graph.getContactId());
+        submission.setSeason(graph.getSeason());
+        submission.setStatus(graph.getStatus());
+        submission.setSource(graph.getSource());
+        submission.setActivities(new ArrayList<>());
+        for (final SubmissionGraph.ActivityNode node : graph.getActivities()) {
+            final Activity activity = new Activity();
+            activity.setSubmission(submission);
+            activity.setRiver(rivers.apply(node.getRiver()));
+            activity.setDaysFishedWithMandatoryRelease(node.getDaysFishedWithMandatoryRelease());
+            activity.setDaysFishedOther(node.getDaysFishedOther());
+            activity.setCatches(node.getCatches().stream().map(c -> toCatch(activity, c)).collect(Collectors.toList()));
+            activity.setSmallCatches(node.getSmallCatches().stream().map(s -> toSmallCatch(activity, s)).collect(Collectors.toList()));
+            submission.getActivities().add(activity);
+        }
+        return submission;
+    }
+
+    private Catch toCatch(final Activity activity, final SubmissionGraph.CatchNode node) {
+        final Catch cat = new Catch();
+        cat.setActivity(activity);
+        cat.setDateCaught(node.getDateCaught() != null ? Date.valueOf(node.getDateCaught()) : null);
+        cat.setSpecies(species.apply(node.getSpecies()));
+        cat.getMass().set(node.getMassType(), node.getMass());
+        cat.setMethod(methods.apply(node.getMethod()));
+        cat.setReleased(node.getReleased());
+        cat.setNoDateRecorded(node.isNoDateRecorded());
+        cat.setOnlyMonthRecorded(node.isOnlyMonthRecorded());
+        return cat;
+    }
+
+    private SmallCatch toSmallCatch(final Activity activity, final SubmissionGraph.SmallCatchNode node) {
+        final SmallCatch smallCatch = new SmallCatch();
+        smallCatch.setActivity(activity);
+        smallCatch.setMonth(node.getMonth());
+        smallCatch.setCounts(node.getCounts().stream().map(c -> {
+            final SmallCatchCount count = new SmallCatchCount();
+            count.setMethod(methods.apply(c.getMethod()));
+            count.setCount(c.getCount());
+            return count;
+        }).collect(Collectors.toList()));
+        smallCatch.setReleased(node.getReleased());
+        smallCatch.setNoMonthRecorded(node.isNoMonthRecorded());
+        return smallCatch;
+    }
+}
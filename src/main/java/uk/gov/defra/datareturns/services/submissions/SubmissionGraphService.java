@@ -0,0 +1,129 @@
+package uk.gov.defra.datareturns.services.submissions;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import uk.gov.defra.datareturns.data.model.catches.Catch;
+import uk.gov.defra.datareturns.data.model.smallcatches.SmallCatch;
+import uk.gov.defra.datareturns.data.model.submissions.Submission;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionGraph;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionGraphResult;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionRepository;
+import uk.gov.defra.datareturns.services.referencedata.ReferenceDataSnapshotService;
+import uk.gov.defra.datareturns.services.reporting.FeedSnapshotService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates complete catch returns (the submission, its activities and their catches) from {@link SubmissionGraph}s.
+ * <p>
+ * The entity graph is built in memory and validated as a whole using the same constraint validators as the individual REST resources,
+ * so every error in the return is reported together.  Valid graphs are persisted in a single transaction, the inserts for each entity
+ * type being batched by Hibernate.  The CRM activity calls are queued in the CRM activity outbox as the submissions are saved and, once the
+ * transaction has committed, the reporting snapshots for the season invalidated as they would be had the return been created through the
+ * individual REST resources.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SubmissionGraphService {
+    private final SubmissionRepository submissionRepository;
+    private final ReferenceDataSnapshotService referenceDataSnapshotService;
+    private final Validator validator;
+    private final FeedSnapshotService snapshotService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Validate and create the catch return described by the given graph
+     *
+     * @param graph the catch return to create
+     * @return the identifiers of the created entities
+     * @throws ConstraintViolationException if the catch return is invalid
+     * @throws ResponseStatusException      if a submission already exists for the contact and season
+     */
+    @Transactional
+    public SubmissionGraphResult create(final SubmissionGraph graph) {
+        final Submission submission = mapper().toSubmission(graph);
+        final Set<ConstraintViolation<Submission>> violations = validator.validate(submission);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        if (submissionRepository.getByContactIdAndSeason(submission.getContactId(), submission.getSeason()).isPresent()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A submission already exists for the given contact and season");
+        }
+
+        final Submission saved = createAll(Collections.singletonList(submission)).get(0);
+        final List<SubmissionGraphResult.ActivityResult> activities = saved.getActivities().stream()
+                .map(a -> SubmissionGraphResult.ActivityResult.of(a.getId(),
+                        a.getCatches().stream().map(Catch::getId).collect(Collectors.toList()),
+                        a.getSmallCatches().stream().map(SmallCatch::getId).collect(Collectors.toList())))
+                .collect(Collectors.toList());
+        return SubmissionGraphResult.of(saved.getId(), activities);
+    }
+
+    /**
+     * Persist the given (previously validated) submissions and their children
+     *
+     * @param submissions the submissions to persist
+     * @return the persisted submissions
+     */
+    @Transactional
+    public List<Submission> createAll(final List<Submission> submissions) {
+        final List<Submission> saved = submissionRepository.saveAll(submissions);
+        submissionRepository.flush();
+        eventPublisher.publishEvent(SubmissionsCreatedEvent.of(saved));
+        log.debug("Created {} submissions", saved.size());
+        return saved;
+    }
+
+    /**
+     * Persist a batch of imported (previously validated) submissions and their children.  The written entities are released from the
+     * persistence context before the transaction completes so that the context does not grow with the import.
+     *
+     * @param submissions the submissions to persist
+     * @return the number of submissions persisted
+     */
+    @Transactional
+    public int importAll(final List<Submission> submissions) {
+        final int count = createAll(submissions).size();
+        entityManager.clear();
+        return count;
+    }
+
+    /**
+     * Invalidate the reporting snapshots for the seasons of the new submissions, once they have been committed
+     *
+     * @param event the event describing the submissions that were created
+     */
+    @TransactionalEventListener
+    public void onSubmissionsCreated(final SubmissionsCreatedEvent event) {
+        event.getSubmissions().stream().map(Submission::getSeason).distinct().forEach(snapshotService::invalidate);
+    }
+
+    /**
+     * Create a mapper resolving references from the reference data snapshot, so that reference data queries are only made for entities
+     * which are not (yet) in the snapshot
+     *
+     * @return a mapper able to build the entities for submission graphs
+     */
+    SubmissionGraphMapper mapper() {
+        return SubmissionGraphMapper.of(referenceDataSnapshotService::getRiver, referenceDataSnapshotService::getSpecies,
+                referenceDataSnapshotService::getMethod);
+    }
+}
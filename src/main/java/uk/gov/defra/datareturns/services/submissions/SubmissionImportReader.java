@@ -0,0 +1,365 @@
+package uk.gov.defra.datareturns.services.submissions;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.univocity.parsers.csv.CsvParser;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import uk.gov.defra.datareturns.data.model.catches.CatchMass;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionGraph;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionSource;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionStatus;
+import uk.gov.defra.datareturns.util.CsvUtil;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reads catch returns from an import file one return at a time, so that the file is never held in memory as a whole.
+ */
+abstract class SubmissionImportReader implements Closeable {
+    /**
+     * Read up to the given number of returns
+     *
+     * @param count the maximum number of returns to read
+     * @return the returns read, empty once the end of the file has been reached
+     * @throws IOException if the file cannot be read
+     */
+    final List<ImportedReturn> next(final int count) throws IOException {
+        final List<ImportedReturn> returns = new ArrayList<>(count);
+        ImportedReturn next;
+        while (returns.size() < count && (next = next()) != null) {
+            returns.add(next);
+        }
+        return returns;
+    }
+
+    /**
+     * Read the next return
+     *
+     * @return the return, or null once the end of the file has been reached
+     * @throws IOException if the file cannot be read
+     */
+    abstract ImportedReturn next() throws IOException;
+
+    /**
+     * Create a reader for a CSV import file
+     *
+     * @param stream the stream to read from
+     * @return the reader
+     * @throws ResponseStatusException if the file does not contain the required headers
+     */
+    static SubmissionImportReader csv(final InputStream stream) {
+        return new Csv(stream);
+    }
+
+    /**
+     * Create a reader for a JSON-lines import file
+     *
+     * @param stream       the stream to read from
+     * @param objectMapper the mapper used to read each line
+     * @return the reader
+     */
+    static SubmissionImportReader jsonLines(final InputStream stream, final ObjectMapper objectMapper) {
+        return new JsonLines(stream, objectMapper);
+    }
+
+    /**
+     * Reads returns from a JSON-lines file, each line containing a complete {@link SubmissionGraph}.  Paper returns are assumed where no
+     * status or source is given.
+     */
+    private static final class JsonLines extends SubmissionImportReader {
+        private final BufferedReader reader;
+        private final ObjectMapper objectMapper;
+        private int lineNumber = 0;
+
+        private JsonLines(final InputStream stream, final ObjectMapper objectMapper) {
+            this.reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        ImportedReturn next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber++;
+            } while (line != null && StringUtils.isBlank(line));
+            if (line == null) {
+                return null;
+            }
+            try {
+                final SubmissionGraph graph = objectMapper.readValue(line, SubmissionGraph.class);
+                if (graph.getStatus() == null) {
+                    graph.setStatus(SubmissionStatus.SUBMITTED);
+                }
+                if (graph.getSource() == null) {
+                    graph.setSource(SubmissionSource.PAPER);
+                }
+                return new ImportedReturn(lineNumber, graph);
+            } catch (final IOException e) {
+                final ImportedReturn invalid = new ImportedReturn(lineNumber, null);
+                invalid.addError(lineNumber, null, "IMPORT_RECORD_INVALID");
+                return invalid;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads paper returns from a CSV file with one row per record.  The record column identifies the type of each row:
+     * <ul>
+     * <li>ACTIVITY - the days fished on a river</li>
+     * <li>CATCH - a large catch on the river of an activity</li>
+     * <li>SMALL_CATCH - the count of small catches using a method in a month on the river of an activity, rows for the same river and
+     * month are combined into a single small catch</li>
+     * </ul>
+     * Consecutive rows with the same contact and season form a single return, catches must follow the activity for their river.
+     * Rivers, species and methods are given by identifier, dates as yyyy-MM-dd or dd/MM/yyyy and months by number or name.
+     */
+    private static final class Csv extends SubmissionImportReader {
+        private static final String CONTACT_ID = "Contact ID";
+        private static final String SEASON = "Season";
+        private static final String RECORD = "Record";
+        private static final String RIVER = "River";
+        private static final String DAYS_FISHED_WITH_MANDATORY_RELEASE = "Days Fished With Mandatory Release";
+        private static final String DAYS_FISHED_OTHER = "Days Fished Other";
+        private static final String DATE_CAUGHT = "Date Caught";
+        private static final String MONTH = "Month";
+        private static final String SPECIES = "Species";
+        private static final String METHOD = "Method";
+        private static final String MASS_TYPE = "Mass Type";
+        private static final String MASS = "Mass";
+        private static final String COUNT = "Count";
+        private static final String RELEASED = "Released";
+        private static final String NO_DATE_RECORDED = "No Date Recorded";
+        private static final String ONLY_MONTH_RECORDED = "Only Month Recorded";
+        private static final String NO_MONTH_RECORDED = "No Month Recorded";
+        private static final List<String> REQUIRED_HEADERS = Arrays.asList(CONTACT_ID, SEASON, RECORD, RIVER);
+        private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("[yyyy-MM-dd][dd/MM/yyyy]");
+
+        private final CsvParser parser;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private Row lookahead;
+
+        private Csv(final InputStream stream) {
+            this.parser = CsvUtil.beginReading(stream);
+            final String[] headers = parser.parseNext();
+            if (headers != null) {
+                for (int i = 0; i < headers.length; i++) {
+                    columns.putIfAbsent(StringUtils.trimToEmpty(headers[i]), i);
+                }
+            }
+            final List<String> missing = REQUIRED_HEADERS.stream().filter(h -> !columns.containsKey(h)).collect(Collectors.toList());
+            if (!missing.isEmpty()) {
+                parser.stopParsing();
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing required column(s) " + String.join(", ", missing));
+            }
+            lookahead = readRow();
+        }
+
+        @Override
+        ImportedReturn next() {
+            if (lookahead == null) {
+                return null;
+            }
+            final Row first = lookahead;
+            final SubmissionGraph graph = new SubmissionGraph();
+            graph.setContactId(first.get(CONTACT_ID));
+            graph.setStatus(SubmissionStatus.SUBMITTED);
+            graph.setSource(SubmissionSource.PAPER);
+            final ImportedReturn imported = new ImportedReturn(first.line, graph);
+            try {
+                graph.setSeason(first.parse(SEASON, Short::valueOf));
+            } catch (final InvalidValueException e) {
+                imported.addError(first.line, e.column, "IMPORT_VALUE_INVALID");
+            }
+
+            final ReturnBuilder builder = new ReturnBuilder(imported);
+            do {
+                builder.add(lookahead);
+                lookahead = readRow();
+            } while (lookahead != null && first.isSameReturn(lookahead));
+            return imported;
+        }
+
+        private Row readRow() {
+            String[] values;
+            do {
+                values = parser.parseNext();
+            } while (values != null && Arrays.stream(values).allMatch(StringUtils::isBlank));
+            return values != null ? new Row((int) parser.getContext().currentLine(), values) : null;
+        }
+
+        @Override
+        public void close() {
+            parser.stopParsing();
+        }
+
+        /**
+         * Adds the records of a return to its graph
+         */
+        private static final class ReturnBuilder {
+            private final ImportedReturn imported;
+            private final Map<Long, Integer> activityIndexes = new HashMap<>();
+            private final Map<String, SubmissionGraph.SmallCatchNode> smallCatches = new HashMap<>();
+
+            private ReturnBuilder(final ImportedReturn imported) {
+                this.imported = imported;
+            }
+
+            private void add(final Row row) {
+                try {
+                    final String record = StringUtils.upperCase(row.get(RECORD), Locale.ENGLISH);
+                    final Long river = row.parse(RIVER, Long::valueOf);
+                    if ("ACTIVITY".equals(record)) {
+                        addActivity(row, river);
+                    } else if ("CATCH".equals(record) || "SMALL_CATCH".equals(record)) {
+                        final Integer activityIndex = activityIndexes.get(river);
+                        if (activityIndex == null) {
+                            imported.addError(row.line, RIVER, "IMPORT_ACTIVITY_NOT_FOUND");
+                        } else if ("CATCH".equals(record)) {
+                            addCatch(row, activityIndex);
+                        } else {
+                            addSmallCatch(row, activityIndex);
+                        }
+                    } else {
+                        imported.addError(row.line, RECORD, "IMPORT_RECORD_INVALID");
+                    }
+                } catch (final InvalidValueException e) {
+                    imported.addError(row.line, e.column, "IMPORT_VALUE_INVALID");
+                }
+            }
+
+            private void addActivity(final Row row, final Long river) {
+                final SubmissionGraph.ActivityNode activity = new SubmissionGraph.ActivityNode();
+                activity.setRiver(river);
+                activity.setDaysFishedWithMandatoryRelease(row.parse(DAYS_FISHED_WITH_MANDATORY_RELEASE, Short::valueOf));
+                activity.setDaysFishedOther(row.parse(DAYS_FISHED_OTHER, Short::valueOf));
+                final List<SubmissionGraph.ActivityNode> activities = imported.getGraph().getActivities();
+                // Duplicate rivers are added regardless so that they are reported by the activity validator
+                activityIndexes.putIfAbsent(river, activities.size());
+                imported.getNodeLines().put("activities[" + activities.size() + "]", row.line);
+                activities.add(activity);
+            }
+
+            private void addCatch(final Row row, final int activityIndex) {
+                final SubmissionGraph.CatchNode largeCatch = new SubmissionGraph.CatchNode();
+                largeCatch.setDateCaught(row.parse(DATE_CAUGHT, v -> LocalDate.parse(v, DATE_FORMAT)));
+                largeCatch.setSpecies(row.parse(SPECIES, Long::valueOf));
+                largeCatch.setMethod(row.parse(METHOD, Long::valueOf));
+                largeCatch.setMassType(row.parse(MASS_TYPE, v -> CatchMass.MeasurementType.valueOf(v.toUpperCase(Locale.ENGLISH))));
+                largeCatch.setMass(row.parse(MASS, BigDecimal::new));
+                largeCatch.setReleased(row.parseBoolean(RELEASED));
+                largeCatch.setNoDateRecorded(BooleanUtils.isTrue(row.parseBoolean(NO_DATE_RECORDED)));
+                largeCatch.setOnlyMonthRecorded(BooleanUtils.isTrue(row.parseBoolean(ONLY_MONTH_RECORDED)));
+                final List<SubmissionGraph.CatchNode> catches = imported.getGraph().getActivities().get(activityIndex).getCatches();
+                imported.getNodeLines().put("activities[" + activityIndex + "].catches[" + catches.size() + "]", row.line);
+                catches.add(largeCatch);
+            }
+
+            private void addSmallCatch(final Row row, final int activityIndex) {
+                final Month month = row.parse(MONTH, v -> StringUtils.isNumeric(v) ? Month.of(Integer.parseInt(v))
+                        : Month.valueOf(v.toUpperCase(Locale.ENGLISH)));
+                final SubmissionGraph.CountNode count = new SubmissionGraph.CountNode();
+                count.setMethod(row.parse(METHOD, Long::valueOf));
+                count.setCount(row.parse(COUNT, Short::valueOf));
+                final Short released = row.parse(RELEASED, Short::valueOf);
+                final Boolean noMonthRecorded = row.parseBoolean(NO_MONTH_RECORDED);
+
+                final List<SubmissionGraph.SmallCatchNode> activitySmallCatches =
+                        imported.getGraph().getActivities().get(activityIndex).getSmallCatches();
+                final SubmissionGraph.SmallCatchNode smallCatch = smallCatches.computeIfAbsent(activityIndex + "|" + month, k -> {
+                    final SubmissionGraph.SmallCatchNode node = new SubmissionGraph.SmallCatchNode();
+                    node.setMonth(month);
+                    imported.getNodeLines().put("activities[" + activityIndex + "].smallCatches[" + activitySmallCatches.size() + "]",
+                            row.line);
+                    activitySmallCatches.add(node);
+                    return node;
+                });
+                smallCatch.getCounts().add(count);
+                if (released != null) {
+                    smallCatch.setReleased(released);
+                }
+                if (noMonthRecorded != null) {
+                    smallCatch.setNoMonthRecorded(noMonthRecorded);
+                }
+            }
+        }
+
+        /**
+         * A single row of the CSV file
+         */
+        private final class Row {
+            private final int line;
+            private final String[] values;
+
+            private Row(final int line, final String[] values) {
+                this.line = line;
+                this.values = values;
+            }
+
+            private String get(final String column) {
+                final Integer index = columns.get(column);
+                return index != null && index < values.length ? StringUtils.trimToNull(values[index]) : null;
+            }
+
+            private <T> T parse(final String column, final Function<String, T> parser) {
+                final String value = get(column);
+                try {
+                    return value != null ? parser.apply(value) : null;
+                } catch (final IllegalArgumentException | DateTimeException e) {
+                    throw new InvalidValueException(column);
+                }
+            }
+
+            private Boolean parseBoolean(final String column) {
+                final String value = get(column);
+                final Boolean result = BooleanUtils.toBooleanObject(value);
+                if (value != null && result == null) {
+                    throw new InvalidValueException(column);
+                }
+                return result;
+            }
+
+            private boolean isSameReturn(final Row other) {
+                return StringUtils.equals(get(CONTACT_ID), other.get(CONTACT_ID)) && StringUtils.equals(get(SEASON), other.get(SEASON));
+            }
+        }
+
+        /**
+         * Thrown when a value cannot be parsed
+         */
+        private static final class InvalidValueException extends RuntimeException {
+            private static final long serialVersionUID = 1L;
+            private final String column;
+
+            private InvalidValueException(final String column) {
+                super("Invalid value in column " + column, null, false, false);
+                this.column = column;
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package uk.gov.defra.datareturns.services.submissions;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.univocity.parsers.csv.CsvWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import uk.gov.defra.datareturns.config.SubmissionImportConfiguration;
+import uk.gov.defra.datareturns.data.model.submissions.Submission;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionImportError;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionImportResult;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionRepository;
+import uk.gov.defra.datareturns.util.CsvUtil;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of catch returns (typically paper returns keyed in by the Fisheries Management Team).
+ * <p>
+ * The import file is read a batch of returns at a time.  The returns in each batch are validated in parallel using the same constraint
+ * validators as the individual REST resources, checked against the returns already held, and the valid returns written in a single
+ * transaction using batched inserts.  Invalid returns are rejected as a whole and their errors written to a CSV error report which may be
+ * downloaded for the retention period.
+ */
+@Service
+@Slf4j
+public class SubmissionImportService {
+    /**
+     * Media type of JSON-lines import files
+     */
+    public static final String JSON_LINES_VALUE = "application/x-ndjson";
+
+    private static final String REPORT_EXTENSION = ".csv";
+
+    private final SubmissionImportConfiguration configuration;
+    private final SubmissionGraphService submissionGraphService;
+    private final SubmissionRepository submissionRepository;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor validationExecutor;
+
+    public SubmissionImportService(final SubmissionImportConfiguration configuration,
+                                   final SubmissionGraphService submissionGraphService,
+                                   final SubmissionRepository submissionRepository,
+                                   final Validator validator,
+                                   final ObjectMapper objectMapper,
+                                   @Qualifier(SubmissionImportConfiguration.IMPORT_EXECUTOR) final ThreadPoolTaskExecutor executor) {
+        this.configuration = configuration;
+        this.submissionGraphService = submissionGraphService;
+        this.submissionRepository = submissionRepository;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.validationExecutor = executor;
+    }
+
+    /**
+     * Import the catch returns in the given file
+     *
+     * @param stream    the import file
+     * @param mediaType the media type of the import file (CSV or JSON-lines)
+     * @return a summary of the import
+     * @throws IOException if the import file cannot be read or the error report cannot be written
+     */
+    public SubmissionImportResult importReturns(final InputStream stream, final MediaType mediaType) throws IOException {
+        final UUID id = UUID.randomUUID();
+        final Path report = getReportFile(id);
+        Files.createDirectories(report.getParent());
+
+        final ImportCounts counts = new ImportCounts();
+        // Validators consult the current user's authorities, so the security context is propagated to the validating threads
+        final Executor executor = new DelegatingSecurityContextExecutor(validationExecutor, SecurityContextHolder.getContext());
+        try (SubmissionImportReader reader = openReader(stream, mediaType);
+             Writer writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            final CsvWriter errors = CsvUtil.beginWriting(SubmissionImportError.class, writer);
+            final Set<String> seen = new HashSet<>();
+            List<ImportedReturn> batch;
+            while (!(batch = reader.next(configuration.getBatchSize())).isEmpty()) {
+                importBatch(batch, seen, errors, executor, counts);
+            }
+            errors.flush();
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(report);
+            throw e;
+        }
+        log.info("Imported {} of {} returns ({} rejected)", counts.imported, counts.returns, counts.rejected);
+
+        if (counts.rejected == 0) {
+            Files.deleteIfExists(report);
+            return SubmissionImportResult.of(null, counts.returns, counts.imported, counts.rejected);
+        }
+        return SubmissionImportResult.of(id, counts.returns, counts.imported, counts.rejected);
+    }
+
+    /**
+     * Retrieve the error report for an import
+     *
+     * @param id the import id
+     * @return an {@link Optional} containing the path to the error report, or empty if no such report exists (or it has expired)
+     */
+    public Optional<Path> getErrorReport(final UUID id) {
+        final Path report = getReportFile(id);
+        return Files.isRegularFile(report) ? Optional.of(report) : Optional.empty();
+    }
+
+    /**
+     * Remove expired error reports
+     */
+    @Scheduled(fixedDelay = 3600000)
+    public void expireReports() {
+        final Path directory = configuration.getDirectory();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        final Instant expiry = Instant.now().minus(configuration.getRetention());
+        try (DirectoryStream<Path> reports = Files.newDirectoryStream(directory, "*" + REPORT_EXTENSION)) {
+            for (final Path report : reports) {
+                if (Files.getLastModifiedTime(report).toInstant().isBefore(expiry)) {
+                    Files.deleteIfExists(report);
+                }
+            }
+        } catch (final IOException e) {
+            log.warn("Unable to remove expired import error reports from {}", directory, e);
+        }
+    }
+
+    private void importBatch(final List<ImportedReturn> batch, final Set<String> seen, final CsvWriter errors, final Executor executor,
+                             final ImportCounts counts) {
+        counts.returns += batch.size();
+        final List<ImportedReturn> readable = new ArrayList<>();
+        for (final ImportedReturn imported : batch) {
+            if (!imported.getErrors().isEmpty()) {
+                reject(errors, counts, imported.getErrors());
+            } else if (!seen.add(imported.getKey())) {
+                reject(errors, counts, imported.toError("contactId", "IMPORT_DUPLICATE_RETURN"));
+            } else {
+                readable.add(imported);
+            }
+        }
+        if (readable.isEmpty()) {
+            return;
+        }
+
+        final SubmissionGraphMapper mapper = submissionGraphService.mapper();
+        final List<CompletableFuture<ValidatedReturn>> validations = readable.stream()
+                .map(r -> CompletableFuture.supplyAsync(() -> validate(mapper, r), executor))
+                .collect(Collectors.toList());
+
+        final List<Submission> valid = new ArrayList<>();
+        final List<ValidatedReturn> validated = validations.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        final Set<String> existing = findExisting(validated);
+        for (final ValidatedReturn result : validated) {
+            if (!result.errors.isEmpty()) {
+                reject(errors, counts, result.errors);
+            } else if (existing.contains(result.imported.getKey())) {
+                reject(errors, counts, result.imported.toError("contactId", "IMPORT_SUBMISSION_EXISTS"));
+            } else {
+                valid.add(result.submission);
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            counts.imported += submissionGraphService.importAll(valid);
+        }
+    }
+
+    private ValidatedReturn validate(final SubmissionGraphMapper mapper, final ImportedReturn imported) {
+        final Submission submission = mapper.toSubmission(imported.getGraph());
+        final Set<ConstraintViolation<Submission>> violations = validator.validate(submission);
+        final List<SubmissionImportError> errors = violations.stream()
+                .map(v -> imported.toError(v.getPropertyPath().toString(), v.getMessage()))
+                .sorted(Comparator.comparing(SubmissionImportError::getLine).thenComparing(SubmissionImportError::getError))
+                .collect(Collectors.toList());
+        return new ValidatedReturn(imported, submission, errors);
+    }
+
+    private Set<String> findExisting(final List<ValidatedReturn> validated) {
+        final Map<Short, Set<String>> contactsBySeason = validated.stream().filter(r -> r.errors.isEmpty())
+                .collect(Collectors.groupingBy(r -> r.submission.getSeason(),
+                        Collectors.mapping(r -> r.submission.getContactId(), Collectors.toSet())));
+        final Set<String> existing = new HashSet<>();
+        contactsBySeason.forEach((season, contactIds) -> submissionRepository.findByContactIdInAndSeason(contactIds, season)
+                .forEach(s -> existing.add(s.getContactId() + "|" + s.getSeason())));
+        return existing;
+    }
+
+    private SubmissionImportReader openReader(final InputStream stream, final MediaType mediaType) {
+        if (MediaType.valueOf(JSON_LINES_VALUE).includes(mediaType)) {
+            return SubmissionImportReader.jsonLines(stream, objectMapper);
+        } else if (new MediaType("text", "csv").includes(mediaType)) {
+            return SubmissionImportReader.csv(stream);
+        }
+        throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Unsupported import file type " + mediaType);
+    }
+
+    private Path getReportFile(final UUID id) {
+        return configuration.getDirectory().resolve(id + REPORT_EXTENSION);
+    }
+
+    private static void reject(final CsvWriter errors, final ImportCounts counts, final SubmissionImportError error) {
+        reject(errors, counts, Collections.singletonList(error));
+    }
+
+    private static void reject(final CsvWriter errors, final ImportCounts counts, final List<SubmissionImportError> returnErrors) {
+        counts.rejected++;
+        returnErrors.forEach(errors::processRecord);
+    }
+
+    /**
+     * A return which has been validated, along with the entities built for it
+     */
+    private static final class ValidatedReturn {
+        private final ImportedReturn imported;
+        private final Submission submission;
+        private final List<SubmissionImportError> errors;
+
+        private ValidatedReturn(final ImportedReturn imported, final Submission submission, final List<SubmissionImportError> errors) {
+            this.imported = imported;
+            this.submission = submission;
+            this.errors = errors;
+        }
+    }
+
+    /**
+     * Running totals for an import
+     */
+    private static final class ImportCounts {
+        private int returns;
+        private int imported;
+        private int rejected;
+    }
+}
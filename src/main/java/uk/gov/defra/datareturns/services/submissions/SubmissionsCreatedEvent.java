@@ -0,0 +1,19 @@
+package uk.gov.defra.datareturns.services.submissions;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import uk.gov.defra.datareturns.data.model.submissions.Submission;
+
+import java.util.List;
+
+/**
+ * Published when complete catch returns have been created from submission graphs
+ */
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class SubmissionsCreatedEvent {
+    /**
+     * The submissions that were created
+     */
+    private final List<Submission> submissions;
+}
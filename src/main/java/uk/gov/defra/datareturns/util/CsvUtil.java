@@ -13,6 +13,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Writer;
 import java.util.List;
+import java.util.stream.Stream;
 
 public final class CsvUtil {
 
@@ -39,6 +40,20 @@ public final class CsvUtil {
         return parse(result, rowProcessor, stream);
     }
 
+    /**
+     * Begin reading CSV data from the given {@link InputStream} one row at a time.  Header extraction is not enabled, so the first row
+     * returned by {@link CsvParser#parseNext()} contains the headers.  The parser is closed once all rows have been read, callers
+     * abandoning the data early should call {@link CsvParser#stopParsing()}.
+     *
+     * @param stream the {@link InputStream} to read from
+     * @return a {@link CsvParser} ready to return the first row
+     */
+    public static CsvParser beginReading(final InputStream stream) {
+        final CsvParser parser = new CsvParser(new CsvParserSettings());
+        parser.beginParsing(stream);
+        return parser;
+    }
+
     private static <T> CsvReadResult<T> parse(final CsvReadResult<T> resultHandler, final RowProcessor processor, final InputStream stream) {
         final CsvParserSettings settings = new CsvParserSettings();
         settings.setHeaderExtractionEnabled(true);
@@ -73,21 +88,70 @@ public final class CsvUtil {
      */
     public static <T> void writeCsv(final Class<T> beanClass, final Iterable<T> entries, final HttpServletResponse response, final String filename)
             throws IOException {
+        setCsvResponseHeaders(response, filename);
+        try (final Writer writer = response.getWriter()) {
+            writeCsv(beanClass, entries, writer);
+        }
+    }
+
+    /**
+     * Writes CSV data to the given {@link Writer}.  The writer is flushed but not closed.
+     *
+     * @param beanClass the class of the source bean whose data should be written
+     * @param entries   a {@link Iterable} of beans that should be serialised to CSV
+     * @param writer    the {@link Writer} to write to
+     * @param <T>       the generic type of the beans to be written
+     */
+    public static <T> void writeCsv(final Class<T> beanClass, final Iterable<T> entries, final Writer writer) {
+        final CsvWriter csvWriter = beginWriting(beanClass, writer);
+        csvWriter.processRecords(entries);
+        csvWriter.flush();
+    }
+
+    /**
+     * Begin writing CSV data to the given {@link Writer} one bean at a time using {@link CsvWriter#processRecord(Object)}.  The headers
+     * are written immediately, callers should flush the returned {@link CsvWriter} once all beans have been written.
+     *
+     * @param beanClass the class of the source bean whose data should be written
+     * @param writer    the {@link Writer} to write to
+     * @param <T>       the generic type of the beans to be written
+     * @return a {@link CsvWriter} ready to write the first bean
+     */
+    public static <T> CsvWriter beginWriting(final Class<T> beanClass, final Writer writer) {
         final CsvWriterSettings settings = new CsvWriterSettings();
         settings.setAutoConfigurationEnabled(true);
         settings.setHeaderWritingEnabled(true);
         settings.setRowWriterProcessor(new BeanWriterProcessor<>(beanClass));
-        try (final Writer writer = response.getWriter()) {
-            response.setHeader("Content-Type", "text/csv; charset=UTF-8");
-            response.setHeader("Content-Disposition", "attachment; filename=\"" + filename + "\"");
-            final CsvWriter csvWriter = new CsvWriter(writer, settings);
-            csvWriter.writeHeaders();
-            csvWriter.processRecords(entries);
-            csvWriter.flush();
-            csvWriter.close();
-        }
+        final CsvWriter csvWriter = new CsvWriter(writer, settings);
+        csvWriter.writeHeaders();
+        return csvWriter;
     }
 
+    /**
+     * Writes CSV data to the given {@link Writer} as it is read from the given {@link Stream}.  The writer is flushed but not closed.
+     * <p>
+     * Each bean is serialised as soon as it is consumed from the stream, so the rows are never held in memory as a whole.
+     *
+     * @param beanClass the class of the source bean whose data should be written
+     * @param entries   a {@link Stream} of beans that should be serialised to CSV
+     * @param writer    the {@link Writer} to write to
+     * @param <T>       the generic type of the beans to be written
+     */
+    public static <T> void writeCsv(final Class<T> beanClass, final Stream<T> entries, final Writer writer) {
+        final Iterable<T> iterable = entries::iterator;
+        writeCsv(beanClass, iterable, writer);
+    }
+
+    /**
+     * Set the content headers on the given {@link HttpServletResponse} for a CSV file download
+     *
+     * @param response the {@link HttpServletResponse} to write to
+     * @param filename the filename for the output file
+     */
+    public static void setCsvResponseHeaders(final HttpServletResponse response, final String filename) {
+        response.setHeader("Content-Type", "text/csv; charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + filename + "\"");
+    }
 
     public interface CsvReadResult<T> {
         String[] getHeaders();
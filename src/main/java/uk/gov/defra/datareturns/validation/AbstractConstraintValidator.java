@@ -13,8 +13,8 @@ import java.util.List;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 
-import static uk.gov.defra.datareturns.config.SecurityConfiguration.RcrPermissionEvaluator.USE_INTERNAL;
 import static uk.gov.defra.datareturns.config.SecurityConfiguration.RcrPermissionEvaluator.hasAuthority;
+import static uk.gov.defra.datareturns.services.authentication.RcrAuthority.USE_INTERNAL;
 
 /**
  * Abstract implementation of the {@link ConstraintValidator} to simplify the validation logic of concrete subclasses
@@ -10,8 +10,8 @@ import uk.gov.defra.datareturns.validation.AbstractConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
 import java.util.Optional;
 
-import static uk.gov.defra.datareturns.config.SecurityConfiguration.RcrPermissionEvaluator.USE_INTERNAL;
 import static uk.gov.defra.datareturns.config.SecurityConfiguration.RcrPermissionEvaluator.hasAuthority;
+import static uk.gov.defra.datareturns.services.authentication.RcrAuthority.USE_INTERNAL;
 
 /**
  * Validate an {@link Activity} object
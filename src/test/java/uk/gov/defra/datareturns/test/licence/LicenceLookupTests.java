@@ -1,16 +1,41 @@
 package uk.gov.defra.datareturns.test.licence;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import lombok.extern.slf4j.Slf4j;
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.server.ResponseStatusException;
+import uk.gov.defra.datareturns.config.CacheManagerConfiguration;
+import uk.gov.defra.datareturns.config.LicenceLookupConfiguration;
 import uk.gov.defra.datareturns.data.model.licences.Licence;
+import uk.gov.defra.datareturns.data.model.licences.LicenceController;
 import uk.gov.defra.datareturns.services.crm.CrmLookupService;
+import uk.gov.defra.datareturns.services.crm.entity.CrmActivity;
+import uk.gov.defra.datareturns.services.crm.entity.CrmCallResult;
 import uk.gov.defra.datareturns.testcommons.framework.ApiContextTest;
 
 import javax.inject.Inject;
+import javax.inject.Named;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * Integration tests licence lookup
@@ -21,6 +46,9 @@ import java.util.Optional;
 public class LicenceLookupTests {
     @Inject
     private CrmLookupService crmLookupService;
+    @Inject
+    @Named(CacheManagerConfiguration.LICENCE_CACHE_MANAGER)
+    private CacheManager licenceCacheManager;
 
     @Test
     public void testLicenceLookupSucceeds() {
@@ -51,4 +79,147 @@ public class LicenceLookupTests {
         final Optional<Licence> licence = crmLookupService.getLicence("00081019");
         Assertions.assertThat(licence).isNotPresent();
     }
+
+    @Test
+    public void testLicenceLookupCachedIgnoringCaseAndWhitespace() {
+        Assertions.assertThat(crmLookupService.getLicence("B7A728", "WA4 8HT")).isPresent();
+        final long hits = getStats(CacheManagerConfiguration.LICENCE_CACHE).hitCount();
+        Assertions.assertThat(crmLookupService.getLicence("b7a728", " wa48ht")).isPresent();
+        Assertions.assertThat(getStats(CacheManagerConfiguration.LICENCE_CACHE).hitCount()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    public void testFullLicenceLookupNormalisedBeforeQuery() {
+        // both formattings share a cache entry, so whichever is looked up first must be queried in the normalised form
+        licenceCacheManager.getCache(CacheManagerConfiguration.FULL_LICENCE_CACHE).clear();
+        Assertions.assertThat(crmLookupService.getLicence(" 00081019-1ws3jp4-b7a718 ")).isPresent();
+        final long hits = getStats(CacheManagerConfiguration.FULL_LICENCE_CACHE).hitCount();
+        Assertions.assertThat(crmLookupService.getLicence("00081019-1WS3JP4-B7A718")).isPresent();
+        Assertions.assertThat(getStats(CacheManagerConfiguration.FULL_LICENCE_CACHE).hitCount()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    public void testFailedLicenceLookupCached() {
+        Assertions.assertThat(crmLookupService.getLicence("B91235", "WA4 0HT")).isNotPresent();
+        final long hits = getStats(CacheManagerConfiguration.LICENCE_CACHE).hitCount();
+        Assertions.assertThat(crmLookupService.getLicence("B91235", "WA4 0HT")).isNotPresent();
+        Assertions.assertThat(getStats(CacheManagerConfiguration.LICENCE_CACHE).hitCount()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    public void testLicenceLookupRejectedWhenExecutorSaturated() {
+        final BlockingLookupService blockingService = new BlockingLookupService(crmLookupService);
+        final ThreadPoolTaskExecutor executor = createExecutor();
+        try {
+            final LicenceController controller = new LicenceController(blockingService, new LicenceLookupConfiguration(), executor);
+            // the only thread is held by the first lookup and there is no queue, so the second lookup is rejected
+            controller.getLicence("B7A728", "WA4 8HT");
+            Assertions.assertThatThrownBy(() -> controller.getLicence("B7A728", "WA4 8HT"))
+                    .isInstanceOf(ResponseStatusException.class)
+                    .hasFieldOrPropertyWithValue("status", HttpStatus.SERVICE_UNAVAILABLE);
+        } finally {
+            blockingService.release();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLicenceLookupTimeout() throws Exception {
+        final BlockingLookupService blockingService = new BlockingLookupService(crmLookupService);
+        final ThreadPoolTaskExecutor executor = createExecutor();
+        try {
+            final LicenceLookupConfiguration configuration = new LicenceLookupConfiguration();
+            configuration.setTimeout(Duration.ofMillis(100));
+            final LicenceController controller = new LicenceController(blockingService, configuration, executor);
+            final DeferredResult<ResponseEntity<Licence>> result = controller.getLicence("B7A728", "WA4 8HT");
+
+            // start async processing as the dispatcher servlet would and then time out the request as the servlet container would
+            final MockHttpServletRequest request = new MockHttpServletRequest();
+            request.setAsyncSupported(true);
+            final WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+            asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, new MockHttpServletResponse()));
+            asyncManager.startDeferredResultProcessing(result);
+            final MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+            Assertions.assertThat(asyncContext.getTimeout()).isEqualTo(100);
+            for (final AsyncListener listener : asyncContext.getListeners()) {
+                listener.onTimeout(new AsyncEvent(asyncContext));
+            }
+
+            Assertions.assertThat(result.isSetOrExpired()).isTrue();
+            Assertions.assertThat(asyncManager.getConcurrentResult()).isInstanceOfSatisfying(ResponseEntity.class,
+                    response -> Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        } finally {
+            blockingService.release();
+            executor.shutdown();
+        }
+    }
+
+    private static ThreadPoolTaskExecutor createExecutor() {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.initialize();
+        return executor;
+    }
+
+    private CacheStats getStats(final String cacheName) {
+        return ((CaffeineCache) licenceCacheManager.getCache(cacheName)).getNativeCache().stats();
+    }
+
+    /**
+     * Licence lookup service whose licence lookups are held until released, simulating a slow CRM
+     */
+    private static final class BlockingLookupService implements CrmLookupService {
+        private final CrmLookupService delegate;
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        private BlockingLookupService(final CrmLookupService delegate) {
+            this.delegate = delegate;
+        }
+
+        private void release() {
+            released.countDown();
+        }
+
+        private void await() {
+            try {
+                released.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public Optional<Licence> getLicence(final String licenceNumber, final String postcode) {
+            await();
+            return delegate.getLicence(licenceNumber, postcode);
+        }
+
+        @Override
+        public Optional<Licence> getLicence(final String fullLicenceNumber) {
+            await();
+            return delegate.getLicence(fullLicenceNumber);
+        }
+
+        @Override
+        public void createActivity(final String contactId, final short season) {
+            delegate.createActivity(contactId, season);
+        }
+
+        @Override
+        public void updateActivity(final String contactId, final short season) {
+            delegate.updateActivity(contactId, season);
+        }
+
+        @Override
+        public List<CrmCallResult> callActivities(final List<CrmActivity.CrmActivityQuery> activities) {
+            return delegate.callActivities(activities);
+        }
+
+        @Override
+        public List<String> getAuthenticatedUserRoles(final String username, final String password) {
+            return delegate.getAuthenticatedUserRoles(username, password);
+        }
+    }
 }
@@ -0,0 +1,105 @@
+package uk.gov.defra.datareturns.test.referencedata;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.gov.defra.datareturns.config.CacheManagerConfiguration;
+import uk.gov.defra.datareturns.data.model.rivers.River;
+import uk.gov.defra.datareturns.data.model.rivers.RiverRepository;
+import uk.gov.defra.datareturns.data.model.species.Species;
+import uk.gov.defra.datareturns.data.model.species.SpeciesRepository;
+import uk.gov.defra.datareturns.services.crm.CrmActivityOutboxService;
+import uk.gov.defra.datareturns.services.referencedata.ReferenceDataSnapshotService;
+import uk.gov.defra.datareturns.testcommons.framework.ApiContextTest;
+import uk.gov.defra.datareturns.testutils.WithAdminUser;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Tests for the hibernate second-level and query caching of reference data
+ */
+@RunWith(SpringRunner.class)
+@ApiContextTest
+@WithAdminUser
+@Slf4j
+public class ReferenceDataCacheTests {
+    @Inject
+    private EntityManagerFactory entityManagerFactory;
+    @Inject
+    private SpeciesRepository speciesRepository;
+    @Inject
+    private RiverRepository riverRepository;
+    @Inject
+    private CrmActivityOutboxService outboxService;
+    @Inject
+    private ReferenceDataSnapshotService snapshotService;
+
+    @Test
+    public void testEntityServedFromSecondLevelCache() {
+        final Long id = speciesRepository.findAll().get(0).getId();
+        speciesRepository.findById(id);
+        final long hits = getRegionStatistics(Species.CACHE_REGION).getHitCount();
+        Assertions.assertThat(speciesRepository.findById(id)).isPresent();
+        Assertions.assertThat(getRegionStatistics(Species.CACHE_REGION).getHitCount()).isGreaterThan(hits);
+    }
+
+    @Test
+    public void testCachedQueryInvalidatedOnWrite() {
+        final List<Species> before = speciesRepository.findAll();
+        final long hits = getRegionStatistics(CacheManagerConfiguration.QUERY_RESULTS_REGION).getHitCount();
+        Assertions.assertThat(speciesRepository.findAll()).hasSameSizeAs(before);
+        Assertions.assertThat(getRegionStatistics(CacheManagerConfiguration.QUERY_RESULTS_REGION).getHitCount()).isEqualTo(hits + 1);
+
+        final Species species = new Species();
+        species.setName("Test species");
+        species.setSmallCatchMass(BigDecimal.ONE);
+        final Species saved = speciesRepository.saveAndFlush(species);
+        try {
+            // the write invalidates the cached query so the new species is found
+            Assertions.assertThat(speciesRepository.findAll()).hasSize(before.size() + 1);
+        } finally {
+            speciesRepository.delete(saved);
+        }
+        Assertions.assertThat(speciesRepository.findAll()).hasSameSizeAs(before);
+    }
+
+    @Test
+    public void testEntityCacheRetainedOnOutboxPoll() {
+        final Long id = riverRepository.findAll().get(0).getId();
+        riverRepository.findById(id);
+        final long hits = getRegionStatistics(River.CACHE_REGION).getHitCount();
+        final long misses = getRegionStatistics(River.CACHE_REGION).getMissCount();
+
+        // the outbox claim is a native update which must only invalidate the outbox table
+        outboxService.dispatch();
+        Assertions.assertThat(riverRepository.findById(id)).isPresent();
+        Assertions.assertThat(getRegionStatistics(River.CACHE_REGION).getHitCount()).isGreaterThan(hits);
+        Assertions.assertThat(getRegionStatistics(River.CACHE_REGION).getMissCount()).isEqualTo(misses);
+    }
+
+    @Test
+    public void testSnapshotReadFromDatabase() {
+        speciesRepository.findAll();
+        final long entityHits = getRegionStatistics(Species.CACHE_REGION).getHitCount();
+        final long queryHits = getRegionStatistics(CacheManagerConfiguration.QUERY_RESULTS_REGION).getHitCount();
+
+        // the caches are local to each instance so must not be relied upon to see changes made elsewhere
+        snapshotService.reload();
+        Assertions.assertThat(getRegionStatistics(Species.CACHE_REGION).getHitCount()).isEqualTo(entityHits);
+        Assertions.assertThat(getRegionStatistics(CacheManagerConfiguration.QUERY_RESULTS_REGION).getHitCount()).isEqualTo(queryHits);
+    }
+
+    private CacheRegionStatistics getRegionStatistics(final String regionName) {
+        final SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        return CacheManagerConfiguration.QUERY_RESULTS_REGION.equals(regionName)
+                ? sessionFactory.getStatistics().getQueryRegionStatistics(regionName)
+                : sessionFactory.getStatistics().getDomainDataRegionStatistics(regionName);
+    }
+}
@@ -2,14 +2,24 @@ package uk.gov.defra.datareturns.test.referencedata;
 
 import io.restassured.response.ExtractableResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.assertj.core.api.Assertions;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.junit4.SpringRunner;
+import uk.gov.defra.datareturns.services.referencedata.ReferenceDataSnapshot;
+import uk.gov.defra.datareturns.services.referencedata.ReferenceDataSnapshotService;
 import uk.gov.defra.datareturns.testcommons.framework.RestAssuredTest;
 import uk.gov.defra.datareturns.testutils.WithAdminUser;
 
+import javax.inject.Inject;
+
+import static uk.gov.defra.datareturns.testutils.IntegrationTestUtils.createEntity;
+import static uk.gov.defra.datareturns.testutils.IntegrationTestUtils.deleteEntity;
 import static uk.gov.defra.datareturns.testutils.IntegrationTestUtils.getEntity;
+import static uk.gov.defra.datareturns.testutils.IntegrationTestUtils.patchEntity;
 
 /**
  * Integration tests submission-level property validation
@@ -19,6 +29,9 @@ import static uk.gov.defra.datareturns.testutils.IntegrationTestUtils.getEntity;
 @WithAdminUser
 @Slf4j
 public class ReferenceDataIT {
+    @Inject
+    private ReferenceDataSnapshotService snapshotService;
+
     @Test
     public void testRegionCatchments() {
         final ExtractableResponse<?> r = getEntity("/regions/1")
@@ -38,4 +51,25 @@ public class ReferenceDataIT {
         final String catchmentCollectionUrl = r.jsonPath().getString("_links.rivers.href");
         getEntity(catchmentCollectionUrl).statusCode(200).body("_embedded.rivers", Matchers.hasSize(Matchers.greaterThan(0)));
     }
+
+    @Test
+    public void testSnapshotReloadedOnChange() {
+        final ReferenceDataSnapshot before = snapshotService.getSnapshot();
+        final String url = createEntity("/species", "{\"name\": \"Test species\", \"smallCatchMass\": 1}",
+                r -> r.statusCode(HttpStatus.CREATED.value()));
+        final Long id = Long.valueOf(StringUtils.substringAfterLast(url, "/"));
+        try {
+            // the existing snapshot is immutable, the change is seen in the snapshot reloaded once it was committed
+            final ReferenceDataSnapshot created = snapshotService.getSnapshot();
+            Assertions.assertThat(created.getVersion()).isGreaterThan(before.getVersion());
+            Assertions.assertThat(created.getSpecies().get(id).getName()).isEqualTo("Test species");
+            Assertions.assertThat(before.getSpecies().get(id)).isNull();
+
+            patchEntity(url, "{\"name\": \"Renamed species\"}", r -> r.statusCode(HttpStatus.OK.value()));
+            Assertions.assertThat(snapshotService.getSnapshot().getSpecies().get(id).getName()).isEqualTo("Renamed species");
+        } finally {
+            deleteEntity(url);
+        }
+        Assertions.assertThat(snapshotService.getSnapshot().getSpecies().get(id)).isNull();
+    }
 }
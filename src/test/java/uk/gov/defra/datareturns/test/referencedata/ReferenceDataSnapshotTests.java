@@ -0,0 +1,101 @@
+package uk.gov.defra.datareturns.test.referencedata;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.defra.datareturns.data.model.rivers.River;
+import uk.gov.defra.datareturns.data.model.rivers.RiverRepository;
+import uk.gov.defra.datareturns.data.model.species.Species;
+import uk.gov.defra.datareturns.data.model.species.SpeciesRepository;
+import uk.gov.defra.datareturns.services.referencedata.ReferenceDataSnapshot;
+import uk.gov.defra.datareturns.services.referencedata.ReferenceDataSnapshotService;
+import uk.gov.defra.datareturns.testcommons.framework.ApiContextTest;
+import uk.gov.defra.datareturns.testutils.WithAdminUser;
+
+import javax.inject.Inject;
+import java.math.BigDecimal;
+
+/**
+ * Tests for the in-memory reference data snapshot
+ */
+@RunWith(SpringRunner.class)
+@ApiContextTest
+@WithAdminUser
+@Slf4j
+public class ReferenceDataSnapshotTests {
+    @Inject
+    private ReferenceDataSnapshotService snapshotService;
+    @Inject
+    private RiverRepository riverRepository;
+    @Inject
+    private SpeciesRepository speciesRepository;
+    @Inject
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void testSnapshotIndexesReferenceDataById() {
+        final ReferenceDataSnapshot snapshot = snapshotService.getSnapshot();
+        Assertions.assertThat(snapshot.getRivers().size()).isEqualTo(riverRepository.count());
+        for (final River river : riverRepository.findAll()) {
+            final River cached = snapshot.getRivers().get(river.getId());
+            Assertions.assertThat(cached.getName()).isEqualTo(river.getName());
+            Assertions.assertThat(cached.getCatchment().getRegion().getId()).isEqualTo(river.getCatchment().getRegion().getId());
+        }
+        Assertions.assertThat(snapshot.getRivers().get(null)).isNull();
+        Assertions.assertThat(snapshot.getRivers().get(-1L)).isNull();
+        Assertions.assertThat(snapshot.getRivers().get(Long.MAX_VALUE)).isNull();
+    }
+
+    @Test
+    public void testEntityMissingFromSnapshotFoundInDatabase() {
+        final ReferenceDataSnapshot before = snapshotService.getSnapshot();
+
+        // written directly through the repository (as if through another instance) so the snapshot is not reloaded by the change
+        final Species species = new Species();
+        species.setName("Test species");
+        species.setSmallCatchMass(BigDecimal.ONE);
+        final Species saved = speciesRepository.saveAndFlush(species);
+        try {
+            Assertions.assertThat(snapshotService.getSnapshot().getSpecies().get(saved.getId())).isNull();
+            Assertions.assertThat(snapshotService.getSpecies(saved.getId()).getName()).isEqualTo("Test species");
+
+            // the miss reloads the snapshot
+            final ReferenceDataSnapshot after = snapshotService.getSnapshot();
+            Assertions.assertThat(after.getVersion()).isGreaterThan(before.getVersion());
+            Assertions.assertThat(after.getSpecies().get(saved.getId()).getName()).isEqualTo("Test species");
+            Assertions.assertThat(before.getSpecies().get(saved.getId())).isNull();
+        } finally {
+            speciesRepository.delete(saved);
+            snapshotService.reload();
+        }
+    }
+
+    @Test
+    public void testMissingEntityCheckedInCallersTransaction() {
+        final long version = snapshotService.getSnapshot().getVersion();
+        final TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.execute(status -> {
+            status.setRollbackOnly();
+            final Species species = new Species();
+            species.setName("Uncommitted species");
+            species.setSmallCatchMass(BigDecimal.ONE);
+            final Species saved = speciesRepository.saveAndFlush(species);
+            // the existence check can only see the uncommitted species if it joins the caller's transaction (and connection)
+            snapshotService.getSpecies(saved.getId());
+            return null;
+        });
+        Assertions.assertThat(snapshotService.getSnapshot().getVersion()).isGreaterThan(version);
+    }
+
+    @Test
+    public void testUnknownEntityNotFound() {
+        final long version = snapshotService.getSnapshot().getVersion();
+        Assertions.assertThat(snapshotService.getSpecies(Long.MAX_VALUE)).isNull();
+        Assertions.assertThat(snapshotService.getSpecies(null)).isNull();
+        Assertions.assertThat(snapshotService.getSnapshot().getVersion()).isEqualTo(version);
+    }
+}
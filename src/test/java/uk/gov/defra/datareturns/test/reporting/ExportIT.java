@@ -0,0 +1,80 @@
+package uk.gov.defra.datareturns.test.reporting;
+
+import io.restassured.filter.log.LogDetail;
+import io.restassured.http.ContentType;
+import io.restassured.response.ValidatableResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.gov.defra.datareturns.testcommons.framework.RestAssuredTest;
+import uk.gov.defra.datareturns.testutils.WithAdminUser;
+import uk.gov.defra.datareturns.util.CsvUtil;
+
+import java.time.Year;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static uk.gov.defra.datareturns.test.reporting.ReportingIT.readCsvFromResponse;
+import static uk.gov.defra.datareturns.testutils.IntegrationTestUtils.getEntity;
+
+/**
+ * Integration tests for asynchronous reporting exports
+ */
+@RunWith(SpringRunner.class)
+@RestAssuredTest
+@WithAdminUser
+@Slf4j
+public class ExportIT {
+    @Test
+    public void testExportJob() throws InterruptedException {
+        final String id = submit("{\"feed\": \"large-catches\", \"season\": \"2010-" + Year.now().getValue() + "\"}")
+                .statusCode(HttpStatus.ACCEPTED.value())
+                .body("feed", equalTo("LARGE_CATCHES"))
+                .extract().path("id");
+
+        final long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        String state = getEntity("/reporting/exports/" + id + "/status").statusCode(HttpStatus.OK.value()).extract().path("state");
+        while (!"COMPLETE".equals(state) && System.currentTimeMillis() < timeout) {
+            Assertions.assertThat(state).isNotEqualTo("FAILED");
+            Thread.sleep(100);
+            state = getEntity("/reporting/exports/" + id + "/status").extract().path("state");
+        }
+        Assertions.assertThat(state).isEqualTo("COMPLETE");
+
+        final CsvUtil.CsvReadResult<Object[]> result = readCsvFromResponse(getEntity("/reporting/exports/" + id).statusCode(HttpStatus.OK.value()));
+        Assertions.assertThat(result.getHeaders())
+                .containsExactly("ID", "Activity ID", "Date", "Species ID", "Method ID", "Mass (kg)", "Released",
+                        "Only Month Recorded", "No Date Recorded");
+    }
+
+    @Test
+    public void testUnknownFeed() {
+        submit("{\"feed\": \"unknown\", \"season\": \"2018\"}").statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @Test
+    public void testMissingSeason() {
+        submit("{\"feed\": \"large-catches\"}").statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @Test
+    public void testInvalidSeason() {
+        submit("{\"feed\": \"large-catches\", \"season\": \"unknown\"}").statusCode(HttpStatus.BAD_REQUEST.value());
+        submit("{\"feed\": \"large-catches\", \"season\": \"99999999999\"}").statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @Test
+    public void testUnknownJob() {
+        getEntity("/reporting/exports/00000000-0000-0000-0000-000000000000").statusCode(HttpStatus.NOT_FOUND.value());
+    }
+
+    private static ValidatableResponse submit(final String json) {
+        return given().contentType(ContentType.JSON).body(json)
+                .when().post("/reporting/exports")
+                .then().log().ifValidationFails(LogDetail.ALL);
+    }
+}
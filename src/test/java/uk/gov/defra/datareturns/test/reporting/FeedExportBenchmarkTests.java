@@ -0,0 +1,134 @@
+package uk.gov.defra.datareturns.test.reporting;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.gov.defra.datareturns.config.ReportingConfiguration.FeedEngine;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.FeedType;
+import uk.gov.defra.datareturns.data.model.reporting.filters.SeasonFilter;
+import uk.gov.defra.datareturns.data.model.submissions.Submission;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionRepository;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionSource;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionStatus;
+import uk.gov.defra.datareturns.services.reporting.FeedExportService;
+import uk.gov.defra.datareturns.test.submissions.SubmissionTests;
+import uk.gov.defra.datareturns.testcommons.framework.ApiContextTest;
+import uk.gov.defra.datareturns.testutils.WithAdminUser;
+
+import javax.inject.Inject;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of the reporting feed export engines.
+ * <p>
+ * The COPY engine is only benchmarked when running against a PostgreSQL database, where the tests also verify that it produces the same
+ * output as the JPA engine.  On other databases the tests verify that the COPY engine falls back to the JPA engine.
+ */
+@RunWith(SpringRunner.class)
+@ApiContextTest
+@WithAdminUser
+@Slf4j
+public class FeedExportBenchmarkTests {
+    private static final SeasonFilter ALL_SEASONS = new SeasonFilter("*");
+    private static final int ITERATIONS = 5;
+
+    @Inject
+    private FeedExportService feedExportService;
+    @Inject
+    private SubmissionRepository submissionRepository;
+    @Inject
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testCopyFallsBackToJpa() throws IOException {
+        Assume.assumeFalse(feedExportService.isCopySupported());
+        assertEnginesMatch();
+    }
+
+    private void assertEnginesMatch() throws IOException {
+        for (final FeedType feed : FeedType.values()) {
+            final ByteArrayOutputStream jpa = new ByteArrayOutputStream();
+            final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            feedExportService.export(feed, ALL_SEASONS, jpa, FeedEngine.JPA);
+            feedExportService.export(feed, ALL_SEASONS, copy, FeedEngine.COPY);
+            Assertions.assertThat(new String(copy.toByteArray(), StandardCharsets.UTF_8)).as(feed.getPath())
+                    .isEqualTo(new String(jpa.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testCopyMatchesJpa() throws IOException {
+        Assume.assumeTrue(feedExportService.isCopySupported());
+        final Submission submission = submissionRepository.saveAndFlush(SubmissionTests.createValidSubmission("copy-contact", 2002,
+                SubmissionStatus.SUBMITTED, SubmissionSource.PAPER));
+        try {
+            // whole second timestamps are written with a fractional second by java.sql.Timestamp but not by PostgreSQL
+            jdbcTemplate.update("update rcr_submission set created = '2002-01-01 12:00:00', last_modified = '2002-01-01 12:30:00.5'"
+                    + " where id = ?", submission.getId());
+            final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            feedExportService.export(FeedType.SUBMISSIONS, ALL_SEASONS, copy, FeedEngine.COPY);
+            Assertions.assertThat(new String(copy.toByteArray(), StandardCharsets.UTF_8))
+                    .contains(submission.getId() + ",copy-contact,2002,SUBMITTED,PAPER,2002-01-01 12:00:00.0,2002-01-01 12:30:00.5\n");
+            assertEnginesMatch();
+        } finally {
+            submissionRepository.delete(submission);
+        }
+    }
+
+    @Test
+    public void testEngineThroughput() throws IOException {
+        Assume.assumeTrue(feedExportService.isCopySupported());
+        for (final FeedType feed : FeedType.values()) {
+            final double jpaRate = rowsPerSecond(feed, FeedEngine.JPA);
+            final double copyRate = rowsPerSecond(feed, FeedEngine.COPY);
+            log.info("{} export: jpa={} rows/sec, copy={} rows/sec", feed.getPath(), Math.round(jpaRate), Math.round(copyRate));
+        }
+    }
+
+    private double rowsPerSecond(final FeedType feed, final FeedEngine engine) throws IOException {
+        // Warm up once before timing to avoid measuring connection, statement and class loading costs
+        feedExportService.export(feed, ALL_SEASONS, new LineCountingOutputStream(), engine);
+
+        long rows = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            final LineCountingOutputStream out = new LineCountingOutputStream();
+            feedExportService.export(feed, ALL_SEASONS, out, engine);
+            // Exclude the header row
+            rows += Math.max(0, out.getLines() - 1);
+        }
+        final long elapsed = Math.max(1, System.nanoTime() - start);
+        return rows / (elapsed / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * {@link OutputStream} which discards its output, counting the number of lines written
+     */
+    @Getter
+    private static class LineCountingOutputStream extends OutputStream {
+        private long lines;
+
+        @Override
+        public void write(final int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
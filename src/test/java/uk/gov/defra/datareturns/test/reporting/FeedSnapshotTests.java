@@ -0,0 +1,119 @@
+package uk.gov.defra.datareturns.test.reporting;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.FeedType;
+import uk.gov.defra.datareturns.data.model.reporting.filters.SeasonFilter;
+import uk.gov.defra.datareturns.data.model.submissions.Submission;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionRepository;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionSource;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionStatus;
+import uk.gov.defra.datareturns.services.reporting.FeedExportService;
+import uk.gov.defra.datareturns.services.reporting.FeedSnapshotService;
+import uk.gov.defra.datareturns.test.submissions.SubmissionTests;
+import uk.gov.defra.datareturns.testcommons.framework.ApiContextTest;
+import uk.gov.defra.datareturns.testutils.WithAdminUser;
+
+import javax.inject.Inject;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tests for pre-rendered reporting feed snapshots
+ */
+@RunWith(SpringRunner.class)
+@ApiContextTest
+@WithAdminUser
+@Slf4j
+public class FeedSnapshotTests {
+    private static final short SEASON = 2001;
+    private static final SeasonFilter SEASON_FILTER = new SeasonFilter(String.valueOf(SEASON));
+
+    @Inject
+    private FeedSnapshotService snapshotService;
+    @Inject
+    private FeedExportService feedExportService;
+    @Inject
+    private SubmissionRepository submissionRepository;
+
+    @Test
+    public void testSnapshotMatchesLiveFeed() throws IOException {
+        snapshotService.render(FeedType.SUBMISSIONS, SEASON);
+        final Optional<Path> snapshot = getSnapshot();
+        Assertions.assertThat(snapshot).isPresent();
+
+        final ByteArrayOutputStream live = new ByteArrayOutputStream();
+        feedExportService.export(FeedType.SUBMISSIONS, SEASON_FILTER, live);
+        Assertions.assertThat(Files.readAllBytes(snapshot.get())).isEqualTo(live.toByteArray());
+    }
+
+    @Test
+    public void testConcurrentRendersConsistent() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> renders = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                renders.add(executor.submit(() -> {
+                    snapshotService.render(FeedType.SUBMISSIONS, SEASON);
+                    return null;
+                }));
+            }
+            for (final Future<?> render : renders) {
+                render.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        final Optional<Path> snapshot = getSnapshot();
+        Assertions.assertThat(snapshot).isPresent();
+
+        final ByteArrayOutputStream live = new ByteArrayOutputStream();
+        feedExportService.export(FeedType.SUBMISSIONS, SEASON_FILTER, live);
+        Assertions.assertThat(Files.readAllBytes(snapshot.get())).isEqualTo(live.toByteArray());
+    }
+
+    @Test
+    public void testSnapshotStaleAfterChange() throws IOException {
+        snapshotService.render(FeedType.SUBMISSIONS, SEASON);
+        Assertions.assertThat(getSnapshot()).isPresent();
+
+        final Submission submission = submissionRepository.saveAndFlush(SubmissionTests.createValidSubmission("snapshot-contact", (int) SEASON,
+                SubmissionStatus.SUBMITTED, SubmissionSource.PAPER));
+        try {
+            Assertions.assertThat(getSnapshot()).isNotPresent();
+        } finally {
+            submissionRepository.delete(submission);
+        }
+    }
+
+    @Test
+    public void testSnapshotInvalidation() throws IOException {
+        snapshotService.render(FeedType.SUBMISSIONS, SEASON);
+        snapshotService.invalidate(SEASON);
+        Assertions.assertThat(getSnapshot()).isNotPresent();
+    }
+
+    @Test
+    public void testMultipleSeasonsNotSnapshotted() throws IOException {
+        snapshotService.render(FeedType.SUBMISSIONS, SEASON);
+        final SeasonFilter range = new SeasonFilter(SEASON + "-" + (SEASON + 1));
+        Assertions.assertThat(snapshotService.getSnapshot(FeedType.SUBMISSIONS, range,
+                feedExportService.getValidator(FeedType.SUBMISSIONS, range), false)).isNotPresent();
+    }
+
+    private Optional<Path> getSnapshot() {
+        return snapshotService.getSnapshot(FeedType.SUBMISSIONS, SEASON_FILTER,
+                feedExportService.getValidator(FeedType.SUBMISSIONS, SEASON_FILTER), false);
+    }
+}
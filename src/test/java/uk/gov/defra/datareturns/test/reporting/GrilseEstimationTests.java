@@ -0,0 +1,168 @@
+package uk.gov.defra.datareturns.test.reporting;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.gov.defra.datareturns.data.model.activities.Activity;
+import uk.gov.defra.datareturns.data.model.activities.ActivityRepository;
+import uk.gov.defra.datareturns.data.model.catches.Catch;
+import uk.gov.defra.datareturns.data.model.catches.CatchRepository;
+import uk.gov.defra.datareturns.data.model.grilse.GrilseProbability;
+import uk.gov.defra.datareturns.data.model.grilse.GrilseProbabilityRepository;
+import uk.gov.defra.datareturns.data.model.grilse.GrilseWeightGate;
+import uk.gov.defra.datareturns.data.model.grilse.GrilseWeightGateRepository;
+import uk.gov.defra.datareturns.data.model.method.Method;
+import uk.gov.defra.datareturns.data.model.method.MethodRepository;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.FeedType;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.grilse.GrilseEstimateEntry;
+import uk.gov.defra.datareturns.data.model.reporting.filters.SeasonFilter;
+import uk.gov.defra.datareturns.data.model.rivers.River;
+import uk.gov.defra.datareturns.data.model.rivers.RiverRepository;
+import uk.gov.defra.datareturns.data.model.species.Species;
+import uk.gov.defra.datareturns.data.model.species.SpeciesRepository;
+import uk.gov.defra.datareturns.data.model.submissions.Submission;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionRepository;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionSource;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionStatus;
+import uk.gov.defra.datareturns.services.reporting.FeedExportService;
+import uk.gov.defra.datareturns.services.reporting.FeedValidator;
+import uk.gov.defra.datareturns.services.reporting.grilse.GrilseEstimationService;
+import uk.gov.defra.datareturns.services.reporting.grilse.GrilseProbabilityMatrix;
+import uk.gov.defra.datareturns.test.activities.ActivityTests;
+import uk.gov.defra.datareturns.test.catches.CatchTests;
+import uk.gov.defra.datareturns.test.submissions.SubmissionTests;
+import uk.gov.defra.datareturns.testcommons.framework.ApiContextTest;
+import uk.gov.defra.datareturns.testutils.WithAdminUser;
+
+import javax.inject.Inject;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for the grilse estimation engine
+ */
+@RunWith(SpringRunner.class)
+@ApiContextTest
+@WithAdminUser
+@Slf4j
+public class GrilseEstimationTests {
+    private static final short SEASON = 2003;
+
+    @Inject
+    private GrilseEstimationService grilseEstimationService;
+    @Inject
+    private FeedExportService feedExportService;
+    @Inject
+    private GrilseProbabilityRepository grilseProbabilityRepository;
+    @Inject
+    private GrilseWeightGateRepository grilseWeightGateRepository;
+    @Inject
+    private SubmissionRepository submissionRepository;
+    @Inject
+    private ActivityRepository activityRepository;
+    @Inject
+    private CatchRepository catchRepository;
+    @Inject
+    private RiverRepository riverRepository;
+    @Inject
+    private SpeciesRepository speciesRepository;
+    @Inject
+    private MethodRepository methodRepository;
+
+    private Submission submission;
+    private GrilseWeightGate gate;
+
+    @Before
+    public void setupTestData() {
+        // River 1 is in a catchment associated with gate 1
+        final River river = riverRepository.getOne(1L);
+        final Method method = methodRepository.getOne(1L);
+        final Species salmon = speciesRepository.getOne(1L);
+        gate = grilseWeightGateRepository.getOne(1L);
+
+        grilseProbabilityRepository.saveAll(Arrays.asList(
+                GrilseProbability.of(null, SEASON, gate, (short) 7, (short) 9, new BigDecimal("0.75")),
+                GrilseProbability.of(null, SEASON, gate, (short) 8, (short) 9, new BigDecimal("0.5"))));
+
+        submission = submissionRepository.saveAndFlush(SubmissionTests.createValidSubmission("grilse-contact", (int) SEASON,
+                SubmissionStatus.SUBMITTED, SubmissionSource.PAPER));
+        final Activity activity = activityRepository.saveAndFlush(ActivityTests.createValidActivity(submission, river, 10, 10));
+        // 4kg is 8.8lbs, matched to the 9lb probability data
+        saveCatch(activity, method, salmon, "4", LocalDate.of(SEASON, 7, 15));
+        // 10kg is 22lbs, beyond the heaviest probability data so treated as multi-sea-winter
+        saveCatch(activity, method, salmon, "10", LocalDate.of(SEASON, 7, 20));
+        saveCatch(activity, method, salmon, "4", LocalDate.of(SEASON, 8, 1));
+    }
+
+    @After
+    public void removeTestData() {
+        submissionRepository.deleteById(submission.getId());
+        grilseProbabilityRepository.deleteAll(grilseProbabilityRepository.findBySeasonAndGate(SEASON, gate));
+    }
+
+    @Test
+    public void testEstimatesPerRiverAndMonth() {
+        final List<GrilseEstimateEntry> estimates = grilseEstimationService.estimate(new SeasonFilter(String.valueOf(SEASON)));
+        Assertions.assertThat(estimates).hasSize(2);
+
+        Assertions.assertThat(estimates.get(0))
+                .hasFieldOrPropertyWithValue("season", SEASON)
+                .hasFieldOrPropertyWithValue("riverId", 1L)
+                .hasFieldOrPropertyWithValue("month", (short) 7)
+                .hasFieldOrPropertyWithValue("salmon", 2L);
+        Assertions.assertThat(estimates.get(0).getExpectedGrilse()).isEqualByComparingTo("0.75");
+        Assertions.assertThat(estimates.get(0).getExpectedMultiSeaWinter()).isEqualByComparingTo("1.25");
+
+        Assertions.assertThat(estimates.get(1)).hasFieldOrPropertyWithValue("month", (short) 8).hasFieldOrPropertyWithValue("salmon", 1L);
+        Assertions.assertThat(estimates.get(1).getExpectedGrilse()).isEqualByComparingTo("0.5");
+        Assertions.assertThat(estimates.get(1).getExpectedMultiSeaWinter()).isEqualByComparingTo("0.5");
+    }
+
+    @Test
+    public void testNoEstimatesForEmptySeason() {
+        Assertions.assertThat(grilseEstimationService.estimate(new SeasonFilter("1999"))).isEmpty();
+    }
+
+    @Test
+    public void testEstimatesExportedAsFeed() throws IOException {
+        final SeasonFilter season = new SeasonFilter(String.valueOf(SEASON));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        feedExportService.export(FeedType.GRILSE_ESTIMATES, season, out);
+        final String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\\r?\\n");
+        Assertions.assertThat(lines).hasSize(3);
+        Assertions.assertThat(lines[0]).contains("Expected Grilse", "Expected Multi-Sea-Winter");
+
+        // replacing the probability data changes the estimates, so must change the feed validator
+        final FeedValidator validator = feedExportService.getValidator(FeedType.GRILSE_ESTIMATES, season);
+        grilseProbabilityRepository.saveAndFlush(GrilseProbability.of(null, SEASON, gate, (short) 9, (short) 9, new BigDecimal("0.1")));
+        Assertions.assertThat(feedExportService.getValidator(FeedType.GRILSE_ESTIMATES, season).getEtag())
+                .isNotEqualTo(validator.getEtag());
+    }
+
+    @Test
+    public void testMatrixLookup() {
+        final GrilseProbabilityMatrix matrix = GrilseProbabilityMatrix.of(Collections.singletonList(
+                new Object[] {5L, (short) 6, (short) 10, new BigDecimal("0.25")}));
+        Assertions.assertThat(matrix.getProbability(5L, 6, 10 / GrilseProbabilityMatrix.LBS_PER_KG)).isEqualTo(0.25);
+        Assertions.assertThat(matrix.getProbability(5L, 7, 10 / GrilseProbabilityMatrix.LBS_PER_KG)).isZero();
+        Assertions.assertThat(matrix.getProbability(6L, 6, 10 / GrilseProbabilityMatrix.LBS_PER_KG)).isZero();
+        Assertions.assertThat(matrix.getProbability(5L, 6, 20)).isZero();
+    }
+
+    private void saveCatch(final Activity activity, final Method method, final Species species, final String kg, final LocalDate date) {
+        final Catch cat = CatchTests.createValidCatch(submission, activity, method, species, new BigDecimal(kg), false);
+        cat.setDateCaught(Date.valueOf(date));
+        catchRepository.saveAndFlush(cat);
+    }
+}
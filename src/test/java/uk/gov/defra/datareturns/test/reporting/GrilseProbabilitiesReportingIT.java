@@ -16,8 +16,15 @@ import uk.gov.defra.datareturns.testutils.WithAdminUser;
 import uk.gov.defra.datareturns.util.CsvUtil;
 
 import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.equalTo;
@@ -36,6 +43,8 @@ public class GrilseProbabilitiesReportingIT {
 
     @Inject
     private GrilseProbabilityRepository grilseProbabilityRepository;
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Test
     public void testLoad() throws IOException {
@@ -84,6 +93,43 @@ public class GrilseProbabilitiesReportingIT {
         Assertions.assertThat(result.getRows()).hasSize(0);
     }
 
+    @Test
+    public void testLoadLargeMatrix() {
+        grilseProbabilityRepository.deleteAll();
+        // Generate a matrix spanning several write batches
+        final StringBuilder csvData = new StringBuilder("Weight,January,February,March,April,May,June,July,August,September,October,November,"
+                + "December\n");
+        final int weights = 250;
+        for (int lbs = 1; lbs <= weights; lbs++) {
+            csvData.append(lbs);
+            for (int month = 1; month <= 12; month++) {
+                csvData.append(",0.5");
+            }
+            csvData.append("\n");
+        }
+        given().contentType("text/csv").body(csvData.toString())
+                .when().post(GRILSE_PROBABILITIES_2018_1)
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.CREATED.value());
+        Assertions.assertThat(grilseProbabilityRepository.count()).isEqualTo(weights * 12);
+    }
+
+    @Test
+    public void testInvalidRowsNotSaved() throws IOException {
+        grilseProbabilityRepository.deleteAll();
+        final String csvData = IOUtils.resourceToString("/data/grilse/mixed-errors.csv", StandardCharsets.UTF_8);
+        given().contentType("text/csv").body(csvData)
+                .when().post(GRILSE_PROBABILITIES_2018_1)
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body("errors[0].errorType", equalTo("DUPLICATE_WEIGHT"))
+                .body("errors[0].row", equalTo(4))
+                .body("errors[0].col", equalTo(1));
+        Assertions.assertThat(grilseProbabilityRepository.count()).isZero();
+    }
+
     @Test
     public void testInvalidHeaders() throws IOException {
         grilseProbabilityRepository.deleteAll();
@@ -195,6 +241,195 @@ public class GrilseProbabilitiesReportingIT {
                 .statusCode(HttpStatus.CREATED.value());
     }
 
+    @Test
+    public void testReplaceAuditedAsSingleRevision() throws IOException {
+        grilseProbabilityRepository.deleteAll();
+        final String csvData = IOUtils.resourceToString("/data/grilse/valid-grilse-data-69-datapoints.csv", StandardCharsets.UTF_8);
+        for (int i = 0; i < 2; i++) {
+            given().contentType("text/csv").body(csvData)
+                    .when().post(GRILSE_PROBABILITIES_2018_1 + "?overwrite=true")
+                    .then()
+                    .log().ifValidationFails(LogDetail.ALL)
+                    .statusCode(HttpStatus.CREATED.value());
+        }
+        Assertions.assertThat(grilseProbabilityRepository.count()).isEqualTo(62);
+
+        // The replacing upload should record the removal of the previous data and the new data against a single revision
+        final Object[] audit = (Object[]) entityManager.createNativeQuery("select count(distinct aud.rev), "
+                + "count(case when aud.revtype = 0 then 1 end), count(case when aud.revtype = 2 then 1 end) "
+                + "from rcr_grilse_probability_aud aud where aud.rev = (select max(rev) from rcr_grilse_probability_aud)")
+                .getSingleResult();
+        Assertions.assertThat(((Number) audit[0]).intValue()).isEqualTo(1);
+        Assertions.assertThat(((Number) audit[1]).intValue()).isEqualTo(62);
+        Assertions.assertThat(((Number) audit[2]).intValue()).isEqualTo(62);
+    }
+
+    @Test
+    public void testLookup() throws IOException {
+        grilseProbabilityRepository.deleteAll();
+        final String csvData = IOUtils.resourceToString("/data/grilse/valid-grilse-data-69-datapoints.csv", StandardCharsets.UTF_8);
+        given().contentType("text/csv").body(csvData)
+                .when().post(GRILSE_PROBABILITIES_2018_1 + "?overwrite=true")
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.CREATED.value());
+
+        // River 1 is in a catchment associated with gate 1
+        getEntity("reporting/reference/grilse-probabilities/2018/lookup?river=1&month=8&massLbs=4")
+                .body("river", equalTo(1))
+                .body("gate", equalTo("Dee"))
+                .body("massLbs", equalTo(4))
+                .body("probability", equalTo(0.986f));
+
+        given().contentType("application/json")
+                .body("[{\"river\": 1, \"month\": 8, \"massKg\": 1.8}, {\"river\": 1, \"month\": 1, \"massLbs\": 4}]")
+                .when().post("reporting/reference/grilse-probabilities/2018/lookup")
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.OK.value())
+                .body("[0].massLbs", equalTo(4))
+                .body("[0].probability", equalTo(0.986f))
+                .body("[1].probability", equalTo(0f));
+
+        // Queries without a mass, or with a negative mass, are rejected
+        getEntity("reporting/reference/grilse-probabilities/2018/lookup?river=1&month=8")
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+        getEntity("reporting/reference/grilse-probabilities/2018/lookup?river=1&month=8&massKg=-1")
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+
+        // Uploading new data replaces the lookup data
+        given().contentType("text/csv").body("Weight,August\n4,0.5\n")
+                .when().post(GRILSE_PROBABILITIES_2018_1 + "?overwrite=true")
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.CREATED.value());
+        getEntity("reporting/reference/grilse-probabilities/2018/lookup?river=1&month=8&massLbs=4")
+                .body("probability", equalTo(0.5f));
+    }
+
+    @Test
+    public void testMultiGateZipUpload() throws IOException {
+        grilseProbabilityRepository.deleteAll();
+        final byte[] csvData = IOUtils.resourceToByteArray("/data/grilse/valid-grilse-data-69-datapoints.csv");
+        final Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("Dee.csv", csvData);
+        files.put("gates/Tamar.csv", csvData);
+        given().contentType("application/zip").body(zip(files))
+                .when().post("reporting/reference/grilse-probabilities/2018")
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.CREATED.value());
+        Assertions.assertThat(grilseProbabilityRepository.count()).isEqualTo(124);
+
+        given().contentType("application/zip").body(zip(files))
+                .when().post("reporting/reference/grilse-probabilities/2018")
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.CONFLICT.value());
+    }
+
+    @Test
+    public void testMultiGateMultipartUpload() throws IOException {
+        grilseProbabilityRepository.deleteAll();
+        final byte[] csvData = IOUtils.resourceToByteArray("/data/grilse/valid-grilse-data-69-datapoints.csv");
+        given().multiPart("file", "Dee.csv", csvData, "text/csv").multiPart("file", "Tamar.csv", csvData, "text/csv")
+                .when().post("reporting/reference/grilse-probabilities/2018?overwrite=true")
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.CREATED.value());
+        Assertions.assertThat(grilseProbabilityRepository.count()).isEqualTo(124);
+    }
+
+    @Test
+    public void testMultiGateErrorsGroupedByFile() throws IOException {
+        grilseProbabilityRepository.deleteAll();
+        final Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("Dee.csv", IOUtils.resourceToByteArray("/data/grilse/valid-grilse-data-69-datapoints.csv"));
+        files.put("Tamar.csv", IOUtils.resourceToByteArray("/data/grilse/duplicate-weight.csv"));
+        files.put("Unknown.csv", IOUtils.resourceToByteArray("/data/grilse/valid-grilse-data-69-datapoints.csv"));
+        given().contentType("application/zip").body(zip(files))
+                .when().post("reporting/reference/grilse-probabilities/2018")
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body("files", Matchers.hasSize(2))
+                .body("files.find { it.file == 'Tamar.csv' }.errors[0].errorType", equalTo("DUPLICATE_WEIGHT"))
+                .body("files.find { it.file == 'Tamar.csv' }.errors[0].row", equalTo(4))
+                .body("files.find { it.file == 'Unknown.csv' }.message", equalTo("No grilse weight gate found matching the filename."));
+        Assertions.assertThat(grilseProbabilityRepository.count()).isZero();
+    }
+
+    @Test
+    public void testMultiGateZipDuplicateFilename() throws IOException {
+        grilseProbabilityRepository.deleteAll();
+        final byte[] csvData = IOUtils.resourceToByteArray("/data/grilse/valid-grilse-data-69-datapoints.csv");
+        final Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("Dee.csv", csvData);
+        files.put("gates/Dee.csv", csvData);
+        given().contentType("application/zip").body(zip(files))
+                .when().post("reporting/reference/grilse-probabilities/2018")
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body("files", Matchers.hasSize(1))
+                .body("files[0].file", equalTo("Dee.csv"))
+                .body("files[0].message", equalTo("More than one file named Dee.csv found."));
+        Assertions.assertThat(grilseProbabilityRepository.count()).isZero();
+    }
+
+    @Test
+    public void testMultiGateMultipartDuplicateFilename() throws IOException {
+        grilseProbabilityRepository.deleteAll();
+        final byte[] csvData = IOUtils.resourceToByteArray("/data/grilse/valid-grilse-data-69-datapoints.csv");
+        given().multiPart("file", "Dee.csv", csvData, "text/csv").multiPart("file", "Dee.csv", csvData, "text/csv")
+                .when().post("reporting/reference/grilse-probabilities/2018?overwrite=true")
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body("files[0].message", equalTo("More than one file named Dee.csv found."));
+        Assertions.assertThat(grilseProbabilityRepository.count()).isZero();
+    }
+
+    @Test
+    public void testMultiGateZipEntryTooLarge() throws IOException {
+        grilseProbabilityRepository.deleteAll();
+        final Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("Dee.csv", new byte[6 * 1024 * 1024]);
+        given().contentType("application/zip").body(zip(files))
+                .when().post("reporting/reference/grilse-probabilities/2018")
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        Assertions.assertThat(grilseProbabilityRepository.count()).isZero();
+    }
+
+    @Test
+    public void testMultiGateZipTotalTooLarge() throws IOException {
+        grilseProbabilityRepository.deleteAll();
+        final Map<String, byte[]> files = new LinkedHashMap<>();
+        for (int i = 0; i < 5; i++) {
+            files.put("Gate" + i + ".csv", new byte[4 * 1024 * 1024 + 1]);
+        }
+        given().contentType("application/zip").body(zip(files))
+                .when().post("reporting/reference/grilse-probabilities/2018")
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        Assertions.assertThat(grilseProbabilityRepository.count()).isZero();
+    }
+
+    private static byte[] zip(final Map<String, byte[]> files) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (final Map.Entry<String, byte[]> file : files.entrySet()) {
+                zip.putNextEntry(new ZipEntry(file.getKey()));
+                zip.write(file.getValue());
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
     @Test
     public void testInvalidCsv() throws IOException {
         grilseProbabilityRepository.deleteAll();
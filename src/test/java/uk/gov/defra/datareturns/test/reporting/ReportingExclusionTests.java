@@ -12,6 +12,7 @@ import uk.gov.defra.datareturns.data.model.catches.Catch;
 import uk.gov.defra.datareturns.data.model.catches.CatchRepository;
 import uk.gov.defra.datareturns.data.model.method.Method;
 import uk.gov.defra.datareturns.data.model.method.MethodRepository;
+import uk.gov.defra.datareturns.data.model.reporting.feeds.FeedType;
 import uk.gov.defra.datareturns.data.model.reporting.feeds.activities.ActivityFeed;
 import uk.gov.defra.datareturns.data.model.reporting.feeds.activities.ActivityFeedRepository;
 import uk.gov.defra.datareturns.data.model.reporting.feeds.activities.ActivityFeed_;
@@ -27,6 +28,7 @@ import uk.gov.defra.datareturns.data.model.reporting.feeds.catches.SmallCatchFee
 import uk.gov.defra.datareturns.data.model.reporting.feeds.submissions.SubmissionFeed;
 import uk.gov.defra.datareturns.data.model.reporting.feeds.submissions.SubmissionFeedRepository;
 import uk.gov.defra.datareturns.data.model.reporting.feeds.submissions.SubmissionFeed_;
+import uk.gov.defra.datareturns.data.model.reporting.filters.SeasonFilter;
 import uk.gov.defra.datareturns.data.model.rivers.River;
 import uk.gov.defra.datareturns.data.model.rivers.RiverRepository;
 import uk.gov.defra.datareturns.data.model.smallcatches.SmallCatch;
@@ -38,6 +40,8 @@ import uk.gov.defra.datareturns.data.model.submissions.Submission;
 import uk.gov.defra.datareturns.data.model.submissions.SubmissionRepository;
 import uk.gov.defra.datareturns.data.model.submissions.SubmissionSource;
 import uk.gov.defra.datareturns.data.model.submissions.SubmissionStatus;
+import uk.gov.defra.datareturns.services.reporting.FeedChanges;
+import uk.gov.defra.datareturns.services.reporting.FeedExportService;
 import uk.gov.defra.datareturns.test.activities.ActivityTests;
 import uk.gov.defra.datareturns.test.catches.CatchTests;
 import uk.gov.defra.datareturns.test.smallcatches.SmallCatchCountTests;
@@ -57,6 +61,7 @@ import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Integration tests catch object property validation
@@ -92,6 +97,8 @@ public class ReportingExclusionTests {
     private SmallCatchFeedRepository smallCatchFeedRepository;
     @Inject
     private SmallCatchCountFeedRepository smallCatchCountFeedRepository;
+    @Inject
+    private FeedExportService feedExportService;
 
     private Submission submission;
     private Activity activity;
@@ -203,6 +210,31 @@ public class ReportingExclusionTests {
         Assertions.assertThat(getSmallCatchCountReportData()).hasSize(0);
     }
 
+    @Test
+    @Transactional
+    public void testChangesSinceWatermark() {
+        final SeasonFilter season = new SeasonFilter(String.valueOf(Year.now().getValue()));
+        final FeedChanges<?> changes = feedExportService.getChanges(FeedType.LARGE_CATCHES, season, 0);
+        Assertions.assertThat(changes.getUpserts()).hasSize(1).first().hasFieldOrPropertyWithValue("id", largeCatch.getId());
+        Assertions.assertThat(changes.getTombstones()).isEmpty();
+        Assertions.assertThat(changes.getWatermark()).isPositive();
+
+        final long future = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+        Assertions.assertThat(feedExportService.getChanges(FeedType.LARGE_CATCHES, season, future).getUpserts()).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    public void testExclusionChangesAreTombstoned() {
+        largeCatch.setReportingExclude(true);
+        catchRepository.saveAndFlush(largeCatch);
+
+        final SeasonFilter season = new SeasonFilter(String.valueOf(Year.now().getValue()));
+        final FeedChanges<?> changes = feedExportService.getChanges(FeedType.LARGE_CATCHES, season, 0);
+        Assertions.assertThat(changes.getUpserts()).isEmpty();
+        Assertions.assertThat(changes.getTombstones()).containsExactly(largeCatch.getId());
+    }
+
     private List<SubmissionFeed> getSubmissionData() {
         return submissionFeedRepository.findAll((root, query, cb) -> cb.equal(root.get(SubmissionFeed_.season), Year.now().getValue()));
     }
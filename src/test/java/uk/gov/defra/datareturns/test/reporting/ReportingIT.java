@@ -1,19 +1,28 @@
 package uk.gov.defra.datareturns.test.reporting;
 
+import io.restassured.filter.log.LogDetail;
 import io.restassured.response.ValidatableResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.junit4.SpringRunner;
 import uk.gov.defra.datareturns.testcommons.framework.RestAssuredTest;
 import uk.gov.defra.datareturns.testutils.WithAdminUser;
 import uk.gov.defra.datareturns.util.CsvUtil;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
+import static io.restassured.RestAssured.given;
 import static uk.gov.defra.datareturns.testutils.IntegrationTestUtils.getEntity;
 import static uk.gov.defra.datareturns.util.CsvUtil.CsvReadResult;
 
@@ -71,4 +80,140 @@ public class ReportingIT {
         final CsvReadResult<Object[]> result = readCsvFromResponse(response);
         Assertions.assertThat(result.getHeaders()).containsExactly("Small Catch ID", "Method ID", "Caught");
     }
+
+    @Test
+    public void testActivitySummaryFeed() {
+        final ValidatableResponse response = getEntity("/reporting/feeds/activity-summary/" + Year.now().getValue());
+        final CsvReadResult<Object[]> result = readCsvFromResponse(response);
+        Assertions.assertThat(result.getHeaders())
+                .containsExactly("Season", "Region", "Catchment", "River ID", "River", "Anglers", "Days Fished (Mandatory Release)",
+                        "Days Fished (Other)");
+    }
+
+    @Test
+    public void testLargeCatchSummaryFeed() {
+        final ValidatableResponse response = getEntity("/reporting/feeds/large-catch-summary/" + Year.now().getValue());
+        final CsvReadResult<Object[]> result = readCsvFromResponse(response);
+        Assertions.assertThat(result.getHeaders())
+                .containsExactly("Season", "Region", "Catchment", "River ID", "River", "Month", "Species ID", "Method ID", "Caught",
+                        "Released", "Mass (kg)");
+    }
+
+    @Test
+    public void testSmallCatchSummaryFeed() {
+        final ValidatableResponse response = getEntity("/reporting/feeds/small-catch-summary/" + Year.now().getValue());
+        final CsvReadResult<Object[]> result = readCsvFromResponse(response);
+        Assertions.assertThat(result.getHeaders())
+                .containsExactly("Season", "Region", "Catchment", "River ID", "River", "Month", "Caught", "Released");
+    }
+
+    @Test
+    public void testSmallCatchCountSummaryFeed() {
+        final ValidatableResponse response = getEntity("/reporting/feeds/small-catch-count-summary/" + Year.now().getValue());
+        final CsvReadResult<Object[]> result = readCsvFromResponse(response);
+        Assertions.assertThat(result.getHeaders())
+                .containsExactly("Season", "Region", "Catchment", "River ID", "River", "Month", "Method ID", "Caught");
+    }
+
+    @Test
+    public void testGrilseEstimatesFeed() {
+        final ValidatableResponse response = getEntity("/reporting/feeds/grilse-estimates/" + Year.now().getValue());
+        final CsvReadResult<Object[]> result = readCsvFromResponse(response);
+        Assertions.assertThat(result.getHeaders())
+                .containsExactly("Season", "Region", "Catchment", "River ID", "River", "Month", "Salmon", "Expected Grilse",
+                        "Expected Multi-Sea-Winter");
+    }
+
+    @Test
+    public void testConditionalFeedRequest() {
+        final String url = "/reporting/feeds/submissions/" + Year.now().getValue();
+        final ValidatableResponse response = getEntity(url).statusCode(HttpStatus.OK.value());
+        final String etag = response.extract().header(HttpHeaders.ETAG);
+        Assertions.assertThat(etag).isNotEmpty();
+        // the latest modification time does not reflect deleted rows, so only the entity tag is used to validate the feed
+        Assertions.assertThat(response.extract().header(HttpHeaders.LAST_MODIFIED)).isNull();
+        given().header(HttpHeaders.IF_MODIFIED_SINCE, "Fri, 31 Dec 9999 23:59:59 GMT")
+                .when().get(url)
+                .then().log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.OK.value());
+
+        given().header(HttpHeaders.IF_NONE_MATCH, etag)
+                .when().get(url)
+                .then().log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.NOT_MODIFIED.value());
+
+        given().header(HttpHeaders.IF_NONE_MATCH, "\"stale\"")
+                .when().get(url)
+                .then().log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.OK.value());
+    }
+
+    @Test
+    public void testSnapshotEntityTagDiffersByContentCoding() {
+        final int season = 2001;
+        final String url = "/reporting/feeds/submissions/" + season;
+        given().when().post("/reporting/feeds/snapshots/" + season)
+                .then().log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.NO_CONTENT.value());
+
+        final ValidatableResponse gzip = given().header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .when().get(url)
+                .then().log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.OK.value())
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        final String gzipEtag = gzip.extract().header(HttpHeaders.ETAG);
+        Assertions.assertThat(readCsvFromResponse(gzip).getHeaders())
+                .containsExactly("ID", "Contact ID", "Season", "Status", "Source", "Created", "Last Modified");
+
+        final ValidatableResponse identity = given().header(HttpHeaders.ACCEPT_ENCODING, "identity")
+                .when().get(url)
+                .then().log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.OK.value());
+        final String identityEtag = identity.extract().header(HttpHeaders.ETAG);
+        Assertions.assertThat(identity.extract().header(HttpHeaders.CONTENT_ENCODING)).isNull();
+        Assertions.assertThat(gzipEtag).isEqualTo(identityEtag.substring(0, identityEtag.length() - 1) + "-gzip\"");
+
+        // each validator is only current for its own content-coding
+        given().header(HttpHeaders.ACCEPT_ENCODING, "gzip").header(HttpHeaders.IF_NONE_MATCH, gzipEtag)
+                .when().get(url)
+                .then().log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.NOT_MODIFIED.value());
+        given().header(HttpHeaders.ACCEPT_ENCODING, "identity").header(HttpHeaders.IF_NONE_MATCH, gzipEtag)
+                .when().get(url)
+                .then().log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.OK.value());
+        given().header(HttpHeaders.ACCEPT_ENCODING, "identity").header(HttpHeaders.IF_NONE_MATCH, identityEtag)
+                .when().get(url)
+                .then().log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.NOT_MODIFIED.value());
+    }
+
+    @Test
+    public void testFeedBundle() throws IOException {
+        final int season = Year.now().getValue();
+        final byte[] bundle = getEntity("/reporting/feeds/bundle/" + season)
+                .statusCode(HttpStatus.OK.value())
+                .contentType("application/zip")
+                .extract().body().asByteArray();
+
+        final List<String> entries = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bundle))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.add(entry.getName());
+            }
+        }
+        Assertions.assertThat(entries).containsExactlyInAnyOrder(
+                "SubmissionFeed-" + season + "-" + season + ".csv",
+                "Activities-" + season + "-" + season + ".csv",
+                "LargeCatchFeed-" + season + "-" + season + ".csv",
+                "SmallCatchFeed-" + season + "-" + season + ".csv",
+                "SmallCatchCountFeed-" + season + "-" + season + ".csv",
+                "ActivitySummary-" + season + "-" + season + ".csv",
+                "LargeCatchSummary-" + season + "-" + season + ".csv",
+                "SmallCatchSummary-" + season + "-" + season + ".csv",
+                "SmallCatchCountSummary-" + season + "-" + season + ".csv",
+                "GrilseEstimates-" + season + "-" + season + ".csv",
+                "grilse-probabilities-" + season + "-" + season + ".csv",
+                "locations.csv", "species.csv", "methods.csv");
+    }
 }
@@ -63,6 +63,20 @@ public class SeasonFilterTests {
         Assertions.assertThat(filter.isActive()).isEqualTo(false);
     }
 
+    @Test
+    public void testSeasonBounds() {
+        final SeasonFilter filter = new SeasonFilter("2016-2018");
+        Assertions.assertThat(filter.getMinSeason()).isEqualTo((short) 2016);
+        Assertions.assertThat(filter.getMaxSeason()).isEqualTo((short) 2018);
+    }
+
+    @Test
+    public void testInactiveSeasonBoundsUnrestricted() {
+        final SeasonFilter filter = new SeasonFilter("*");
+        Assertions.assertThat(filter.getMinSeason()).isEqualTo(Short.MIN_VALUE);
+        Assertions.assertThat(filter.getMaxSeason()).isEqualTo(Short.MAX_VALUE);
+    }
+
     @Test(expected = UnsupportedOperationException.class)
     public void testInvalidRange() {
         new SeasonFilter("abc");
@@ -0,0 +1,165 @@
+package uk.gov.defra.datareturns.test.restclient;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.assertj.core.api.Assertions;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import uk.gov.defra.datareturns.config.DynamicsConfiguration;
+import uk.gov.defra.datareturns.testcommons.framework.ApiContextTest;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for the pooled HTTP client used for dynamics calls
+ */
+@RunWith(SpringRunner.class)
+@ApiContextTest
+@Slf4j
+public class DynamicsHttpClientTests {
+    @Inject
+    private DynamicsConfiguration.Http configuration;
+    @Inject
+    private PoolingHttpClientConnectionManager dynamicsConnectionManager;
+    @Inject
+    @Named(DynamicsConfiguration.Http.REQUEST_FACTORY)
+    private ClientHttpRequestFactory requestFactory;
+
+    @Test
+    public void testConnectionPoolConfigured() {
+        Assertions.assertThat(dynamicsConnectionManager.getMaxTotal()).isEqualTo(configuration.getMaxConnections());
+        Assertions.assertThat(dynamicsConnectionManager.getDefaultMaxPerRoute()).isEqualTo(configuration.getMaxConnectionsPerRoute());
+        Assertions.assertThat(dynamicsConnectionManager.getTotalStats().getMax()).isEqualTo(configuration.getMaxConnections());
+    }
+
+    @Test
+    public void testRequestFactoryUsesPooledClient() {
+        Assertions.assertThat(requestFactory).isInstanceOf(HttpComponentsClientHttpRequestFactory.class);
+    }
+
+    @Test
+    public void testReadTimeoutApplied() throws IOException {
+        final DynamicsConfiguration.Http http = pooledClientConfiguration();
+        try (ServerSocket server = createServer(); CloseableHttpClient client = createClient(http)) {
+            // the connection is held in the server's backlog and never responded to
+            final RestTemplate template = createTemplate(http, client);
+            final long start = System.nanoTime();
+            Assertions.assertThatThrownBy(() -> template.getForObject(getUrl(server), String.class))
+                    .isInstanceOf(ResourceAccessException.class)
+                    .hasCauseInstanceOf(SocketTimeoutException.class);
+            Assertions.assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+        }
+    }
+
+    @Test
+    public void testConnectionPoolLimitApplied() throws Exception {
+        final DynamicsConfiguration.Http http = pooledClientConfiguration();
+        http.setReadTimeout(Duration.ofSeconds(3));
+        try (ServerSocket server = createServer(); CloseableHttpClient client = createClient(http)) {
+            final CountDownLatch accepted = new CountDownLatch(1);
+            final CompletableFuture<Socket> acceptor = CompletableFuture.supplyAsync(() -> {
+                try {
+                    final Socket socket = server.accept();
+                    accepted.countDown();
+                    return socket;
+                } catch (final IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            final RestTemplate template = createTemplate(http, client);
+            // the first request holds the only pooled connection while it awaits a response
+            final CompletableFuture<Void> first = CompletableFuture.runAsync(() -> template.getForObject(getUrl(server), String.class));
+            Assertions.assertThat(accepted.await(5, TimeUnit.SECONDS)).isTrue();
+            try (Socket ignored = acceptor.get()) {
+                Assertions.assertThatThrownBy(() -> template.getForObject(getUrl(server), String.class))
+                        .isInstanceOf(ResourceAccessException.class)
+                        .hasCauseInstanceOf(ConnectionPoolTimeoutException.class);
+            }
+            Assertions.assertThatThrownBy(first::join).hasCauseInstanceOf(ResourceAccessException.class);
+        }
+    }
+
+    @Test
+    public void testConnectTimeoutApplied() throws IOException {
+        final DynamicsConfiguration.Http http = pooledClientConfiguration();
+        final List<Socket> backlog = new ArrayList<>();
+        try (ServerSocket server = createServer(); CloseableHttpClient client = createClient(http)) {
+            // fill the (never accepted) connection backlog so that further connection attempts are not answered
+            boolean backlogFull = false;
+            for (int i = 0; i < 10 && !backlogFull; i++) {
+                final Socket socket = new Socket();
+                backlog.add(socket);
+                try {
+                    socket.connect(server.getLocalSocketAddress(), 200);
+                } catch (final SocketTimeoutException e) {
+                    backlogFull = true;
+                }
+            }
+            Assume.assumeTrue("Connection backlog could not be filled on this platform", backlogFull);
+
+            final RestTemplate template = createTemplate(http, client);
+            Assertions.assertThatThrownBy(() -> template.getForObject(getUrl(server), String.class))
+                    .isInstanceOf(ResourceAccessException.class)
+                    .hasCauseInstanceOf(ConnectTimeoutException.class);
+        } finally {
+            for (final Socket socket : backlog) {
+                socket.close();
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the pooled client configuration with a single connection and short timeouts
+     */
+    private DynamicsConfiguration.Http pooledClientConfiguration() {
+        final DynamicsConfiguration.Http http = new DynamicsConfiguration.Http();
+        http.setMaxConnections(1);
+        http.setMaxConnectionsPerRoute(1);
+        http.setIdleEviction(configuration.getIdleEviction());
+        http.setValidateAfterInactivity(configuration.getValidateAfterInactivity());
+        http.setConnectTimeout(Duration.ofMillis(500));
+        http.setConnectionRequestTimeout(Duration.ofMillis(500));
+        http.setReadTimeout(Duration.ofMillis(500));
+        return http;
+    }
+
+    private static CloseableHttpClient createClient(final DynamicsConfiguration.Http http) {
+        return http.dynamicsHttpClient(http.dynamicsConnectionManager());
+    }
+
+    private static RestTemplate createTemplate(final DynamicsConfiguration.Http http, final CloseableHttpClient client) {
+        return new RestTemplate(http.dynamicsRequestFactory(client));
+    }
+
+    private static ServerSocket createServer() throws IOException {
+        final ServerSocket server = new ServerSocket();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1);
+        return server;
+    }
+
+    private static String getUrl(final ServerSocket server) {
+        return "http://" + server.getInetAddress().getHostAddress() + ":" + server.getLocalPort() + "/";
+    }
+}
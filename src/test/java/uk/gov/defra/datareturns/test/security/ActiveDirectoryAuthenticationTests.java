@@ -0,0 +1,80 @@
+package uk.gov.defra.datareturns.test.security;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.gov.defra.datareturns.config.CacheManagerConfiguration;
+import uk.gov.defra.datareturns.services.authentication.ActiveDirectoryAuthenticationProvider;
+import uk.gov.defra.datareturns.testcommons.framework.ApiContextTest;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+/**
+ * Tests for the caching of active directory authentications
+ */
+@RunWith(SpringRunner.class)
+@ApiContextTest
+@Slf4j
+public class ActiveDirectoryAuthenticationTests {
+    private static final String USERNAME = "admin@example.com";
+    private static final String PASSWORD = "admin";
+
+    @Inject
+    private ActiveDirectoryAuthenticationProvider activeDirectoryAuthentication;
+    @Inject
+    @Named(CacheManagerConfiguration.AUTHENTICATION_CACHE_MANAGER)
+    private CacheManager authenticationCacheManager;
+
+    @Before
+    public void evictCachedAuthentication() {
+        activeDirectoryAuthentication.evict(USERNAME);
+    }
+
+    @Test
+    public void testAuthenticationCachedByUsername() {
+        final Authentication first = authenticate("Admin@Example.com", PASSWORD);
+        final long hits = getStats().hitCount();
+        final Authentication second = authenticate(USERNAME, PASSWORD);
+        Assertions.assertThat(getStats().hitCount()).isEqualTo(hits + 1);
+        Assertions.assertThat(AuthorityUtils.authorityListToSet(second.getAuthorities()))
+                .isEqualTo(AuthorityUtils.authorityListToSet(first.getAuthorities()))
+                .contains("USE_INTERNAL", "REFERENCE_DATA_WRITE");
+    }
+
+    @Test
+    public void testCachedAuthenticationRequiresMatchingPassword() {
+        authenticate(USERNAME, PASSWORD);
+        Assertions.assertThatThrownBy(() -> authenticate(USERNAME, "not" + PASSWORD)).isInstanceOf(BadCredentialsException.class);
+        // the failed attempt does not displace the cached authentication
+        final long hits = getStats().hitCount();
+        authenticate(USERNAME, PASSWORD);
+        Assertions.assertThat(getStats().hitCount()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    public void testCachedAuthenticationEvicted() {
+        authenticate(USERNAME, PASSWORD);
+        Assertions.assertThat(activeDirectoryAuthentication.evict(USERNAME)).isTrue();
+        Assertions.assertThat(activeDirectoryAuthentication.evict(USERNAME)).isFalse();
+    }
+
+    private Authentication authenticate(final String username, final String password) {
+        return activeDirectoryAuthentication.authenticate(new UsernamePasswordAuthenticationToken(username, password));
+    }
+
+    private CacheStats getStats() {
+        final CaffeineCache cache = (CaffeineCache) authenticationCacheManager.getCache(CacheManagerConfiguration.AUTHENTICATION_CACHE);
+        return cache.getNativeCache().stats();
+    }
+}
@@ -0,0 +1,157 @@
+package uk.gov.defra.datareturns.test.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.gov.defra.datareturns.config.SecurityConfiguration.RcrPermissionEvaluator;
+import uk.gov.defra.datareturns.data.model.activities.Activity;
+import uk.gov.defra.datareturns.data.model.catches.Catch;
+import uk.gov.defra.datareturns.data.model.method.Method;
+import uk.gov.defra.datareturns.data.model.method.MethodRepository;
+import uk.gov.defra.datareturns.data.model.rivers.River;
+import uk.gov.defra.datareturns.data.model.rivers.RiverRepository;
+import uk.gov.defra.datareturns.data.model.species.Species;
+import uk.gov.defra.datareturns.data.model.species.SpeciesRepository;
+import uk.gov.defra.datareturns.data.model.submissions.Submission;
+import uk.gov.defra.datareturns.services.authentication.RcrAuthentication;
+import uk.gov.defra.datareturns.services.authentication.RcrAuthority;
+import uk.gov.defra.datareturns.test.activities.ActivityTests;
+import uk.gov.defra.datareturns.test.catches.CatchTests;
+import uk.gov.defra.datareturns.test.submissions.SubmissionTests;
+import uk.gov.defra.datareturns.testcommons.framework.ApiContextTest;
+
+import javax.inject.Inject;
+import javax.validation.Validator;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of authority checks for an authentication holding only granted authority names against a {@link RcrAuthentication}
+ * (whose {@link RcrAuthority} grants are compiled into an enum set), both directly and when validating a 200 catch submission.
+ * <p>
+ * The throughput benchmarks are only run when the rcr.benchmarks system property is set (see the benchmarks maven profile).
+ */
+@RunWith(SpringRunner.class)
+@ApiContextTest
+@Slf4j
+public class AuthorityCheckBenchmarkTests {
+    private static final int CATCHES = 200;
+    private static final int ITERATIONS = 50;
+    private static final int CHECKS = 1000000;
+    private static final List<GrantedAuthority> AUTHORITIES = AuthorityUtils.createAuthorityList("REGION_READ", "USE_INTERNAL");
+    private static final boolean BENCHMARKS = Boolean.getBoolean("rcr.benchmarks");
+
+    @Inject
+    private RiverRepository riverRepository;
+    @Inject
+    private MethodRepository methodRepository;
+    @Inject
+    private SpeciesRepository speciesRepository;
+    @Inject
+    private Validator validator;
+
+    @After
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testCompiledAuthoritiesMatchGrantedAuthorities() {
+        final Authentication granted = new UsernamePasswordAuthenticationToken("user", "password", AUTHORITIES);
+        final Authentication compiled = new RcrAuthentication("user", "password", AUTHORITIES);
+        for (final RcrAuthority authority : RcrAuthority.values()) {
+            Assertions.assertThat(RcrPermissionEvaluator.hasAuthority(compiled, authority))
+                    .isEqualTo(RcrPermissionEvaluator.hasAuthority(granted, authority))
+                    .isEqualTo(RcrPermissionEvaluator.hasAuthority(compiled, authority.name()));
+        }
+        Assertions.assertThat(RcrPermissionEvaluator.hasAuthority(compiled, "REGION_READ")).isTrue();
+        Assertions.assertThat(RcrPermissionEvaluator.hasAuthority(compiled, "REGION_WRITE")).isFalse();
+    }
+
+    @Test
+    public void testAuthorityCheckThroughput() {
+        Assume.assumeTrue(BENCHMARKS);
+        final Authentication granted = new UsernamePasswordAuthenticationToken("user", "password", AUTHORITIES);
+        final Authentication compiled = new RcrAuthentication("user", "password", AUTHORITIES);
+        log.info("Authority checks: granted authorities={} checks/sec, compiled={} checks/sec",
+                Math.round(checksPerSecond(granted)), Math.round(checksPerSecond(compiled)));
+    }
+
+    @Test
+    public void testSubmissionValidationThroughput() {
+        Assume.assumeTrue(BENCHMARKS);
+        final Submission submission = createSubmission();
+        final Authentication granted = new UsernamePasswordAuthenticationToken("user", "password", AUTHORITIES);
+        final Authentication compiled = new RcrAuthentication("user", "password", AUTHORITIES);
+        final double grantedRate = validationsPerSecond(submission, granted);
+        final double compiledRate = validationsPerSecond(submission, compiled);
+        log.info("Validating a {} catch submission: granted authorities={} submissions/sec, compiled={} submissions/sec",
+                CATCHES, Math.round(grantedRate), Math.round(compiledRate));
+    }
+
+    private static double checksPerSecond(final Authentication authentication) {
+        // Warm up once before timing
+        int matched = countChecks(authentication);
+        final long start = System.nanoTime();
+        matched += countChecks(authentication);
+        final long elapsed = Math.max(1, System.nanoTime() - start);
+        Assertions.assertThat(matched).isEqualTo(2 * CHECKS);
+        return CHECKS / (elapsed / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static int countChecks(final Authentication authentication) {
+        int matched = 0;
+        for (int i = 0; i < CHECKS; i++) {
+            if (RcrPermissionEvaluator.hasAuthority(authentication, RcrAuthority.USE_INTERNAL)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    private double validationsPerSecond(final Submission submission, final Authentication authentication) {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        // Warm up once before timing
+        Assertions.assertThat(validator.validate(submission)).isEmpty();
+        final long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            Assertions.assertThat(validator.validate(submission)).isEmpty();
+        }
+        final long elapsed = Math.max(1, System.nanoTime() - start);
+        return ITERATIONS / (elapsed / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Create a submission with a single activity of {@link #CATCHES} catches, using internal reference data (where available) so that
+     * every restricted entity is subject to the authority check
+     */
+    private Submission createSubmission() {
+        final River river = riverRepository.findAll().stream().filter(River::isInternal).findFirst()
+                .orElseGet(() -> riverRepository.getOne(1L));
+        final Method method = methodRepository.findAll().stream().filter(Method::isInternal).findFirst()
+                .orElseGet(() -> methodRepository.getOne(1L));
+        final Species species = speciesRepository.getOne(1L);
+
+        final Submission submission = SubmissionTests.createValidSubmission();
+        final Activity activity = ActivityTests.createValidActivity(submission, river, 100, 100);
+        final List<Catch> catches = new ArrayList<>();
+        for (int i = 0; i < CATCHES; i++) {
+            catches.add(CatchTests.createValidCatch(submission, activity, method, species, BigDecimal.ONE, false));
+        }
+        activity.setCatches(catches);
+        submission.setActivities(Collections.singletonList(activity));
+        return submission;
+    }
+}
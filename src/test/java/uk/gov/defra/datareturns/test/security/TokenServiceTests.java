@@ -0,0 +1,135 @@
+package uk.gov.defra.datareturns.test.security;
+
+import com.microsoft.aad.adal4j.AuthenticationResult;
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import uk.gov.defra.datareturns.config.AADConfiguration;
+import uk.gov.defra.datareturns.config.DynamicsConfiguration;
+import uk.gov.defra.datareturns.services.aad.TokenServiceImpl;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for the retention and refresh of identity tokens by the {@link TokenServiceImpl} (AAD calls are stubbed)
+ */
+public class TokenServiceTests {
+    private final AADConfiguration configuration = new AADConfiguration();
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    @Before
+    public void setUp() throws MalformedURLException {
+        configuration.setAuthority(new URL("http://mock-ad.example.com/"));
+        configuration.setIdentityClientId("example");
+        executor.initialize();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testTokenDiscardedOnceUnused() throws Exception {
+        configuration.setTokenCacheExpiry(Duration.ofMillis(200));
+        final StubTokenService service = createService(Duration.ofHours(1), false);
+        service.getTokenForUserIdentity("user@example.com", "password");
+        service.getTokenForUserIdentity("user@example.com", "password");
+        Assertions.assertThat(service.passwordAcquisitions).hasValue(1);
+
+        Thread.sleep(400);
+        service.getTokenForUserIdentity("user@example.com", "password");
+        Assertions.assertThat(service.passwordAcquisitions).hasValue(2);
+    }
+
+    @Test
+    public void testTokensHeldForLimitedNumberOfIdentities() throws Exception {
+        configuration.setTokenCacheMaximumSize(1);
+        final StubTokenService service = createService(Duration.ofHours(1), false);
+        for (int i = 0; i < 10; i++) {
+            service.getTokenForUserIdentity("user" + i + "@example.com", "password");
+        }
+        Assertions.assertThat(service.passwordAcquisitions).hasValue(10);
+
+        // allow the cache to complete its (asynchronous) eviction of the excess identities
+        Thread.sleep(200);
+        for (int i = 0; i < 10; i++) {
+            service.getTokenForUserIdentity("user" + i + "@example.com", "password");
+        }
+        Assertions.assertThat(service.passwordAcquisitions.get()).isGreaterThan(10);
+    }
+
+    @Test
+    public void testTokenRefreshedUsingRefreshToken() throws Exception {
+        // tokens expiring within the refresh-ahead period are refreshed in the background
+        final StubTokenService service = createService(Duration.ofMinutes(1), false);
+        final String first = service.getTokenForUserIdentity("user@example.com", "password");
+        Assertions.assertThat(service.getTokenForUserIdentity("user@example.com", "password")).isNotEqualTo(first);
+        Assertions.assertThat(service.passwordAcquisitions).hasValue(1);
+        Assertions.assertThat(service.refreshTokenAcquisitions).hasValue(1);
+    }
+
+    @Test
+    public void testPasswordUsedWhenRefreshTokenRejected() throws Exception {
+        final StubTokenService service = createService(Duration.ofMinutes(1), true);
+        service.getTokenForUserIdentity("user@example.com", "password");
+        service.getTokenForUserIdentity("user@example.com", "password");
+        Assertions.assertThat(service.refreshTokenAcquisitions).hasValue(1);
+        Assertions.assertThat(service.passwordAcquisitions).hasValue(2);
+    }
+
+    private StubTokenService createService(final Duration tokenLifetime, final boolean rejectRefreshTokens) throws MalformedURLException {
+        final DynamicsConfiguration.Endpoint endpoint = new DynamicsConfiguration.Endpoint();
+        endpoint.setUrl(URI.create("http://mock-dynamics.example.com/"));
+        return new StubTokenService(configuration, endpoint, executor, tokenLifetime, rejectRefreshTokens);
+    }
+
+    /**
+     * Token service issuing tokens without calling AAD, counting the acquisitions made
+     */
+    private static final class StubTokenService extends TokenServiceImpl {
+        private final AtomicInteger passwordAcquisitions = new AtomicInteger();
+        private final AtomicInteger refreshTokenAcquisitions = new AtomicInteger();
+        private final AtomicInteger issued = new AtomicInteger();
+        private final Duration tokenLifetime;
+        private final boolean rejectRefreshTokens;
+
+        private StubTokenService(final AADConfiguration configuration, final DynamicsConfiguration.Endpoint endpoint,
+                                 final ThreadPoolTaskExecutor executor, final Duration tokenLifetime, final boolean rejectRefreshTokens)
+                throws MalformedURLException {
+            super(configuration, endpoint, executor);
+            this.tokenLifetime = tokenLifetime;
+            this.rejectRefreshTokens = rejectRefreshTokens;
+        }
+
+        @Override
+        protected CompletableFuture<AuthenticationResult> acquire(final String username, final String password) {
+            passwordAcquisitions.incrementAndGet();
+            return CompletableFuture.completedFuture(issue());
+        }
+
+        @Override
+        protected CompletableFuture<AuthenticationResult> acquireByRefreshToken(final String refreshToken) {
+            refreshTokenAcquisitions.incrementAndGet();
+            final CompletableFuture<AuthenticationResult> future = new CompletableFuture<>();
+            if (rejectRefreshTokens) {
+                future.completeExceptionally(new IllegalStateException("Refresh token rejected"));
+            } else {
+                future.complete(issue());
+            }
+            return future;
+        }
+
+        private AuthenticationResult issue() {
+            final int id = issued.incrementAndGet();
+            return new AuthenticationResult("Bearer", "access-" + id, "refresh-" + id, tokenLifetime.getSeconds(), null, null, false);
+        }
+    }
+}
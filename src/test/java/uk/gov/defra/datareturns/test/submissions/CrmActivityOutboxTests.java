@@ -0,0 +1,149 @@
+package uk.gov.defra.datareturns.test.submissions;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.defra.datareturns.data.model.outbox.CrmActivityAction;
+import uk.gov.defra.datareturns.data.model.outbox.CrmActivityOutboxEntry;
+import uk.gov.defra.datareturns.data.model.outbox.CrmActivityOutboxRepository;
+import uk.gov.defra.datareturns.data.model.submissions.Submission;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionRepository;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionSource;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionStatus;
+import uk.gov.defra.datareturns.services.crm.CrmActivityOutboxService;
+import uk.gov.defra.datareturns.services.crm.CrmLookupService;
+import uk.gov.defra.datareturns.services.crm.entity.CrmActivity;
+import uk.gov.defra.datareturns.services.crm.entity.CrmCallResult;
+import uk.gov.defra.datareturns.testcommons.framework.ApiContextTest;
+import uk.gov.defra.datareturns.testutils.WithAdminUser;
+
+import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Tests for the queueing and (batched) dispatch of CRM activity calls through the outbox
+ */
+@RunWith(SpringRunner.class)
+@ApiContextTest
+@WithAdminUser
+@Slf4j
+public class CrmActivityOutboxTests {
+    private static final short SEASON = 2002;
+
+    @Inject
+    private SubmissionRepository submissionRepository;
+    @Inject
+    private CrmActivityOutboxRepository outboxRepository;
+    @Inject
+    private CrmActivityOutboxService outboxService;
+    @Inject
+    private CrmLookupService lookupService;
+    @Inject
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void testOutboxWrittenInSubmissionTransaction() {
+        final String contactId = RandomStringUtils.randomAlphanumeric(10);
+        new TransactionTemplate(transactionManager).execute(status -> {
+            submissionRepository.saveAndFlush(createSubmission(contactId, SubmissionStatus.INCOMPLETE));
+            Assertions.assertThat(getActions(contactId)).containsExactly(CrmActivityAction.CREATE);
+            status.setRollbackOnly();
+            return null;
+        });
+        Assertions.assertThat(submissionRepository.getByContactIdAndSeason(contactId, SEASON)).isNotPresent();
+        Assertions.assertThat(getActions(contactId)).isEmpty();
+    }
+
+    @Test
+    public void testSubmittedReturnQueuesCreateAndUpdate() {
+        final String contactId = RandomStringUtils.randomAlphanumeric(10);
+        new TransactionTemplate(transactionManager).execute(status -> {
+            submissionRepository.saveAndFlush(createSubmission(contactId, SubmissionStatus.SUBMITTED));
+            Assertions.assertThat(getActions(contactId)).containsExactly(CrmActivityAction.CREATE, CrmActivityAction.UPDATE);
+            status.setRollbackOnly();
+            return null;
+        });
+    }
+
+    @Test
+    public void testDispatchDrainsOutbox() throws InterruptedException {
+        final String contactId = RandomStringUtils.randomAlphanumeric(10);
+        Submission submission = submissionRepository.saveAndFlush(createSubmission(contactId, SubmissionStatus.INCOMPLETE));
+        try {
+            submission = submissionRepository.findById(submission.getId()).orElseThrow(IllegalStateException::new);
+            submission.setStatus(SubmissionStatus.SUBMITTED);
+            submission = submissionRepository.saveAndFlush(submission);
+            submission.setReportingExclude(true);
+            submission = submissionRepository.saveAndFlush(submission);
+            Assertions.assertThat(getActions(contactId)).isNotEmpty();
+
+            outboxService.dispatch();
+            // entries may have been claimed by the scheduled dispatcher, allow it to complete
+            for (int i = 0; i < 50 && !getActions(contactId).isEmpty(); i++) {
+                Thread.sleep(200);
+            }
+            Assertions.assertThat(getActions(contactId)).isEmpty();
+        } finally {
+            submissionRepository.delete(submission);
+        }
+    }
+
+    @Test
+    public void testUpdateAwaitsCreateFailedInEarlierClaim() throws InterruptedException {
+        // the CRM rejects calls without a contact id, so the create fails
+        final short season = 2003;
+        final CrmActivityOutboxEntry create = outboxRepository.saveAndFlush(
+                CrmActivityOutboxEntry.of("", season, CrmActivityAction.CREATE));
+        try {
+            outboxService.dispatch();
+            for (int i = 0; i < 50 && getEntry(create.getId()).getAttempts() == 0; i++) {
+                Thread.sleep(200);
+            }
+            Assertions.assertThat(getEntry(create.getId()).getAttempts()).isEqualTo(1);
+
+            // the create is awaiting retry so is not claimed with the update, which must not be sent before it
+            final CrmActivityOutboxEntry update = outboxRepository.saveAndFlush(
+                    CrmActivityOutboxEntry.of("", season, CrmActivityAction.UPDATE));
+            outboxService.dispatch();
+            for (int i = 0; i < 50 && getEntry(update.getId()).getLastError() == null; i++) {
+                Thread.sleep(200);
+            }
+            Assertions.assertThat(getEntry(update.getId()).getLastError()).isEqualTo("Awaiting activity creation");
+            Assertions.assertThat(getEntry(create.getId()).getAttempts()).isEqualTo(1);
+        } finally {
+            outboxRepository.deleteAll(outboxRepository.findByContactIdAndSeason("", season));
+        }
+    }
+
+    @Test
+    public void testActivityBatchResultsMappedToCalls() {
+        final List<CrmCallResult> results = lookupService.callActivities(Arrays.asList(
+                new CrmActivity.CrmActivityQuery(CrmActivity.Status.STARTED, "contact-1", SEASON),
+                new CrmActivity.CrmActivityQuery(CrmActivity.Status.SUBMITTED, "", SEASON),
+                new CrmActivity.CrmActivityQuery(CrmActivity.Status.SUBMITTED, "contact-1", SEASON)));
+        Assertions.assertThat(results).extracting(CrmCallResult::isSuccessful).containsExactly(true, false, true);
+        Assertions.assertThat(results.get(1).getError()).contains("400").contains("ContactId is required");
+    }
+
+    private CrmActivityOutboxEntry getEntry(final Long id) {
+        return outboxRepository.findById(id).orElseThrow(IllegalStateException::new);
+    }
+
+    private List<CrmActivityAction> getActions(final String contactId) {
+        return outboxRepository.findByContactIdAndSeason(contactId, SEASON).stream()
+                .sorted(Comparator.comparing(CrmActivityOutboxEntry::getId))
+                .map(CrmActivityOutboxEntry::getAction).collect(Collectors.toList());
+    }
+
+    private static Submission createSubmission(final String contactId, final SubmissionStatus status) {
+        return SubmissionTests.createValidSubmission(contactId, (int) SEASON, status, SubmissionSource.WEB);
+    }
+}
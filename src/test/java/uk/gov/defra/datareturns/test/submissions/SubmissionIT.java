@@ -1,6 +1,9 @@
 package uk.gov.defra.datareturns.test.submissions;
 
+import io.restassured.filter.log.LogDetail;
+import io.restassured.http.ContentType;
 import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
 import org.hamcrest.Matchers;
 import org.junit.Before;
 import org.junit.Test;
@@ -8,7 +11,9 @@ import org.junit.runner.RunWith;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.context.junit4.SpringRunner;
 import uk.gov.defra.datareturns.data.model.catches.CatchMass;
+import uk.gov.defra.datareturns.data.model.submissions.Submission;
 import uk.gov.defra.datareturns.data.model.submissions.SubmissionRepository;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionStatus;
 import uk.gov.defra.datareturns.services.crm.DynamicsMockData;
 import uk.gov.defra.datareturns.testcommons.framework.RestAssuredTest;
 import uk.gov.defra.datareturns.testutils.TestLicences;
@@ -22,6 +27,12 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.Month;
 import java.time.Year;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
 
 /**
  * Integration tests submission-level property validation
@@ -179,4 +190,88 @@ public class SubmissionIT {
         sc.reportingExclude(true);
         sc.update();
     }
+
+    @Test
+    public void testSubmissionGraph() {
+        final String contactId = DynamicsMockData.get(TestLicences.getLicence(1)).getContactId();
+        final int season = Year.now().getValue() - 1;
+        final Map<String, Object> graph = submissionGraph(contactId, season,
+                activityNode(3, LocalDate.now().withYear(season).minusDays(1)),
+                activityNode(4, LocalDate.now().withYear(season).minusDays(2)));
+
+        final Number submissionId = given().contentType(ContentType.JSON).body(graph)
+                .when().post("submissionGraphs")
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.CREATED.value())
+                .body("activities", Matchers.hasSize(2))
+                .body("activities[0].catches", Matchers.hasSize(1))
+                .body("activities[1].smallCatches", Matchers.hasSize(1))
+                .extract().path("id");
+
+        final Submission submission = submissionRepository.findById(submissionId.longValue()).orElseThrow(AssertionError::new);
+        Assertions.assertThat(submission.getStatus()).isEqualTo(SubmissionStatus.SUBMITTED);
+
+        // A second return for the same contact and season is rejected
+        given().contentType(ContentType.JSON).body(graph)
+                .when().post("submissionGraphs")
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.CONFLICT.value());
+    }
+
+    @Test
+    public void testSubmissionGraphReportsAllErrors() {
+        final String contactId = DynamicsMockData.get(TestLicences.getLicence(2)).getContactId();
+        final int season = Year.now().getValue() - 1;
+        final Map<String, Object> graph = submissionGraph(contactId, season,
+                activityNode(3, LocalDate.now().withYear(season - 1)), activityNode(3, LocalDate.now().withYear(season).minusDays(1)));
+
+        given().contentType(ContentType.JSON).body(graph)
+                .when().post("submissionGraphs")
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body("errors.message", Matchers.hasItems("ACTIVITY_RIVER_DUPLICATE_FOUND", "CATCH_YEAR_MISMATCH"))
+                .body("errors.find { it.message == 'CATCH_YEAR_MISMATCH' }.entity", Matchers.equalTo("Catch"))
+                .body("errors.find { it.message == 'CATCH_YEAR_MISMATCH' }.property",
+                        Matchers.equalTo("activities[0].catches[0].dateCaught"));
+        Assertions.assertThat(submissionRepository.getByContactIdAndSeason(contactId, (short) season)).isEmpty();
+    }
+
+    private static Map<String, Object> submissionGraph(final String contactId, final int season, final Object... activities) {
+        final Map<String, Object> graph = new HashMap<>();
+        graph.put("contactId", contactId);
+        graph.put("season", season);
+        graph.put("status", "SUBMITTED");
+        graph.put("source", "WEB");
+        graph.put("activities", Arrays.asList(activities));
+        return graph;
+    }
+
+    private static Map<String, Object> activityNode(final long river, final LocalDate dateCaught) {
+        final Map<String, Object> largeCatch = new HashMap<>();
+        largeCatch.put("dateCaught", dateCaught.toString());
+        largeCatch.put("species", 1);
+        largeCatch.put("method", 1);
+        largeCatch.put("massType", "METRIC");
+        largeCatch.put("mass", 1);
+        largeCatch.put("released", false);
+
+        final Map<String, Object> smallCatch = new HashMap<>();
+        smallCatch.put("month", "JANUARY");
+        final Map<String, Object> count = new HashMap<>();
+        count.put("method", 1);
+        count.put("count", 2);
+        smallCatch.put("counts", Collections.singletonList(count));
+        smallCatch.put("released", 1);
+
+        final Map<String, Object> activity = new HashMap<>();
+        activity.put("river", river);
+        activity.put("daysFishedWithMandatoryRelease", 20);
+        activity.put("daysFishedOther", 5);
+        activity.put("catches", Collections.singletonList(largeCatch));
+        activity.put("smallCatches", Collections.singletonList(smallCatch));
+        return activity;
+    }
 }
@@ -0,0 +1,122 @@
+package uk.gov.defra.datareturns.test.submissions;
+
+import io.restassured.filter.log.LogDetail;
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionRepository;
+import uk.gov.defra.datareturns.data.model.submissions.SubmissionSource;
+import uk.gov.defra.datareturns.services.crm.DynamicsMockData;
+import uk.gov.defra.datareturns.testcommons.framework.RestAssuredTest;
+import uk.gov.defra.datareturns.testutils.TestLicences;
+import uk.gov.defra.datareturns.testutils.WithAdminUser;
+
+import javax.inject.Inject;
+import java.time.LocalDate;
+import java.time.Year;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Integration tests for the bulk import of catch returns
+ */
+@RunWith(SpringRunner.class)
+@RestAssuredTest
+@WithAdminUser
+@Slf4j
+public class SubmissionImportIT {
+    private static final String HEADERS = "Contact ID,Season,Record,River,Days Fished With Mandatory Release,Days Fished Other,Date Caught,"
+            + "Month,Species,Method,Mass Type,Mass,Count,Released\n";
+
+    @Inject
+    private SubmissionRepository submissionRepository;
+
+    @Before
+    public void setup() {
+        submissionRepository.deleteAll();
+    }
+
+    @Test
+    public void testCsvImport() {
+        final int season = Year.now().getValue() - 1;
+        final String dateCaught = LocalDate.now().withYear(season).minusDays(1).toString();
+        final String valid = contact(1);
+        final String wrongYear = contact(2);
+        final String noActivity = contact(3);
+        final String csv = HEADERS
+                + valid + "," + season + ",ACTIVITY,3,20,5,,,,,,,,\n"
+                + valid + "," + season + ",CATCH,3,,," + dateCaught + ",,1,1,METRIC,2.5,,false\n"
+                + valid + "," + season + ",SMALL_CATCH,3,,,,1,,1,,,2,1\n"
+                + valid + "," + season + ",SMALL_CATCH,3,,,,1,,2,,,3,\n"
+                + wrongYear + "," + season + ",ACTIVITY,3,20,5,,,,,,,,\n"
+                + wrongYear + "," + season + ",CATCH,3,,," + (season - 1) + "-06-01,,1,1,METRIC,2.5,,false\n"
+                + noActivity + "," + season + ",CATCH,3,,," + dateCaught + ",,1,1,METRIC,2.5,,false\n";
+
+        final String id = given().contentType("text/csv").body(csv)
+                .when().post("submissionGraphs/imports")
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.OK.value())
+                .body("returns", Matchers.equalTo(3))
+                .body("imported", Matchers.equalTo(1))
+                .body("rejected", Matchers.equalTo(2))
+                .extract().path("id");
+
+        Assertions.assertThat(submissionRepository.getByContactIdAndSeason(valid, (short) season))
+                .hasValueSatisfying(s -> Assertions.assertThat(s.getSource()).isEqualTo(SubmissionSource.PAPER));
+        Assertions.assertThat(submissionRepository.getByContactIdAndSeason(wrongYear, (short) season)).isEmpty();
+
+        final String errors = given().when().get("submissionGraphs/imports/" + id + "/errors")
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.OK.value())
+                .extract().asString();
+        Assertions.assertThat(errors)
+                .contains("7," + wrongYear + "," + season + ",activities[0].catches[0].dateCaught,CATCH_YEAR_MISMATCH")
+                .contains("8," + noActivity + "," + season + ",River,IMPORT_ACTIVITY_NOT_FOUND");
+    }
+
+    @Test
+    public void testJsonLinesImport() {
+        final int season = Year.now().getValue() - 1;
+        final String line = "{\"contactId\":\"" + contact(1) + "\",\"season\":" + season + ",\"activities\":[{\"river\":3,"
+                + "\"daysFishedWithMandatoryRelease\":20,\"daysFishedOther\":5}]}\n";
+
+        given().contentType("application/x-ndjson").body(line + "\n" + "not json\n")
+                .when().post("submissionGraphs/imports")
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.OK.value())
+                .body("returns", Matchers.equalTo(2))
+                .body("imported", Matchers.equalTo(1))
+                .body("rejected", Matchers.equalTo(1));
+
+        // Returns which already exist are rejected
+        given().contentType("application/x-ndjson").body(line)
+                .when().post("submissionGraphs/imports")
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.OK.value())
+                .body("imported", Matchers.equalTo(0))
+                .body("rejected", Matchers.equalTo(1))
+                .body("id", Matchers.notNullValue());
+    }
+
+    @Test
+    public void testMissingHeaders() {
+        given().contentType("text/csv").body("Contact ID,Season\n")
+                .when().post("submissionGraphs/imports")
+                .then()
+                .log().ifValidationFails(LogDetail.ALL)
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
+    private static String contact(final int licence) {
+        return DynamicsMockData.get(TestLicences.getLicence(licence)).getContactId();
+    }
+}